@@ -0,0 +1,58 @@
+package com.iho.asn1.compiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compiles ASN.1 modules into Java sources:
+//   ASN1Compiler --package <name> --output <dir> <module.asn1>...
+// All modules given in one run share a symbol table, so they may reference each other's types and values.
+public final class ASN1Compiler {
+    static final class CompileException extends Exception {
+        CompileException(String message) {
+            super(message);
+        }
+    }
+
+    private ASN1Compiler() {}
+
+    public static void main(String[] args) throws IOException {
+        String packageName = "";
+        Path output = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--package" -> packageName = args[++i];
+                case "--output" -> output = Path.of(args[++i]);
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("usage: ASN1Compiler [--package <name>] --output <dir> <module.asn1>...");
+            System.exit(2);
+        }
+        try {
+            compile(packageName, output, inputs);
+        } catch (CompileException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static void compile(String packageName, Path output, List<Path> inputs) throws IOException, CompileException {
+        List<ASN1Module> modules = new ArrayList<>();
+        for (Path input : inputs) {
+            modules.addAll(ModuleParser.parse(input.toString(), Files.readString(input, StandardCharsets.UTF_8)));
+        }
+        JavaEmitter emitter = new JavaEmitter(modules, packageName);
+        Path directory = output.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(directory);
+        for (ASN1Module module : modules) {
+            String source = emitter.emit(module);
+            Files.writeString(directory.resolve(JavaEmitter.className(module) + ".java"), source, StandardCharsets.UTF_8);
+        }
+    }
+}
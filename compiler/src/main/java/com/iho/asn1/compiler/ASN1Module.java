@@ -0,0 +1,74 @@
+package com.iho.asn1.compiler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Parsed form of one ASN.1 module: its tagging mode, type assignments and the value assignments
+// the compiler understands (INTEGER and OBJECT IDENTIFIER).
+final class ASN1Module {
+    enum TagDefault {
+        EXPLICIT,
+        IMPLICIT,
+        AUTOMATIC
+    }
+
+    final String name;
+    final TagDefault tagDefault;
+    final Map<String, Type> types = new LinkedHashMap<>();
+    final Map<String, Long> integers = new LinkedHashMap<>();
+    final Map<String, List<String>> objectIdentifiers = new LinkedHashMap<>();
+    // Declared type of each kept value
+    final Map<String, Type> valueTypes = new LinkedHashMap<>();
+
+    ASN1Module(String name, TagDefault tagDefault) {
+        this.name = name;
+        this.tagDefault = tagDefault;
+    }
+
+    static final class Type {
+        enum Kind {
+            BUILTIN,
+            REFERENCE,
+            SEQUENCE,
+            SET,
+            CHOICE,
+            SEQUENCE_OF,
+            SET_OF,
+            TAGGED
+        }
+
+        final Kind kind;
+        // Built-in type name (e.g. "INTEGER", "OCTET STRING") or referenced type name
+        String name;
+        final List<Component> components = new ArrayList<>();
+        // Element of SEQUENCE OF / SET OF, or the type inside a tag
+        Type inner;
+        String tagClass;
+        long tagNumber;
+        // "EXPLICIT", "IMPLICIT" or null for the module default
+        String tagMode;
+        // Bounds as written: a number, MIN, MAX or a value reference
+        String[] size;
+        String[] range;
+        final Map<String, Long> namedNumbers = new LinkedHashMap<>();
+
+        Type(Kind kind) {
+            this.kind = kind;
+        }
+    }
+
+    static final class Component {
+        final String name;
+        final Type type;
+        boolean optional;
+        // DEFAULT value as written
+        String defaultValue;
+
+        Component(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+}
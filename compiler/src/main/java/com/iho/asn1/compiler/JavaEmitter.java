@@ -0,0 +1,606 @@
+package com.iho.asn1.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Turns parsed modules into one Java file each: a final class named after the module holding INTEGER and
+// OBJECT IDENTIFIER constants and one annotated record per SEQUENCE, CHOICE and named SEQUENCE OF / SET OF.
+// The codec processor then generates the encoders and decoders for those records. Aliases of simple
+// types are inlined at each use, carrying their tags and constraints along.
+final class JavaEmitter {
+    // Simple names the generated file relies on; an ASN.1 type with one of these names gets a "Type" suffix
+    private static final Set<String> RESERVED_TYPE_NAMES = Set.of(
+            "List", "BigInteger", "String", "Integer", "Long", "Boolean", "Double", "Object",
+            "Optional", "Default", "Explicit", "Implicit", "Size", "Range", "SetOf",
+            "DERSequence", "DERChoice", "DERSequenceOf", "DERSetOf",
+            "ASN1Node", "ASN1BitString", "ASN1Null", "ASN1ObjectIdentifier", "ASN1String", "ASN1Time", "TagClass");
+    // Java keywords plus the Object methods a record component may not be named after
+    private static final Set<String> RESERVED_MEMBER_NAMES = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+            "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+            "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+            "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+            "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false", "null", "record",
+            "clone", "finalize", "getClass", "hashCode", "notify", "notifyAll", "toString", "wait");
+    private static final Map<String, String> STRING_TYPES = new HashMap<>();
+    private static final Map<String, Long> OID_ROOTS = Map.of(
+            "itu-t", 0L, "ccitt", 0L, "iso", 1L, "joint-iso-itu-t", 2L, "joint-iso-ccitt", 2L);
+
+    static {
+        STRING_TYPES.put("PrintableString", "ASN1String.PrintableString");
+        STRING_TYPES.put("IA5String", "ASN1String.IA5String");
+        STRING_TYPES.put("NumericString", "ASN1String.NumericString");
+        STRING_TYPES.put("VisibleString", "ASN1String.VisibleString");
+        STRING_TYPES.put("ISO646String", "ASN1String.VisibleString");
+        STRING_TYPES.put("TeletexString", "ASN1String.TeletexString");
+        STRING_TYPES.put("T61String", "ASN1String.TeletexString");
+        STRING_TYPES.put("VideotexString", "ASN1String.VideotexString");
+        STRING_TYPES.put("GraphicString", "ASN1String.GraphicString");
+        STRING_TYPES.put("GeneralString", "ASN1String.GeneralString");
+        STRING_TYPES.put("UniversalString", "ASN1String.UniversalString");
+        STRING_TYPES.put("BMPString", "ASN1String.BMPString");
+    }
+
+    private record Tag(String tagClass, long number, boolean explicit) {}
+
+    // A type reference followed through aliases and tags down to its base type
+    private static final class Resolved {
+        final List<Tag> tags = new ArrayList<>();
+        ASN1Module.Type base;
+        ASN1Module module;
+        String recordName;
+        ASN1Module recordModule;
+        String[] size;
+        ASN1Module sizeModule;
+        String[] range;
+        ASN1Module rangeModule;
+        final Map<String, Long> namedNumbers = new LinkedHashMap<>();
+    }
+
+    private static final class Field {
+        final List<String> annotations = new ArrayList<>();
+        String javaType;
+        Map<String, Long> namedNumbers;
+    }
+
+    private final String packageName;
+    private final Map<String, ASN1Module> typeOwners = new LinkedHashMap<>();
+    private final Map<String, ASN1Module> valueOwners = new LinkedHashMap<>();
+    private final Map<String, String> resolvedObjectIdentifiers = new HashMap<>();
+
+    // Per-module output state
+    private ASN1Module current;
+    private final List<String> records = new ArrayList<>();
+    private final Set<String> usedNames = new HashSet<>();
+
+    JavaEmitter(List<ASN1Module> modules, String packageName) {
+        this.packageName = packageName;
+        for (ASN1Module module : modules) {
+            for (String type : module.types.keySet()) {
+                typeOwners.putIfAbsent(type, module);
+            }
+        }
+        for (ASN1Module module : modules) {
+            module.integers.keySet().removeIf(value -> !"INTEGER".equals(builtinName(module.valueTypes.get(value))));
+            module.objectIdentifiers.keySet().removeIf(value -> !"OBJECT IDENTIFIER".equals(builtinName(module.valueTypes.get(value))));
+            for (String value : module.integers.keySet()) {
+                valueOwners.putIfAbsent(value, module);
+            }
+            for (String value : module.objectIdentifiers.keySet()) {
+                valueOwners.putIfAbsent(value, module);
+            }
+        }
+    }
+
+    static String className(ASN1Module module) {
+        return typeName(module.name);
+    }
+
+    String emit(ASN1Module module) throws ASN1Compiler.CompileException {
+        current = module;
+        records.clear();
+        usedNames.clear();
+        usedNames.add(className(module));
+        for (String name : module.types.keySet()) {
+            usedNames.add(recordName(name));
+        }
+        for (Map.Entry<String, ASN1Module.Type> assignment : module.types.entrySet()) {
+            ASN1Module.Type type = assignment.getValue();
+            while (type.kind == ASN1Module.Type.Kind.TAGGED) {
+                type = type.inner;
+            }
+            if (isStructured(type)) {
+                record(recordName(assignment.getKey()), type, module);
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import com.iho.asn1.*;\n");
+        out.append("import com.iho.asn1.annotation.*;\n\n");
+        out.append("import java.math.BigInteger;\n");
+        out.append("import java.util.List;\n\n");
+        out.append("// Generated by ASN1Compiler from ").append(module.name).append("; do not edit\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(ASN1Compiler.class.getName()).append("\")\n");
+        out.append("public final class ").append(className(module)).append(" {\n");
+        boolean constants = false;
+        for (Map.Entry<String, Long> value : module.integers.entrySet()) {
+            out.append("    public static final long ").append(constantName(value.getKey())).append(" = ")
+                    .append(value.getValue()).append("L;\n");
+            constants = true;
+        }
+        for (String name : module.objectIdentifiers.keySet()) {
+            String dotted = objectIdentifier(name, new HashSet<>());
+            if (dotted != null) {
+                out.append("    public static final ASN1ObjectIdentifier ").append(constantName(name))
+                        .append(" = ASN1ObjectIdentifier.of(\"").append(dotted).append("\");\n");
+                constants = true;
+            }
+        }
+        if (constants) {
+            out.append('\n');
+        }
+        out.append("    private ").append(className(module)).append("() {}\n");
+        for (String record : records) {
+            out.append('\n').append(record);
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private void record(String javaName, ASN1Module.Type type, ASN1Module module) throws ASN1Compiler.CompileException {
+        List<String> components = new ArrayList<>();
+        String annotation;
+        switch (type.kind) {
+            case SEQUENCE, CHOICE -> {
+                annotation = type.kind == ASN1Module.Type.Kind.SEQUENCE ? "@DERSequence" : "@DERChoice";
+                // AUTOMATIC TAGS numbers the components when none of them is tagged already
+                boolean automatic = module.tagDefault == ASN1Module.TagDefault.AUTOMATIC
+                        && type.components.stream().noneMatch(c -> c.type.kind == ASN1Module.Type.Kind.TAGGED);
+                for (int i = 0; i < type.components.size(); i++) {
+                    ASN1Module.Component component = type.components.get(i);
+                    Tag automaticTag = automatic ? new Tag("ContextSpecific", i, false) : null;
+                    components.add(type.kind == ASN1Module.Type.Kind.CHOICE
+                            ? alternative(javaName, component, module, automaticTag)
+                            : component(javaName, component, module, automaticTag));
+                }
+            }
+            case SEQUENCE_OF, SET_OF -> {
+                boolean set = type.kind == ASN1Module.Type.Kind.SET_OF;
+                annotation = set ? "@DERSetOf" : "@DERSequenceOf";
+                Field field = list(javaName, "elements", type, module, sizeOf(type.size, module));
+                components.add(join(field, "elements"));
+            }
+            default -> throw new ASN1Compiler.CompileException(module.name + "." + javaName
+                    + ": SET with named components is not supported; use SEQUENCE or SET OF");
+        }
+        StringBuilder out = new StringBuilder();
+        out.append("    ").append(annotation).append('\n');
+        out.append("    public record ").append(javaName).append('(');
+        for (int i = 0; i < components.size(); i++) {
+            out.append("\n            ").append(components.get(i)).append(i + 1 < components.size() ? "," : "");
+        }
+        out.append(") {}\n");
+        records.add(out.toString());
+    }
+
+    private String component(String owner, ASN1Module.Component component, ASN1Module module, Tag automaticTag)
+            throws ASN1Compiler.CompileException {
+        String name = memberName(component.name);
+        if (component.defaultValue != null) {
+            Field field = field(owner, component.name, component.type, module, automaticTag, false, false);
+            String literal = defaultLiteral(field, component.defaultValue);
+            if (literal != null) {
+                field.annotations.add(0, "@Default(\"" + literal + "\")");
+                return join(field, name);
+            }
+            // Defaults of other types are decoded as absent rather than filled in
+            field = field(owner, component.name, component.type, module, automaticTag, true, false);
+            field.annotations.add(0, "@Optional /* DEFAULT " + component.defaultValue + " */");
+            return join(field, name);
+        }
+        Field field = field(owner, component.name, component.type, module, automaticTag, component.optional, false);
+        if (component.optional) {
+            field.annotations.add(0, "@Optional");
+        }
+        return join(field, name);
+    }
+
+    private String alternative(String owner, ASN1Module.Component component, ASN1Module module, Tag automaticTag)
+            throws ASN1Compiler.CompileException {
+        if (component.optional || component.defaultValue != null) {
+            throw new ASN1Compiler.CompileException(module.name + "." + owner + "." + component.name
+                    + ": CHOICE alternatives cannot be OPTIONAL or have a DEFAULT");
+        }
+        return join(field(owner, component.name, component.type, module, automaticTag, true, false), memberName(component.name));
+    }
+
+    private Field field(String owner, String componentName, ASN1Module.Type type, ASN1Module module, Tag automaticTag,
+                        boolean boxed, boolean element) throws ASN1Compiler.CompileException {
+        Resolved resolved = resolve(type, module, automaticTag);
+        Field field = new Field();
+        field.namedNumbers = resolved.namedNumbers;
+        ASN1Module.Type base = resolved.base;
+        boolean choiceOrAny;
+        long[] size = sizeOf(resolved.size, resolved.sizeModule);
+        if (isStructured(base)) {
+            choiceOrAny = base.kind == ASN1Module.Type.Kind.CHOICE;
+            boolean collection = base.kind == ASN1Module.Type.Kind.SEQUENCE_OF || base.kind == ASN1Module.Type.Kind.SET_OF;
+            if (resolved.recordName != null) {
+                field.javaType = recordReference(resolved.recordName, resolved.recordModule);
+            } else if (collection && !element) {
+                Field list = list(owner, componentName, base, resolved.module, size);
+                field.annotations.addAll(list.annotations);
+                field.javaType = list.javaType;
+            } else {
+                // Anonymous SEQUENCE or CHOICE, or a collection nested directly in another one
+                String nested = uniqueName(owner + typeName(componentName) + (collection ? "Element" : ""));
+                usedNames.add(nested);
+                record(nested, base, resolved.module);
+                field.javaType = nested;
+            }
+        } else {
+            choiceOrAny = base.name.equals("ANY");
+            field.javaType = builtin(resolved, field, boxed, size, element);
+        }
+        if (element && !resolved.tags.isEmpty()) {
+            throw new ASN1Compiler.CompileException(module.name + "." + owner + "." + componentName
+                    + ": tagged SEQUENCE OF / SET OF elements are not supported");
+        }
+        tags(resolved, choiceOrAny, base, field);
+        return field;
+    }
+
+    private Field list(String owner, String componentName, ASN1Module.Type collection, ASN1Module module, long[] size)
+            throws ASN1Compiler.CompileException {
+        Field element = field(owner, componentName, collection.inner, module, null, true, true);
+        Field list = new Field();
+        if (collection.kind == ASN1Module.Type.Kind.SET_OF) {
+            list.annotations.add("@SetOf");
+        }
+        if (size != null) {
+            list.annotations.add(bounds("@Size", size, 0));
+        }
+        list.javaType = "List<" + element.javaType + ">";
+        return list;
+    }
+
+    private String builtin(Resolved resolved, Field field, boolean boxed, long[] size, boolean element)
+            throws ASN1Compiler.CompileException {
+        String name = resolved.base.name;
+        boolean sized = false;
+        String type;
+        switch (name) {
+            case "BOOLEAN" -> type = boxed ? "Boolean" : "boolean";
+            case "INTEGER", "ENUMERATED" -> {
+                long[] range = rangeOf(resolved);
+                boolean narrow = name.equals("ENUMERATED")
+                        || (range != null && range[0] >= Integer.MIN_VALUE && range[1] <= Integer.MAX_VALUE);
+                if (narrow) {
+                    type = boxed ? "Integer" : "int";
+                } else if (range != null || !resolved.namedNumbers.isEmpty()) {
+                    type = boxed ? "Long" : "long";
+                } else {
+                    type = "BigInteger";
+                }
+                if (range != null && !element && !type.equals("BigInteger")) {
+                    field.annotations.add(bounds("@Range", range, Long.MIN_VALUE));
+                }
+            }
+            case "REAL" -> type = boxed ? "Double" : "double";
+            case "NULL" -> type = "ASN1Null";
+            case "OCTET STRING" -> {
+                type = "byte[]";
+                sized = true;
+            }
+            case "BIT STRING" -> {
+                type = "ASN1BitString";
+                sized = true;
+            }
+            case "OBJECT IDENTIFIER" -> type = "ASN1ObjectIdentifier";
+            case "UTF8String" -> {
+                type = "String";
+                sized = true;
+            }
+            case "UTCTime" -> type = "ASN1Time.UTCTime";
+            case "GeneralizedTime" -> type = "ASN1Time.GeneralizedTime";
+            case "ANY" -> type = "ASN1Node";
+            default -> {
+                type = STRING_TYPES.get(name);
+                if (type == null) {
+                    throw new ASN1Compiler.CompileException(resolved.module.name + ": " + name + " is not supported");
+                }
+                sized = true;
+            }
+        }
+        if (sized && size != null && !element) {
+            field.annotations.add(bounds("@Size", size, 0));
+        }
+        return type;
+    }
+
+    // Collapses the tag chain into at most one explicit wrapper and one implicit replacement
+    private void tags(Resolved resolved, boolean choiceOrAny, ASN1Module.Type base, Field field)
+            throws ASN1Compiler.CompileException {
+        List<Tag> explicit = new ArrayList<>();
+        Tag pending = null;
+        for (int i = 0; i < resolved.tags.size(); i++) {
+            Tag tag = resolved.tags.get(i);
+            Tag outer = pending != null ? pending : tag;
+            pending = null;
+            // An implicit tag on a CHOICE or ANY has nothing to replace, so X.680 makes it explicit
+            boolean explicitHere = tag.explicit() || (choiceOrAny && i == resolved.tags.size() - 1);
+            if (explicitHere) {
+                explicit.add(outer);
+            } else {
+                pending = outer;
+            }
+        }
+        if (pending == null && base.kind == ASN1Module.Type.Kind.BUILTIN && base.name.equals("ENUMERATED")) {
+            pending = new Tag("Universal", 10, false);
+        }
+        if (explicit.size() > 1) {
+            throw new ASN1Compiler.CompileException(resolved.module.name + ": more than one explicit tag on a type is not supported");
+        }
+        int at = 0;
+        while (at < field.annotations.size() && field.annotations.get(at).startsWith("@Optional")) {
+            at++;
+        }
+        if (!explicit.isEmpty()) {
+            field.annotations.add(at++, tagAnnotation("@Explicit", explicit.get(0)));
+        }
+        if (pending != null) {
+            field.annotations.add(at, tagAnnotation("@Implicit", pending));
+        }
+    }
+
+    private Resolved resolve(ASN1Module.Type type, ASN1Module module, Tag automaticTag) throws ASN1Compiler.CompileException {
+        Resolved resolved = new Resolved();
+        if (automaticTag != null) {
+            resolved.tags.add(automaticTag);
+        }
+        ASN1Module.Type current = type;
+        ASN1Module owner = module;
+        while (true) {
+            // The constraint closest to the use wins over the one on the aliased type
+            if (current.size != null && resolved.size == null) {
+                resolved.size = current.size;
+                resolved.sizeModule = owner;
+            }
+            if (current.range != null && resolved.range == null) {
+                resolved.range = current.range;
+                resolved.rangeModule = owner;
+            }
+            for (Map.Entry<String, Long> named : current.namedNumbers.entrySet()) {
+                resolved.namedNumbers.putIfAbsent(named.getKey(), named.getValue());
+            }
+            switch (current.kind) {
+                case TAGGED -> {
+                    boolean explicit = "EXPLICIT".equals(current.tagMode)
+                            || (current.tagMode == null && owner.tagDefault == ASN1Module.TagDefault.EXPLICIT);
+                    resolved.tags.add(new Tag(current.tagClass, current.tagNumber, explicit));
+                    current = current.inner;
+                }
+                case REFERENCE -> {
+                    ASN1Module target = typeOwners.get(current.name);
+                    if (target == null) {
+                        throw new ASN1Compiler.CompileException(owner.name + ": unknown type " + current.name);
+                    }
+                    resolved.recordName = current.name;
+                    resolved.recordModule = target;
+                    current = target.types.get(current.name);
+                    owner = target;
+                }
+                default -> {
+                    resolved.base = current;
+                    resolved.module = owner;
+                    return resolved;
+                }
+            }
+        }
+    }
+
+    // Built-in type behind a value's declared type, or null when it is not a simple type
+    private String builtinName(ASN1Module.Type type) {
+        while (type != null) {
+            switch (type.kind) {
+                case BUILTIN -> {
+                    return type.name;
+                }
+                case TAGGED -> type = type.inner;
+                case REFERENCE -> {
+                    ASN1Module owner = typeOwners.get(type.name);
+                    type = owner == null ? null : owner.types.get(type.name);
+                }
+                default -> type = null;
+            }
+        }
+        return null;
+    }
+
+    private long[] sizeOf(String[] bounds, ASN1Module module) {
+        if (bounds == null) {
+            return null;
+        }
+        Long min = bound(bounds[0], module, 0);
+        Long max = bound(bounds[1], module, Long.MAX_VALUE);
+        return min == null || max == null ? null : new long[]{min, max};
+    }
+
+    private long[] rangeOf(Resolved resolved) {
+        if (resolved.range == null) {
+            return null;
+        }
+        Long min = bound(resolved.range[0], resolved.rangeModule, Long.MIN_VALUE);
+        Long max = bound(resolved.range[1], resolved.rangeModule, Long.MAX_VALUE);
+        return min == null || max == null ? null : new long[]{min, max};
+    }
+
+    // A bound that names an unknown value drops the constraint rather than failing the build
+    private Long bound(String text, ASN1Module module, long open) {
+        if (text.equals("MIN") || text.equals("MAX")) {
+            return open;
+        }
+        if (Character.isLowerCase(text.charAt(0))) {
+            Long value = module.integers.get(text);
+            if (value == null && valueOwners.containsKey(text)) {
+                value = valueOwners.get(text).integers.get(text);
+            }
+            return value;
+        }
+        return Long.parseLong(text);
+    }
+
+    private String defaultLiteral(Field field, String value) {
+        switch (field.javaType) {
+            case "boolean":
+                return value.equals("TRUE") ? "true" : value.equals("FALSE") ? "false" : null;
+            case "int":
+            case "long":
+                if (value.matches("-?\\d+")) {
+                    return value;
+                }
+                Long named = field.namedNumbers.get(value);
+                return named == null ? null : String.valueOf(named);
+            default:
+                return null;
+        }
+    }
+
+    private String objectIdentifier(String name, Set<String> visiting) {
+        if (resolvedObjectIdentifiers.containsKey(name)) {
+            return resolvedObjectIdentifiers.get(name);
+        }
+        ASN1Module owner = valueOwners.get(name);
+        if (owner == null || !owner.objectIdentifiers.containsKey(name) || !visiting.add(name)) {
+            return null;
+        }
+        List<String> tokens = owner.objectIdentifiers.get(name);
+        StringBuilder dotted = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String arc;
+            if (Character.isDigit(token.charAt(0))) {
+                arc = token;
+            } else if (i + 3 < tokens.size() && tokens.get(i + 1).equals("(")) {
+                // name(number) form
+                arc = tokens.get(i + 2);
+                i += 3;
+            } else if (i == 0 && OID_ROOTS.containsKey(token)) {
+                arc = String.valueOf(OID_ROOTS.get(token));
+            } else if (i == 0) {
+                arc = objectIdentifier(token, visiting);
+                if (arc == null) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            dotted.append(dotted.length() == 0 ? "" : ".").append(arc);
+        }
+        resolvedObjectIdentifiers.put(name, dotted.toString());
+        return dotted.toString();
+    }
+
+    private String recordReference(String asn1Name, ASN1Module owner) {
+        return owner == current ? recordName(asn1Name) : className(owner) + "." + recordName(asn1Name);
+    }
+
+    private String uniqueName(String base) {
+        String name = base;
+        for (int i = 2; usedNames.contains(name) || RESERVED_TYPE_NAMES.contains(name); i++) {
+            name = base + i;
+        }
+        return name;
+    }
+
+    private static boolean isStructured(ASN1Module.Type type) {
+        return switch (type.kind) {
+            case SEQUENCE, SET, CHOICE, SEQUENCE_OF, SET_OF -> true;
+            default -> false;
+        };
+    }
+
+    private static String join(Field field, String name) {
+        StringBuilder out = new StringBuilder();
+        for (String annotation : field.annotations) {
+            out.append(annotation).append(' ');
+        }
+        return out.append(field.javaType).append(' ').append(name).toString();
+    }
+
+    private static String tagAnnotation(String annotation, Tag tag) {
+        if (tag.tagClass().equals("ContextSpecific")) {
+            return annotation + "(" + tag.number() + ")";
+        }
+        return annotation + "(value = " + tag.number() + ", tagClass = TagClass." + tag.tagClass() + ")";
+    }
+
+    private static String bounds(String annotation, long[] bounds, long openMin) {
+        List<String> parts = new ArrayList<>();
+        if (bounds[0] != openMin) {
+            parts.add("min = " + longLiteral(bounds[0]));
+        }
+        if (bounds[1] != Long.MAX_VALUE) {
+            parts.add("max = " + longLiteral(bounds[1]));
+        }
+        return parts.isEmpty() ? annotation : annotation + "(" + String.join(", ", parts) + ")";
+    }
+
+    private static String longLiteral(long value) {
+        return value == (int) value ? String.valueOf(value) : value + "L";
+    }
+
+    private static String recordName(String asn1Name) {
+        String name = typeName(asn1Name);
+        return RESERVED_TYPE_NAMES.contains(name) ? name + "Type" : name;
+    }
+
+    static String typeName(String asn1Name) {
+        String camel = camel(asn1Name);
+        return Character.toUpperCase(camel.charAt(0)) + camel.substring(1);
+    }
+
+    private static String memberName(String asn1Name) {
+        String name = camel(asn1Name);
+        return RESERVED_MEMBER_NAMES.contains(name) ? name + "_" : name;
+    }
+
+    private static String camel(String asn1Name) {
+        StringBuilder out = new StringBuilder();
+        boolean upper = false;
+        for (char c : asn1Name.toCharArray()) {
+            if (c == '-') {
+                upper = true;
+            } else {
+                out.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return out.toString();
+    }
+
+    private static String constantName(String asn1Name) {
+        StringBuilder out = new StringBuilder();
+        char previous = 0;
+        for (char c : asn1Name.toCharArray()) {
+            if (c == '-') {
+                out.append('_');
+            } else {
+                if (Character.isUpperCase(c) && Character.isLowerCase(previous)) {
+                    out.append('_');
+                }
+                out.append(Character.toUpperCase(c));
+            }
+            previous = c;
+        }
+        return out.toString();
+    }
+}
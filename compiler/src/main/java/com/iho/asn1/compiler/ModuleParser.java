@@ -0,0 +1,460 @@
+package com.iho.asn1.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Recursive-descent parser for the part of X.680 that PKIX-style modules use: SEQUENCE, SET OF,
+// CHOICE, OPTIONAL, DEFAULT, tags with EXPLICIT/IMPLICIT/AUTOMATIC defaults, named numbers, and
+// SIZE and value-range constraints. Information object classes and parameterized types are rejected;
+// constraints it does not understand are skipped.
+final class ModuleParser {
+    private static final Set<String> BUILTINS = Set.of(
+            "BOOLEAN", "NULL", "REAL", "UTCTime", "GeneralizedTime",
+            "UTF8String", "PrintableString", "IA5String", "NumericString", "VisibleString", "ISO646String",
+            "TeletexString", "T61String", "VideotexString", "GraphicString", "GeneralString",
+            "UniversalString", "BMPString");
+    private static final Set<String> UNSUPPORTED = Set.of(
+            "CHARACTER", "EMBEDDED", "EXTERNAL", "INSTANCE", "RELATIVE-OID", "CLASS", "TYPE-IDENTIFIER");
+
+    private record Token(String text, int line) {}
+
+    private final String source;
+    private final List<Token> tokens;
+    private int position;
+
+    private ModuleParser(String source, List<Token> tokens) {
+        this.source = source;
+        this.tokens = tokens;
+    }
+
+    static List<ASN1Module> parse(String source, String text) throws ASN1Compiler.CompileException {
+        ModuleParser parser = new ModuleParser(source, tokenize(source, text));
+        List<ASN1Module> modules = new ArrayList<>();
+        while (parser.position < parser.tokens.size()) {
+            modules.add(parser.module());
+        }
+        return modules;
+    }
+
+    private ASN1Module module() throws ASN1Compiler.CompileException {
+        String name = next();
+        if (peek("{")) {
+            skipBalanced("{", "}");
+        }
+        expect("DEFINITIONS");
+        ASN1Module.TagDefault tagDefault = ASN1Module.TagDefault.EXPLICIT;
+        if (peek("EXPLICIT") || peek("IMPLICIT") || peek("AUTOMATIC")) {
+            tagDefault = ASN1Module.TagDefault.valueOf(next());
+            expect("TAGS");
+        }
+        if (peek("EXTENSIBILITY")) {
+            next();
+            expect("IMPLIED");
+        }
+        expect("::=");
+        expect("BEGIN");
+        ASN1Module module = new ASN1Module(name, tagDefault);
+        for (String section : new String[]{"EXPORTS", "IMPORTS"}) {
+            if (peek(section)) {
+                while (!next().equals(";")) {
+                    // Imported names are resolved against every module given to the compiler
+                }
+            }
+        }
+        while (!peek("END")) {
+            assignment(module);
+        }
+        expect("END");
+        return module;
+    }
+
+    private void assignment(ASN1Module module) throws ASN1Compiler.CompileException {
+        String name = next();
+        if (Character.isUpperCase(name.charAt(0))) {
+            if (peek("{")) {
+                throw error("Parameterized type " + name + " is not supported");
+            }
+            expect("::=");
+            for (String keyword : UNSUPPORTED) {
+                if (peek(keyword)) {
+                    throw error(name + ": " + keyword + " is not supported");
+                }
+            }
+            module.types.put(name, type());
+            return;
+        }
+
+        // Value assignment: only INTEGER and OBJECT IDENTIFIER values are kept. Values of a referenced
+        // type are kept too; the emitter drops them unless the reference resolves to one of the two.
+        ASN1Module.Type type = type();
+        expect("::=");
+        boolean reference = type.kind == ASN1Module.Type.Kind.REFERENCE;
+        if (peek("{")) {
+            List<String> value = skipBalanced("{", "}");
+            if (reference || (type.kind == ASN1Module.Type.Kind.BUILTIN && type.name.equals("OBJECT IDENTIFIER"))) {
+                module.objectIdentifiers.put(name, value.subList(1, value.size() - 1));
+                module.valueTypes.put(name, type);
+            }
+        } else {
+            String value = next();
+            if ((reference || (type.kind == ASN1Module.Type.Kind.BUILTIN && type.name.equals("INTEGER"))) && isNumber(value)) {
+                module.integers.put(name, Long.parseLong(value));
+                module.valueTypes.put(name, type);
+            }
+        }
+    }
+
+    private ASN1Module.Type type() throws ASN1Compiler.CompileException {
+        if (peek("[")) {
+            next();
+            ASN1Module.Type tagged = new ASN1Module.Type(ASN1Module.Type.Kind.TAGGED);
+            tagged.tagClass = "ContextSpecific";
+            if (peek("UNIVERSAL") || peek("APPLICATION") || peek("PRIVATE")) {
+                String tagClass = next();
+                tagged.tagClass = tagClass.charAt(0) + tagClass.substring(1).toLowerCase();
+            }
+            String number = next();
+            if (!isNumber(number)) {
+                throw error("Tag number must be a literal, got " + number);
+            }
+            tagged.tagNumber = Long.parseLong(number);
+            expect("]");
+            if (peek("IMPLICIT") || peek("EXPLICIT")) {
+                tagged.tagMode = next();
+            }
+            tagged.inner = type();
+            return tagged;
+        }
+        ASN1Module.Type type = baseType();
+        while (peek("(")) {
+            constraint(type);
+        }
+        return type;
+    }
+
+    private ASN1Module.Type baseType() throws ASN1Compiler.CompileException {
+        String keyword = next();
+        ASN1Module.Type type;
+        switch (keyword) {
+            case "INTEGER":
+                type = builtin("INTEGER");
+                if (peek("{")) {
+                    namedNumbers(type, false);
+                }
+                return type;
+            case "ENUMERATED":
+                type = builtin("ENUMERATED");
+                namedNumbers(type, true);
+                return type;
+            case "OCTET":
+                expect("STRING");
+                return builtin("OCTET STRING");
+            case "BIT":
+                expect("STRING");
+                type = builtin("BIT STRING");
+                if (peek("{")) {
+                    // Named bits only document positions; the value stays a bit string
+                    namedNumbers(new ASN1Module.Type(ASN1Module.Type.Kind.BUILTIN), false);
+                }
+                return type;
+            case "OBJECT":
+                expect("IDENTIFIER");
+                return builtin("OBJECT IDENTIFIER");
+            case "ANY":
+                if (peek("DEFINED")) {
+                    next();
+                    expect("BY");
+                    next();
+                }
+                return builtin("ANY");
+            case "SEQUENCE":
+            case "SET":
+                return structured(keyword.equals("SET"));
+            case "CHOICE":
+                type = new ASN1Module.Type(ASN1Module.Type.Kind.CHOICE);
+                components(type);
+                return type;
+            default:
+                break;
+        }
+        if (BUILTINS.contains(keyword)) {
+            return builtin(keyword);
+        }
+        if (UNSUPPORTED.contains(keyword)) {
+            throw error(keyword + " is not supported");
+        }
+        if (!Character.isUpperCase(keyword.charAt(0))) {
+            throw error("Expected a type, got " + keyword);
+        }
+        type = new ASN1Module.Type(ASN1Module.Type.Kind.REFERENCE);
+        type.name = keyword;
+        if (peek(".")) {
+            // External reference Module.Type: the type name alone identifies it
+            next();
+            type.name = next();
+        }
+        if (peek("{")) {
+            throw error("Parameterized type " + type.name + " is not supported");
+        }
+        return type;
+    }
+
+    private ASN1Module.Type structured(boolean set) throws ASN1Compiler.CompileException {
+        if (peek("{")) {
+            ASN1Module.Type type = new ASN1Module.Type(set ? ASN1Module.Type.Kind.SET : ASN1Module.Type.Kind.SEQUENCE);
+            components(type);
+            return type;
+        }
+        ASN1Module.Type type = new ASN1Module.Type(set ? ASN1Module.Type.Kind.SET_OF : ASN1Module.Type.Kind.SEQUENCE_OF);
+        if (peek("SIZE")) {
+            next();
+            type.size = bounds();
+        } else if (peek("(")) {
+            constraint(type);
+        }
+        expect("OF");
+        if (Character.isLowerCase(peekText().charAt(0)) && !peek("[")) {
+            // SEQUENCE OF may name its element; the name carries no encoding
+            next();
+        }
+        type.inner = type();
+        return type;
+    }
+
+    private void components(ASN1Module.Type type) throws ASN1Compiler.CompileException {
+        expect("{");
+        while (!peek("}")) {
+            if (peek("...") || peek("[") || peek("]")) {
+                // Extension markers and version brackets do not change the DER of the root components
+                next();
+                if (peek("!")) {
+                    next();
+                    next();
+                }
+            } else if (peek("COMPONENTS")) {
+                throw error("COMPONENTS OF is not supported");
+            } else {
+                String name = next();
+                if (!Character.isLowerCase(name.charAt(0))) {
+                    throw error("Expected a component name, got " + name);
+                }
+                ASN1Module.Component component = new ASN1Module.Component(name, type());
+                if (peek("OPTIONAL")) {
+                    next();
+                    component.optional = true;
+                } else if (peek("DEFAULT")) {
+                    next();
+                    component.defaultValue = peek("{") ? String.join(" ", skipBalanced("{", "}")) : next();
+                }
+                type.components.add(component);
+            }
+            if (peek(",")) {
+                next();
+            }
+        }
+        expect("}");
+    }
+
+    private void namedNumbers(ASN1Module.Type type, boolean enumerated) throws ASN1Compiler.CompileException {
+        expect("{");
+        long nextValue = 0;
+        while (!peek("}")) {
+            if (peek("...") || peek(",")) {
+                next();
+                continue;
+            }
+            String name = next();
+            long value = nextValue;
+            if (peek("(")) {
+                next();
+                String number = next();
+                if (!isNumber(number)) {
+                    throw error("Named number " + name + " must be a literal");
+                }
+                value = Long.parseLong(number);
+                expect(")");
+            } else if (!enumerated) {
+                throw error("Named number " + name + " needs a value");
+            }
+            type.namedNumbers.put(name, value);
+            nextValue = value + 1;
+        }
+        expect("}");
+    }
+
+    // Reads SIZE and value-range constraints; anything else inside the parentheses is skipped
+    private void constraint(ASN1Module.Type type) throws ASN1Compiler.CompileException {
+        int start = position;
+        expect("(");
+        if (peek("SIZE")) {
+            next();
+            type.size = bounds();
+        } else if (isBound(peekText())) {
+            String[] range = range();
+            if (range != null) {
+                type.range = range;
+            }
+        }
+        position = start;
+        skipBalanced("(", ")");
+    }
+
+    private String[] bounds() throws ASN1Compiler.CompileException {
+        int start = position;
+        expect("(");
+        String[] range = range();
+        position = start;
+        skipBalanced("(", ")");
+        return range;
+    }
+
+    private String[] range() throws ASN1Compiler.CompileException {
+        String lower = next();
+        if (!isBound(lower)) {
+            return null;
+        }
+        if (!peek("..")) {
+            return peek(")") || peek(",") ? new String[]{lower, lower} : null;
+        }
+        next();
+        if (peek("<")) {
+            next();
+        }
+        String upper = next();
+        return isBound(upper) ? new String[]{lower, upper} : null;
+    }
+
+    private static boolean isBound(String token) {
+        return isNumber(token) || token.equals("MIN") || token.equals("MAX") || Character.isLowerCase(token.charAt(0));
+    }
+
+    private static boolean isNumber(String token) {
+        int start = token.startsWith("-") ? 1 : 0;
+        if (token.length() == start) {
+            return false;
+        }
+        for (int i = start; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ASN1Module.Type builtin(String name) {
+        ASN1Module.Type type = new ASN1Module.Type(ASN1Module.Type.Kind.BUILTIN);
+        type.name = name;
+        return type;
+    }
+
+    private List<String> skipBalanced(String open, String close) throws ASN1Compiler.CompileException {
+        List<String> skipped = new ArrayList<>();
+        int depth = 0;
+        do {
+            String token = next();
+            skipped.add(token);
+            if (token.equals(open)) {
+                depth++;
+            } else if (token.equals(close)) {
+                depth--;
+            }
+        } while (depth > 0);
+        return skipped;
+    }
+
+    private boolean peek(String text) {
+        return position < tokens.size() && tokens.get(position).text.equals(text);
+    }
+
+    private String peekText() throws ASN1Compiler.CompileException {
+        if (position >= tokens.size()) {
+            throw error("Unexpected end of input");
+        }
+        return tokens.get(position).text;
+    }
+
+    private String next() throws ASN1Compiler.CompileException {
+        String text = peekText();
+        position++;
+        return text;
+    }
+
+    private void expect(String text) throws ASN1Compiler.CompileException {
+        String actual = next();
+        if (!actual.equals(text)) {
+            position--;
+            throw error("Expected " + text + ", got " + actual);
+        }
+    }
+
+    private ASN1Compiler.CompileException error(String message) {
+        int line = tokens.isEmpty() ? 0 : tokens.get(Math.min(position, tokens.size() - 1)).line;
+        return new ASN1Compiler.CompileException(source + ":" + line + ": " + message);
+    }
+
+    private static List<Token> tokenize(String source, String text) throws ASN1Compiler.CompileException {
+        List<Token> tokens = new ArrayList<>();
+        int line = 1;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (text.startsWith("--", i)) {
+                // A comment ends at the end of the line or at the next "--"
+                int end = i + 2;
+                while (end < text.length() && text.charAt(end) != '\n' && !text.startsWith("--", end)) {
+                    end++;
+                }
+                i = text.startsWith("--", end) ? end + 2 : end;
+            } else if (text.startsWith("/*", i)) {
+                int end = text.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new ASN1Compiler.CompileException(source + ":" + line + ": Unterminated comment");
+                }
+                line += (int) text.substring(i, end).chars().filter(ch -> ch == '\n').count();
+                i = end + 2;
+            } else if (text.startsWith("::=", i) || text.startsWith("...", i)) {
+                tokens.add(new Token(text.substring(i, i + 3), line));
+                i += 3;
+            } else if (text.startsWith("..", i)) {
+                tokens.add(new Token("..", line));
+                i += 2;
+            } else if (Character.isLetter(c) || c == '&') {
+                int end = i + 1;
+                while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end))
+                        || (text.charAt(end) == '-' && !text.startsWith("--", end)))) {
+                    end++;
+                }
+                tokens.add(new Token(text.substring(i, end), line));
+                i = end;
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1)))) {
+                int end = i + 1;
+                while (end < text.length() && Character.isDigit(text.charAt(end))) {
+                    end++;
+                }
+                tokens.add(new Token(text.substring(i, end), line));
+                i = end;
+            } else if (c == '"' || c == '\'') {
+                int end = text.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw new ASN1Compiler.CompileException(source + ":" + line + ": Unterminated string");
+                }
+                end++;
+                if (c == '\'' && end < text.length() && (text.charAt(end) == 'B' || text.charAt(end) == 'H')) {
+                    end++;
+                }
+                tokens.add(new Token(text.substring(i, end), line));
+                i = end;
+            } else {
+                tokens.add(new Token(String.valueOf(c), line));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -67,4 +67,9 @@ gen_asn1 "printable_string.der" "asn1 = PRINTABLESTRING:Hello Printable"
 gen_asn1 "ia5_string.der" "asn1 = IA5STRING:Hello IA5"
 gen_asn1 "numeric_string.der" "asn1 = NUMERICSTRING:1234567890"
 
+# Certificate: self-signed P-256, used by the ASN.1 module compiler tests
+openssl req -x509 -newkey ec -pkeyopt ec_paramgen_curve:P-256 -nodes -keyout "$DIR/cert.key" \
+    -subj "/C=UA/O=der.java/CN=Golden Test CA" -days 3650 -outform DER -out "$DIR/cert.der" 2>/dev/null
+rm "$DIR/cert.key"
+
 echo "Golden files generated in $DIR"
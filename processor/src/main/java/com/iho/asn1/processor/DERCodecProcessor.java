@@ -0,0 +1,1068 @@
+package com.iho.asn1.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+// Generates <Record>Codec classes for records annotated with @DERSequence, @DERChoice, @DERSequenceOf or
+// @DERSetOf. The generated code calls the library's public decoders and DERWriter directly, one statement
+// per component, with no reflection.
+@SupportedAnnotationTypes({
+        "com.iho.asn1.annotation.DERSequence",
+        "com.iho.asn1.annotation.DERChoice",
+        "com.iho.asn1.annotation.DERSequenceOf",
+        "com.iho.asn1.annotation.DERSetOf"})
+public final class DERCodecProcessor extends AbstractProcessor {
+    private static final String ANNOTATIONS = "com.iho.asn1.annotation.";
+    private static final Map<String, Long> UNIVERSAL_NUMBERS = new LinkedHashMap<>();
+    private static final Map<String, String> BUILT_IN_IDENTIFIERS = new LinkedHashMap<>();
+
+    static {
+        UNIVERSAL_NUMBERS.put("BOOLEAN", 0x01L);
+        UNIVERSAL_NUMBERS.put("INTEGER", 0x02L);
+        UNIVERSAL_NUMBERS.put("BIT_STRING", 0x03L);
+        UNIVERSAL_NUMBERS.put("OCTET_STRING", 0x04L);
+        UNIVERSAL_NUMBERS.put("NULL", 0x05L);
+        UNIVERSAL_NUMBERS.put("OBJECT_IDENTIFIER", 0x06L);
+        UNIVERSAL_NUMBERS.put("REAL", 0x09L);
+        UNIVERSAL_NUMBERS.put("UTF8_STRING", 0x0CL);
+        UNIVERSAL_NUMBERS.put("SEQUENCE", 0x10L);
+        UNIVERSAL_NUMBERS.put("SET", 0x11L);
+        UNIVERSAL_NUMBERS.put("NUMERIC_STRING", 0x12L);
+        UNIVERSAL_NUMBERS.put("PRINTABLE_STRING", 0x13L);
+        UNIVERSAL_NUMBERS.put("TELETEX_STRING", 0x14L);
+        UNIVERSAL_NUMBERS.put("VIDEOTEX_STRING", 0x15L);
+        UNIVERSAL_NUMBERS.put("IA5_STRING", 0x16L);
+        UNIVERSAL_NUMBERS.put("UTC_TIME", 0x17L);
+        UNIVERSAL_NUMBERS.put("GENERALIZED_TIME", 0x18L);
+        UNIVERSAL_NUMBERS.put("GRAPHIC_STRING", 0x19L);
+        UNIVERSAL_NUMBERS.put("VISIBLE_STRING", 0x1AL);
+        UNIVERSAL_NUMBERS.put("GENERAL_STRING", 0x1BL);
+        UNIVERSAL_NUMBERS.put("UNIVERSAL_STRING", 0x1CL);
+        UNIVERSAL_NUMBERS.put("BMP_STRING", 0x1EL);
+
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1Boolean", "BOOLEAN");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1Integer", "INTEGER");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1BitString", "BIT_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1OctetString", "OCTET_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1Null", "NULL");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1ObjectIdentifier", "OBJECT_IDENTIFIER");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1Real", "REAL");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.UTF8String", "UTF8_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.NumericString", "NUMERIC_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.PrintableString", "PRINTABLE_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.TeletexString", "TELETEX_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.VideotexString", "VIDEOTEX_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.IA5String", "IA5_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.GraphicString", "GRAPHIC_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.VisibleString", "VISIBLE_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.GeneralString", "GENERAL_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.UniversalString", "UNIVERSAL_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1String.BMPString", "BMP_STRING");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1Time.UTCTime", "UTC_TIME");
+        BUILT_IN_IDENTIFIERS.put("com.iho.asn1.ASN1Time.GeneralizedTime", "GENERALIZED_TIME");
+    }
+
+    private enum Kind {
+        SEQUENCE("DERSequence", "SEQUENCE"),
+        CHOICE("DERChoice", null),
+        SEQUENCE_OF("DERSequenceOf", "SEQUENCE"),
+        SET_OF("DERSetOf", "SET");
+
+        final String annotation;
+        final String universal;
+
+        Kind(String annotation, String universal) {
+            this.annotation = annotation;
+            this.universal = universal;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Kind kind : Kind.values()) {
+            TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATIONS + kind.annotation);
+            if (annotation == null) {
+                continue;
+            }
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.RECORD) {
+                    error("@" + kind.annotation + " can only be applied to records", element);
+                    continue;
+                }
+                TypeElement record = (TypeElement) element;
+                if (kindOf(record) != kind) {
+                    error("A record can carry only one of @DERSequence, @DERChoice, @DERSequenceOf and @DERSetOf", record);
+                    continue;
+                }
+                try {
+                    String source = new Generator(record, kind).generate();
+                    try (Writer out = processingEnv.getFiler().createSourceFile(qualifiedCodecName(record), record).openWriter()) {
+                        out.write(source);
+                    }
+                } catch (CodecException e) {
+                    error(e.getMessage(), e.element);
+                } catch (IOException e) {
+                    error("Could not write codec: " + e.getMessage(), record);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static Kind kindOf(TypeElement type) {
+        Kind found = null;
+        for (Kind kind : Kind.values()) {
+            if (annotation(type, kind.annotation) != null) {
+                if (found != null) {
+                    return null;
+                }
+                found = kind;
+            }
+        }
+        return found;
+    }
+
+    private static AnnotationMirror annotation(Element element, String simpleName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(ANNOTATIONS + simpleName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String codecSimpleName(TypeElement record) {
+        // Nested records are flattened into Outer_InnerCodec so the codec can sit in the same package
+        StringBuilder name = new StringBuilder(record.getSimpleName());
+        for (Element enclosing = record.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name + "Codec";
+    }
+
+    private String qualifiedCodecName(TypeElement record) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(record).getQualifiedName().toString();
+        return packageName.isEmpty() ? codecSimpleName(record) : packageName + "." + codecSimpleName(record);
+    }
+
+    private static final class CodecException extends Exception {
+        final Element element;
+
+        CodecException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+    // An identifier known at compile time: the expression naming it and, for the CHOICE switch, its parts
+    private record Tag(String expression, String tagClass, long number) {
+        static Tag universal(String name) {
+            return new Tag("ASN1Identifier." + name, "Universal", UNIVERSAL_NUMBERS.get(name));
+        }
+
+        // The identifier octet, or -1 for tag numbers that need the long form
+        int octet(boolean constructed) {
+            if (number >= 0x1F) {
+                return -1;
+            }
+            int classBits = switch (tagClass) {
+                case "Application" -> 0x40;
+                case "ContextSpecific" -> 0x80;
+                case "Private" -> 0xC0;
+                default -> 0x00;
+            };
+            return classBits | (constructed ? 0x20 : 0) | (int) number;
+        }
+    }
+
+    // How one ASN.1 value maps onto a Java type. Decoders are expressions over a node variable;
+    // encoders are statements writing the value with either its universal identifier or an implicit tag.
+    private abstract static class ValueCodec {
+        // The untagged identifier, or null when it depends on the value
+        abstract Tag universal();
+
+        boolean constructed() {
+            return false;
+        }
+
+        // Boolean expression telling whether an untagged node is this type, or null when that cannot be known
+        String matches(String node) {
+            return universal() == null ? null : node + ".identifier.equals(" + universal().expression() + ")";
+        }
+
+        abstract String decode(String node);
+
+        String decodeImplicit(String node, String tag) {
+            return decode("ASN1Implicit.untag(" + node + ", " + tag + ", " + universal().expression() + ")");
+        }
+
+        abstract void encode(Source out, String value, String tag, String writer);
+    }
+
+    private static final class LongCodec extends ValueCodec {
+        private final boolean narrow;
+
+        LongCodec(boolean narrow) {
+            this.narrow = narrow;
+        }
+
+        @Override
+        Tag universal() {
+            return Tag.universal("INTEGER");
+        }
+
+        @Override
+        String decode(String node) {
+            return narrow ? "toInt(ASN1Integer.decodeLong(" + node + "))" : "ASN1Integer.decodeLong(" + node + ")";
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            out.line(writer + ".writeInteger(" + (tag != null ? tag : universal().expression()) + ", " + value + ");");
+        }
+    }
+
+    private static final class BooleanCodec extends ValueCodec {
+        @Override
+        Tag universal() {
+            return Tag.universal("BOOLEAN");
+        }
+
+        @Override
+        String decode(String node) {
+            return "ASN1Boolean.decode(" + node + ").value";
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            out.line(writer + ".writeBoolean(" + (tag != null ? tag : universal().expression()) + ", " + value + ");");
+        }
+    }
+
+    private static final class BytesCodec extends ValueCodec {
+        @Override
+        Tag universal() {
+            return Tag.universal("OCTET_STRING");
+        }
+
+        @Override
+        String decode(String node) {
+            return "ASN1OctetString.decode(" + node + ").toByteArray()";
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            out.line(writer + ".writePrimitive(" + (tag != null ? tag : universal().expression()) + ", " + value + ");");
+        }
+    }
+
+    // Values encoded through a library object: wrap (if needed) and serialize, or writeImplicit when tagged
+    private static final class ObjectCodec extends ValueCodec {
+        private final Tag identifier;
+        private final String decodeTemplate;
+        private final String wrapTemplate;
+
+        ObjectCodec(Tag identifier, String decodeTemplate, String wrapTemplate) {
+            this.identifier = identifier;
+            this.decodeTemplate = decodeTemplate;
+            this.wrapTemplate = wrapTemplate;
+        }
+
+        @Override
+        Tag universal() {
+            return identifier;
+        }
+
+        @Override
+        String decode(String node) {
+            return decodeTemplate.replace("$", node);
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            String wrapped = wrapTemplate.replace("$", value);
+            if (tag == null) {
+                out.line(wrapped + ".serialize(" + writer + ");");
+            } else {
+                out.line(writer + ".writeImplicit(" + tag + ", " + wrapped + ");");
+            }
+        }
+    }
+
+    // ANY: the node is kept as parsed and written back unchanged
+    private static final class AnyCodec extends ValueCodec {
+        @Override
+        Tag universal() {
+            return null;
+        }
+
+        @Override
+        String matches(String node) {
+            return "true";
+        }
+
+        @Override
+        String decode(String node) {
+            return node;
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            out.line(value + ".serialize(" + writer + ");");
+        }
+    }
+
+    private static final class RecordCodec extends ValueCodec {
+        private final String codec;
+        private final Kind kind;
+
+        RecordCodec(String codec, Kind kind) {
+            this.codec = codec;
+            this.kind = kind;
+        }
+
+        @Override
+        Tag universal() {
+            return kind.universal == null ? null : Tag.universal(kind.universal);
+        }
+
+        @Override
+        boolean constructed() {
+            return true;
+        }
+
+        @Override
+        String matches(String node) {
+            return kind == Kind.CHOICE ? codec + ".matches(" + node + ")" : super.matches(node);
+        }
+
+        @Override
+        String decode(String node) {
+            return codec + ".decode(" + node + ")";
+        }
+
+        @Override
+        String decodeImplicit(String node, String tag) {
+            return codec + ".decode(" + node + ", " + tag + ")";
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            out.line(codec + ".encode(" + value + ", " + writer + (tag != null ? ", " + tag : "") + ");");
+        }
+    }
+
+    private static final class ListCodec extends ValueCodec {
+        private final boolean set;
+        private final String elementType;
+        private final ValueCodec element;
+        private final String decodeMethod;
+
+        ListCodec(boolean set, String elementType, ValueCodec element, String decodeMethod) {
+            this.set = set;
+            this.elementType = elementType;
+            this.element = element;
+            this.decodeMethod = decodeMethod;
+        }
+
+        @Override
+        Tag universal() {
+            return Tag.universal(set ? "SET" : "SEQUENCE");
+        }
+
+        @Override
+        boolean constructed() {
+            return true;
+        }
+
+        @Override
+        String decode(String node) {
+            return decodeMethod + "(" + node + ", " + universal().expression() + ")";
+        }
+
+        @Override
+        String decodeImplicit(String node, String tag) {
+            return decodeMethod + "(" + node + ", " + tag + ")";
+        }
+
+        void decodeMethod(Source out) {
+            out.line("private static List<" + elementType + "> " + decodeMethod + "(ASN1Node node, ASN1Identifier identifier) throws ASN1Exception {");
+            out.line("ASN1Node.Constructed content = constructed(node, identifier);");
+            out.line("List<" + elementType + "> result = new ArrayList<>();");
+            out.line("for (ASN1Node child : content) {");
+            out.line("result.add(" + element.decode("child") + ");");
+            out.line("}");
+            out.line("return result;");
+            out.line("}");
+        }
+
+        @Override
+        void encode(Source out, String value, String tag, String writer) {
+            String item = out.local("item");
+            if (set) {
+                // DER sorts SET OF by encoding, so the elements are collected for ASN1Set to order
+                String items = out.local("items");
+                out.line("List<DERSerializable> " + items + " = new ArrayList<>(" + value + ".size());");
+                out.line("for (" + elementType + " " + item + " : " + value + ") {");
+                String nested = out.local("w");
+                out.line(items + ".add(" + nested + " -> {");
+                element.encode(out, item, null, nested);
+                out.line("});");
+                out.line("}");
+                if (tag == null) {
+                    out.line("new ASN1Set(" + items + ").serialize(" + writer + ");");
+                } else {
+                    out.line(writer + ".writeImplicit(" + tag + ", new ASN1Set(" + items + "));");
+                }
+            } else {
+                String mark = out.local("mark");
+                out.line("int " + mark + " = " + writer + ".beginConstructed(" + (tag != null ? tag : universal().expression()) + ");");
+                out.line("for (" + elementType + " " + item + " : " + value + ") {");
+                element.encode(out, item, null, writer);
+                out.line("}");
+                out.line(writer + ".endConstructed(" + mark + ");");
+            }
+        }
+    }
+
+    private static final class Component {
+        String name;
+        String type;
+        boolean primitive;
+        ValueCodec codec;
+        boolean optional;
+        String defaultValue;
+        Tag explicitTag;
+        Tag implicitTag;
+        String sizeTemplate;
+        long[] size;
+        long[] range;
+
+        // The outermost identifier of the encoding, or null when it depends on the value
+        Tag outerTag() {
+            return explicitTag != null ? explicitTag : implicitTag != null ? implicitTag : codec.universal();
+        }
+
+        boolean outerConstructed() {
+            return explicitTag != null || codec.constructed();
+        }
+
+        String decode(String node) {
+            String inner = explicitTag != null ? "ASN1Explicit.decode(" + node + ", " + explicitTag.expression() + ", EXPLICIT_CONTENT)" : node;
+            return implicitTag != null ? codec.decodeImplicit(inner, implicitTag.expression()) : codec.decode(inner);
+        }
+
+        String matches(String node) {
+            Tag outer = explicitTag != null ? explicitTag : implicitTag;
+            return outer != null ? node + ".identifier.equals(" + outer.expression() + ")" : codec.matches(node);
+        }
+    }
+
+    private final class Generator {
+        private final TypeElement record;
+        private final Kind kind;
+        private final String recordName;
+        private final Map<String, String> tagConstants = new LinkedHashMap<>();
+        private final List<ListCodec> lists = new ArrayList<>();
+        private boolean usesToInt;
+        private boolean usesSize;
+        private boolean usesRange;
+
+        Generator(TypeElement record, Kind kind) {
+            this.record = record;
+            this.kind = kind;
+            this.recordName = record.getQualifiedName().toString();
+        }
+
+        String generate() throws CodecException {
+            List<Component> components = new ArrayList<>();
+            for (RecordComponentElement element : record.getRecordComponents()) {
+                components.add(component(element));
+            }
+            checkShape(components);
+
+            PackageElement pkg = processingEnv.getElementUtils().getPackageOf(record);
+            String codecName = codecSimpleName(record);
+            Source out = new Source();
+            if (!pkg.isUnnamed()) {
+                out.line("package " + pkg.getQualifiedName() + ";");
+                out.blank();
+            }
+            if (!pkg.getQualifiedName().contentEquals("com.iho.asn1")) {
+                out.line("import com.iho.asn1.*;");
+                out.blank();
+            }
+            out.line("import java.util.ArrayList;");
+            out.line("import java.util.Iterator;");
+            out.line("import java.util.List;");
+            out.blank();
+            out.line("// Generated by DERCodecProcessor from " + record.getSimpleName() + "; do not edit");
+            out.line("@javax.annotation.processing.Generated(\"" + DERCodecProcessor.class.getName() + "\")");
+            out.line("public final class " + codecName + " {");
+            out.line("public static final DERParseable<" + recordName + "> DECODER = " + codecName + "::decode;");
+            out.line("private static final DERParseable<ASN1Node> EXPLICIT_CONTENT = node -> node;");
+            for (Map.Entry<String, String> tag : tagConstants.entrySet()) {
+                out.line("private static final ASN1Identifier " + tag.getKey() + " = " + tag.getValue() + ";");
+            }
+            out.blank();
+            out.line("private " + codecName + "() {}");
+            out.blank();
+            out.line("public static DERSerializable encoder(" + recordName + " value) {");
+            out.line("return writer -> encode(value, writer);");
+            out.line("}");
+            out.blank();
+            switch (kind) {
+                case SEQUENCE -> sequence(out, components);
+                case CHOICE -> choice(out, components);
+                default -> collection(out, components.get(0));
+            }
+            for (ListCodec list : lists) {
+                out.blank();
+                list.decodeMethod(out);
+            }
+            out.blank();
+            out.line("private static ASN1Node.Constructed constructed(ASN1Node node, ASN1Identifier identifier) throws ASN1Exception {");
+            out.line("if (!node.identifier.equals(identifier)) {");
+            out.line("throw new ASN1Exception(ErrorCode.UnexpectedFieldType, \"Expected \" + identifier + \", got \" + node.identifier);");
+            out.line("}");
+            out.line("if (!(node.content instanceof ASN1Node.Constructed)) {");
+            out.line("throw new ASN1Exception(ErrorCode.UnexpectedFieldType, identifier + \" must be constructed\");");
+            out.line("}");
+            out.line("return (ASN1Node.Constructed) node.content;");
+            out.line("}");
+            if (usesToInt) {
+                out.blank();
+                out.line("private static int toInt(long value) throws ASN1Exception {");
+                out.line("if (value != (int) value) {");
+                out.line("throw new ASN1Exception(ErrorCode.ValueOutOfRange, \"INTEGER does not fit in an int: \" + value);");
+                out.line("}");
+                out.line("return (int) value;");
+                out.line("}");
+            }
+            if (usesSize) {
+                out.blank();
+                out.line("private static void checkSize(long size, long min, long max, String name) throws ASN1Exception {");
+                out.line("if (size < min || size > max) {");
+                out.line("throw new ASN1Exception(ErrorCode.ValueOutOfRange, name + \" has size \" + size + \", expected \" + min + \"..\" + max);");
+                out.line("}");
+                out.line("}");
+            }
+            if (usesRange) {
+                out.blank();
+                out.line("private static void checkRange(long value, long min, long max, String name) throws ASN1Exception {");
+                out.line("if (value < min || value > max) {");
+                out.line("throw new ASN1Exception(ErrorCode.ValueOutOfRange, name + \" is \" + value + \", expected \" + min + \"..\" + max);");
+                out.line("}");
+                out.line("}");
+            }
+            out.line("}");
+            return out.toString();
+        }
+
+        private void checkShape(List<Component> components) throws CodecException {
+            switch (kind) {
+                case SEQUENCE -> {
+                    // An untagged optional ANY swallows whatever follows, so it can only come last
+                    for (int i = 0; i < components.size() - 1; i++) {
+                        Component component = components.get(i);
+                        if (component.optional && "true".equals(component.matches("next"))) {
+                            throw new CodecException("An untagged optional ANY component must be the last component", record);
+                        }
+                    }
+                }
+                case CHOICE -> {
+                    Map<Integer, String> octets = new LinkedHashMap<>();
+                    for (Component component : components) {
+                        if (component.optional || component.defaultValue != null) {
+                            throw new CodecException("CHOICE alternatives cannot be @Optional or have a @Default", record);
+                        }
+                        if (component.primitive) {
+                            throw new CodecException("CHOICE alternatives must use reference types so absence can be null", record);
+                        }
+                        String matches = component.matches("node");
+                        if (matches == null || matches.equals("true")) {
+                            throw new CodecException("CHOICE alternative " + component.name + " needs a tag to be told apart", record);
+                        }
+                        Tag outer = component.outerTag();
+                        int octet = outer == null ? -1 : outer.octet(component.outerConstructed());
+                        if (octet >= 0 && octets.containsKey(octet)) {
+                            throw new CodecException("CHOICE alternatives " + octets.get(octet) + " and " + component.name
+                                    + " share identifier octet " + hex(octet), record);
+                        }
+                        octets.put(octet, component.name);
+                    }
+                }
+                default -> {
+                    Component only = components.size() == 1 ? components.get(0) : null;
+                    if (only == null || !(only.codec instanceof ListCodec) || only.optional || only.defaultValue != null
+                            || only.explicitTag != null || only.implicitTag != null) {
+                        throw new CodecException("@" + kind.annotation + " records must have exactly one untagged List component", record);
+                    }
+                    if (((ListCodec) only.codec).set != (kind == Kind.SET_OF)) {
+                        throw new CodecException("Use @SetOf on the component only together with @DERSetOf", record);
+                    }
+                }
+            }
+        }
+
+        private void sequence(Source out, List<Component> components) {
+            out.line("public static void encode(" + recordName + " value, DERWriter writer) throws ASN1Exception {");
+            out.line("encode(value, writer, ASN1Identifier.SEQUENCE);");
+            out.line("}");
+            out.blank();
+            out.line("public static void encode(" + recordName + " value, DERWriter writer, ASN1Identifier identifier) throws ASN1Exception {");
+            out.line("int mark = writer.beginConstructed(identifier);");
+            for (Component component : components) {
+                String value = "value." + component.name + "()";
+                if (component.optional) {
+                    out.line("if (" + value + " != null) {");
+                } else if (component.defaultValue != null) {
+                    out.line("if (" + value + " != " + component.defaultValue + ") {");
+                }
+                encodeComponent(out, component, value);
+                if (component.optional || component.defaultValue != null) {
+                    out.line("}");
+                }
+            }
+            out.line("writer.endConstructed(mark);");
+            out.line("}");
+            out.blank();
+            out.line("public static " + recordName + " decode(ASN1Node node) throws ASN1Exception {");
+            out.line("return decode(node, ASN1Identifier.SEQUENCE);");
+            out.line("}");
+            out.blank();
+            out.line("public static " + recordName + " decode(ASN1Node node, ASN1Identifier identifier) throws ASN1Exception {");
+            out.line("Iterator<ASN1Node> children = constructed(node, identifier).iterator();");
+            out.line("ASN1Node next = children.hasNext() ? children.next() : null;");
+            List<String> arguments = new ArrayList<>();
+            for (Component component : components) {
+                decodeComponent(out, component);
+                arguments.add(component.name);
+            }
+            out.line("if (next != null) {");
+            out.line("throw new ASN1Exception(ErrorCode.InvalidASN1Object, \"Unexpected trailing component in " + record.getSimpleName() + ": \" + next.identifier);");
+            out.line("}");
+            out.line("return new " + recordName + "(" + String.join(", ", arguments) + ");");
+            out.line("}");
+        }
+
+        private void choice(Source out, List<Component> components) {
+            out.line("public static void encode(" + recordName + " value, DERWriter writer) throws ASN1Exception {");
+            List<String> present = new ArrayList<>();
+            for (Component component : components) {
+                present.add("(value." + component.name + "() != null ? 1 : 0)");
+            }
+            out.line("int present = " + String.join(" + ", present) + ";");
+            out.line("if (present != 1) {");
+            out.line("throw new ASN1Exception(ErrorCode.InvalidASN1Object, \"" + record.getSimpleName() + " needs exactly one alternative, got \" + present);");
+            out.line("}");
+            for (Component component : components) {
+                String value = "value." + component.name + "()";
+                out.line("if (" + value + " != null) {");
+                encodeComponent(out, component, value);
+                out.line("}");
+            }
+            out.line("}");
+            out.blank();
+
+            // Alternatives with a short-form identifier dispatch through one switch on the identifier octet;
+            // long-form tags and untagged nested CHOICEs are tried afterwards
+            List<Component> switched = new ArrayList<>();
+            List<Component> fallback = new ArrayList<>();
+            for (Component component : components) {
+                Tag outer = component.outerTag();
+                (outer != null && outer.octet(component.outerConstructed()) >= 0 ? switched : fallback).add(component);
+            }
+            out.line("public static " + recordName + " decode(ASN1Node node) throws ASN1Exception {");
+            if (!switched.isEmpty()) {
+                out.line("switch (node.encodedBytes[0] & 0xFF) {");
+                for (Component component : switched) {
+                    out.line("case " + hex(component.outerTag().octet(component.outerConstructed())) + " -> {");
+                    decodeAlternative(out, components, component);
+                    out.line("}");
+                }
+                out.line("default -> {");
+                out.line("}");
+                out.line("}");
+            }
+            for (Component component : fallback) {
+                out.line("if (" + component.matches("node") + ") {");
+                decodeAlternative(out, components, component);
+                out.line("}");
+            }
+            out.line("throw new ASN1Exception(ErrorCode.UnexpectedFieldType, \"No alternative of " + record.getSimpleName() + " matches \" + node.identifier);");
+            out.line("}");
+            out.blank();
+            out.line("public static boolean matches(ASN1Node node) {");
+            if (!switched.isEmpty()) {
+                List<String> cases = new ArrayList<>();
+                for (Component component : switched) {
+                    cases.add(hex(component.outerTag().octet(component.outerConstructed())));
+                }
+                out.line("switch (node.encodedBytes[0] & 0xFF) {");
+                out.line("case " + String.join(", ", cases) + " -> {");
+                out.line("return true;");
+                out.line("}");
+                out.line("default -> {");
+                out.line("}");
+                out.line("}");
+            }
+            List<String> others = new ArrayList<>();
+            for (Component component : fallback) {
+                others.add(component.matches("node"));
+            }
+            out.line("return " + (others.isEmpty() ? "false" : String.join(" || ", others)) + ";");
+            out.line("}");
+        }
+
+        private void decodeAlternative(Source out, List<Component> components, Component alternative) {
+            out.line(alternative.type + " " + alternative.name + " = " + alternative.decode("node") + ";");
+            checkConstraints(out, alternative, alternative.name);
+            List<String> arguments = new ArrayList<>();
+            for (Component component : components) {
+                arguments.add(component == alternative ? component.name : "null");
+            }
+            out.line("return new " + recordName + "(" + String.join(", ", arguments) + ");");
+        }
+
+        private void collection(Source out, Component component) {
+            String universal = Tag.universal(kind.universal).expression();
+            out.line("public static void encode(" + recordName + " value, DERWriter writer) throws ASN1Exception {");
+            out.line("encode(value, writer, " + universal + ");");
+            out.line("}");
+            out.blank();
+            out.line("public static void encode(" + recordName + " value, DERWriter writer, ASN1Identifier identifier) throws ASN1Exception {");
+            String value = "value." + component.name + "()";
+            checkConstraints(out, component, value);
+            component.codec.encode(out, value, "identifier", "writer");
+            out.line("}");
+            out.blank();
+            out.line("public static " + recordName + " decode(ASN1Node node) throws ASN1Exception {");
+            out.line("return decode(node, " + universal + ");");
+            out.line("}");
+            out.blank();
+            out.line("public static " + recordName + " decode(ASN1Node node, ASN1Identifier identifier) throws ASN1Exception {");
+            out.line(component.type + " " + component.name + " = " + component.codec.decodeImplicit("node", "identifier") + ";");
+            checkConstraints(out, component, component.name);
+            out.line("return new " + recordName + "(" + component.name + ");");
+            out.line("}");
+        }
+
+        private void encodeComponent(Source out, Component component, String value) {
+            checkConstraints(out, component, value);
+            String implicit = component.implicitTag != null ? component.implicitTag.expression() : null;
+            if (component.explicitTag != null) {
+                String mark = out.local("explicit");
+                out.line("int " + mark + " = writer.beginConstructed(" + component.explicitTag.expression() + ");");
+                component.codec.encode(out, value, implicit, "writer");
+                out.line("writer.endConstructed(" + mark + ");");
+            } else {
+                component.codec.encode(out, value, implicit, "writer");
+            }
+        }
+
+        private void decodeComponent(Source out, Component component) {
+            String decoded = component.decode("next");
+            if (component.optional || component.defaultValue != null) {
+                out.line(component.type + " " + component.name + " = " + (component.optional ? "null" : component.defaultValue) + ";");
+                out.line("if (next != null && " + component.matches("next") + ") {");
+                out.line(component.name + " = " + decoded + ";");
+                if (component.defaultValue != null) {
+                    out.line("if (" + component.name + " == " + component.defaultValue + ") {");
+                    out.line("throw new ASN1Exception(ErrorCode.InvalidASN1Object, \"" + record.getSimpleName() + "." + component.name + " encodes its DEFAULT value\");");
+                    out.line("}");
+                }
+                checkConstraints(out, component, component.name);
+                out.line("next = children.hasNext() ? children.next() : null;");
+                out.line("}");
+            } else {
+                out.line("if (next == null) {");
+                out.line("throw new ASN1Exception(ErrorCode.InvalidASN1Object, \"" + record.getSimpleName() + " is missing " + component.name + "\");");
+                out.line("}");
+                out.line(component.type + " " + component.name + " = " + decoded + ";");
+                checkConstraints(out, component, component.name);
+                out.line("next = children.hasNext() ? children.next() : null;");
+            }
+        }
+
+        private void checkConstraints(Source out, Component component, String value) {
+            String name = "\"" + record.getSimpleName() + "." + component.name + "\"";
+            if (component.size != null) {
+                usesSize = true;
+                out.line("checkSize(" + component.sizeTemplate.replace("$", value) + ", " + literal(component.size[0]) + ", "
+                        + literal(component.size[1]) + ", " + name + ");");
+            }
+            if (component.range != null) {
+                usesRange = true;
+                out.line("checkRange(" + value + ", " + literal(component.range[0]) + ", " + literal(component.range[1]) + ", " + name + ");");
+            }
+        }
+
+        private Component component(RecordComponentElement element) throws CodecException {
+            Component component = new Component();
+            component.name = element.getSimpleName().toString();
+            component.type = element.asType().toString();
+            component.primitive = element.asType().getKind().isPrimitive();
+            AnnotationMirror explicit = annotation(element, "Explicit");
+            AnnotationMirror implicit = annotation(element, "Implicit");
+            AnnotationMirror defaultValue = annotation(element, "Default");
+            AnnotationMirror size = annotation(element, "Size");
+            AnnotationMirror range = annotation(element, "Range");
+            component.optional = annotation(element, "Optional") != null;
+            boolean setOf = annotation(element, "SetOf") != null;
+            if (component.optional && component.primitive) {
+                throw new CodecException("@Optional components must use a reference type so absence can be null", element);
+            }
+            component.codec = codec(element.asType(), element, setOf, component.name);
+            if (implicit != null) {
+                if (component.codec.universal() == null) {
+                    throw new CodecException("@Implicit needs a component type with a fixed identifier; tag CHOICE and ANY explicitly", element);
+                }
+                // With both tags the explicit one is outermost and the implicit one replaces the universal tag inside it
+                component.implicitTag = tagConstant(component.name + (explicit != null ? "_INNER" : ""), implicit);
+            }
+            if (explicit != null) {
+                component.explicitTag = tagConstant(component.name, explicit);
+            }
+            if (defaultValue != null) {
+                if (component.optional) {
+                    throw new CodecException("A component cannot be both @Optional and @Default", element);
+                }
+                if (!component.type.equals("long") && !component.type.equals("int") && !component.type.equals("boolean")) {
+                    throw new CodecException("@Default applies to long, int and boolean components", element);
+                }
+                component.defaultValue = (String) value(defaultValue, "value");
+            }
+            if ((component.optional || component.defaultValue != null) && component.matches("next") == null) {
+                throw new CodecException("An untagged optional component needs a type with a fixed identifier", element);
+            }
+            if (size != null) {
+                component.sizeTemplate = sizeTemplate(element.asType());
+                if (component.sizeTemplate == null) {
+                    throw new CodecException("@Size applies to byte[], String, List and the library's string types", element);
+                }
+                component.size = new long[]{(Long) value(size, "min"), (Long) value(size, "max")};
+            }
+            if (range != null) {
+                if (!(component.codec instanceof LongCodec)) {
+                    throw new CodecException("@Range applies to long and int components", element);
+                }
+                component.range = new long[]{(Long) value(range, "min"), (Long) value(range, "max")};
+            }
+            return component;
+        }
+
+        private String sizeTemplate(TypeMirror type) {
+            String typeName = type.toString();
+            if (typeName.equals("byte[]")) {
+                return "$.length";
+            }
+            if (typeName.equals("java.lang.String")) {
+                return "$.codePointCount(0, $.length())";
+            }
+            if (typeName.startsWith("java.util.List<")) {
+                return "$.size()";
+            }
+            if (typeName.equals("com.iho.asn1.ASN1OctetString")) {
+                return "$.length()";
+            }
+            if (typeName.equals("com.iho.asn1.ASN1BitString")) {
+                return "$.bitLength()";
+            }
+            if (typeName.startsWith("com.iho.asn1.ASN1String.")) {
+                return "$.value().codePointCount(0, $.value().length())";
+            }
+            return null;
+        }
+
+        private ValueCodec codec(TypeMirror type, Element element, boolean setOf, String name) throws CodecException {
+            String typeName = type.toString();
+            if (setOf && !typeName.startsWith("java.util.List<")) {
+                throw new CodecException("@SetOf applies to List components", element);
+            }
+            switch (type.getKind()) {
+                case BOOLEAN:
+                    return new BooleanCodec();
+                case LONG:
+                    return new LongCodec(false);
+                case INT:
+                    usesToInt = true;
+                    return new LongCodec(true);
+                case DOUBLE:
+                    return new ObjectCodec(Tag.universal("REAL"), "ASN1Real.decode($).value", "new ASN1Real($)");
+                case ARRAY:
+                    if (typeName.equals("byte[]")) {
+                        return new BytesCodec();
+                    }
+                    break;
+                case DECLARED:
+                    return declaredCodec((DeclaredType) type, element, setOf, name);
+                default:
+                    break;
+            }
+            throw new CodecException("Unsupported component type " + typeName, element);
+        }
+
+        private ValueCodec declaredCodec(DeclaredType type, Element element, boolean setOf, String name) throws CodecException {
+            TypeElement typeElement = (TypeElement) type.asElement();
+            String qualified = typeElement.getQualifiedName().toString();
+            switch (qualified) {
+                case "java.lang.Boolean":
+                    return new BooleanCodec();
+                case "java.lang.Long":
+                    return new LongCodec(false);
+                case "java.lang.Integer":
+                    usesToInt = true;
+                    return new LongCodec(true);
+                case "java.lang.Double":
+                    return new ObjectCodec(Tag.universal("REAL"), "ASN1Real.decode($).value", "new ASN1Real($)");
+                case "java.lang.String":
+                    return new ObjectCodec(Tag.universal("UTF8_STRING"), "ASN1String.UTF8String.decode($).value()", "new ASN1String.UTF8String($)");
+                case "java.math.BigInteger":
+                    return new ObjectCodec(Tag.universal("INTEGER"), "ASN1Integer.decode($).value()", "new ASN1Integer($)");
+                case "com.iho.asn1.ASN1Node":
+                    return new AnyCodec();
+                case "java.util.List": {
+                    TypeMirror elementType = type.getTypeArguments().get(0);
+                    ValueCodec elementCodec = codec(elementType, element, false, name);
+                    // Nested lists of one component each need their own helper, so later ones get a numeric suffix
+                    String method = "decode" + capitalize(name);
+                    for (ListCodec other : lists) {
+                        if (other.decodeMethod.equals(method)) {
+                            method = "decode" + capitalize(name) + lists.size();
+                            break;
+                        }
+                    }
+                    ListCodec list = new ListCodec(setOf, elementType.toString(), elementCodec, method);
+                    lists.add(list);
+                    return list;
+                }
+                default:
+                    break;
+            }
+            Kind referenced = kindOf(typeElement);
+            if (referenced != null) {
+                return new RecordCodec(qualifiedCodecName(typeElement), referenced);
+            }
+            if (hasStaticDecode(typeElement)) {
+                String identifier = BUILT_IN_IDENTIFIERS.get(qualified);
+                return new ObjectCodec(identifier == null ? null : Tag.universal(identifier), qualified + ".decode($)", "$");
+            }
+            throw new CodecException("Unsupported component type " + qualified
+                    + "; use an annotated record or a DERSerializable with a static decode(ASN1Node)", element);
+        }
+
+        private boolean hasStaticDecode(TypeElement type) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals("decode")
+                        && method.getModifiers().contains(Modifier.STATIC)
+                        && method.getModifiers().contains(Modifier.PUBLIC)
+                        && method.getParameters().size() == 1
+                        && method.getParameters().get(0).asType().toString().equals("com.iho.asn1.ASN1Node")
+                        && processingEnv.getTypeUtils().isSameType(method.getReturnType(), type.asType())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Tag tagConstant(String component, AnnotationMirror tag) {
+            int number = (Integer) value(tag, "value");
+            String tagClass = value(tag, "tagClass").toString();
+            String constant = "TAG_" + component.toUpperCase();
+            tagConstants.put(constant, "new ASN1Identifier(" + number + ", TagClass." + tagClass + ")");
+            return new Tag(constant, tagClass, number);
+        }
+
+        private Object value(AnnotationMirror annotation, String name) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(name)) {
+                    return entry.getValue().getValue();
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String literal(long value) {
+        if (value == Long.MAX_VALUE) {
+            return "Long.MAX_VALUE";
+        }
+        if (value == Long.MIN_VALUE) {
+            return "Long.MIN_VALUE";
+        }
+        return value + "L";
+    }
+
+    private static String hex(int octet) {
+        return String.format("0x%02X", octet);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    // Indents by brace depth and hands out unique local names for nested marks and loop variables
+    private static final class Source {
+        private final StringBuilder text = new StringBuilder();
+        private int depth;
+        private int locals;
+
+        void line(String line) {
+            if (line.startsWith("}")) {
+                depth--;
+            }
+            text.append("    ".repeat(Math.max(0, depth))).append(line).append('\n');
+            if (line.endsWith("{")) {
+                depth++;
+            }
+        }
+
+        void blank() {
+            text.append('\n');
+        }
+
+        String local(String prefix) {
+            return prefix + (locals++);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.iho.asn1;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Issuer Names drawn from a pool of 200, as across a large certificate set: parsed each time, against
+// interned by encoding
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InternCacheBenchmark {
+    private static final int LOOKUPS = 4096;
+
+    private byte[][] names;
+    private DERInternCache<ASN1Node> cache;
+
+    @Setup
+    public void setup() throws ASN1Exception {
+        byte[][] pool = new byte[200][];
+        for (int i = 0; i < pool.length; i++) {
+            DERWriter writer = new DERWriter();
+            new ASN1Sequence(List.of(
+                    rdn("2.5.4.6", new ASN1String.PrintableString("UA")),
+                    rdn("2.5.4.10", new ASN1String.UTF8String("Issuing Organisation " + i)),
+                    rdn("2.5.4.3", new ASN1String.UTF8String("Intermediate CA " + i + " G2")))).serialize(writer);
+            pool[i] = writer.toByteArray();
+        }
+        Random random = new Random(3);
+        names = new byte[LOOKUPS][];
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = pool[random.nextInt(pool.length)].clone();
+        }
+        cache = new DERInternCache<>(node -> node, 1 << 20);
+    }
+
+    private static DERSerializable rdn(String type, DERSerializable value) {
+        return new ASN1Set(List.of(new ASN1Sequence(List.of(ASN1ObjectIdentifier.of(type), value))));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void parseEach(Blackhole blackhole) throws ASN1Exception {
+        for (byte[] name : names) {
+            blackhole.consume(DERParser.parse(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void interned(Blackhole blackhole) throws ASN1Exception {
+        for (byte[] name : names) {
+            blackhole.consume(cache.intern(name, 0, name.length));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.iho.asn1;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.iho.asn1.annotation.DERSequence;
+import com.iho.asn1.annotation.Explicit;
+import com.iho.asn1.annotation.Optional;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Generated record codec against the hand-written ASN1Sequence equivalent for the same shape
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecordCodecBenchmark {
+    @DERSequence
+    public record Revoked(long serial, ASN1Time.UTCTime revocationDate, @Optional @Explicit(0) Integer reason) {}
+
+    @DERSequence
+    public record RevokedList(String issuer, List<Revoked> entries) {}
+
+    private static final ASN1Identifier REASON = new ASN1Identifier(0, TagClass.ContextSpecific);
+
+    private RevokedList value;
+    private byte[] der;
+    private ASN1Node node;
+
+    @Setup
+    public void setup() throws ASN1Exception {
+        List<Revoked> entries = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            entries.add(new Revoked(1_000_000L + i * 7919L, new ASN1Time.UTCTime(1_700_000_000L + i), i % 3 == 0 ? i % 10 : null));
+        }
+        value = new RevokedList("Example Issuing CA", entries);
+        DERWriter writer = new DERWriter();
+        RecordCodecBenchmark_RevokedListCodec.encode(value, writer);
+        der = writer.toByteArray();
+        node = DERParser.parse(der);
+    }
+
+    @Benchmark
+    public byte[] encodeGenerated() throws ASN1Exception {
+        DERWriter writer = new DERWriter();
+        RecordCodecBenchmark_RevokedListCodec.encode(value, writer);
+        return writer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeHandWritten() throws ASN1Exception {
+        List<DERSerializable> entries = new ArrayList<>(value.entries().size());
+        for (Revoked entry : value.entries()) {
+            List<DERSerializable> fields = new ArrayList<>(3);
+            fields.add(ASN1Integer.valueOf(entry.serial()));
+            fields.add(entry.revocationDate());
+            if (entry.reason() != null) {
+                fields.add(new ASN1Explicit(REASON, ASN1Integer.valueOf(entry.reason())));
+            }
+            entries.add(new ASN1Sequence(fields));
+        }
+        DERWriter writer = new DERWriter();
+        new ASN1Sequence(List.of(new ASN1String.UTF8String(value.issuer()), new ASN1Sequence(entries))).serialize(writer);
+        return writer.toByteArray();
+    }
+
+    @Benchmark
+    public RevokedList decodeGenerated() throws ASN1Exception {
+        return RecordCodecBenchmark_RevokedListCodec.decode(node);
+    }
+
+    @Benchmark
+    public RevokedList decodeHandWritten() throws ASN1Exception {
+        Iterator<ASN1Node> top = ((ASN1Node.Constructed) node.content).iterator();
+        String issuer = ASN1String.UTF8String.decode(top.next()).value();
+        List<Revoked> entries = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) top.next().content) {
+            Iterator<ASN1Node> fields = ((ASN1Node.Constructed) child.content).iterator();
+            long serial = ASN1Integer.decodeLong(fields.next());
+            ASN1Time.UTCTime date = ASN1Time.UTCTime.decode(fields.next());
+            Integer reason = fields.hasNext()
+                    ? ASN1Explicit.decode(fields.next(), REASON, ASN1Integer.DECODER).intValueExact()
+                    : null;
+            entries.add(new Revoked(serial, date, reason));
+        }
+        return new RevokedList(issuer, entries);
+    }
+}
@@ -0,0 +1,55 @@
+package com.iho.asn1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringValidatorBenchmark {
+    @Param({"16", "64", "1024"})
+    public int length;
+
+    @Param({"PRINTABLE", "IA5", "NUMERIC", "VISIBLE", "UTF8"})
+    public String alphabetName;
+
+    private StringValidator.Alphabet alphabet;
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        alphabet = StringValidator.Alphabet.valueOf(alphabetName);
+        // Directory-like content: valid for the alphabet, with some accented text for UTF-8
+        String pool = alphabet == StringValidator.Alphabet.NUMERIC ? "0123456789 " : "Example Org Unit 42 (Test)";
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length) {
+            if (alphabet == StringValidator.Alphabet.UTF8 && random.nextInt(16) == 0) {
+                text.append('\u00e9');
+            } else {
+                text.append(pool.charAt(random.nextInt(pool.length())));
+            }
+        }
+        data = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int swar() {
+        return StringValidator.firstInvalid(alphabet, data, 0, data.length);
+    }
+
+    @Benchmark
+    public int scalar() {
+        return StringValidator.firstInvalidScalar(alphabet, data, 0, data.length);
+    }
+}
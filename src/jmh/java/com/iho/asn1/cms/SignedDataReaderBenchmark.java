@@ -0,0 +1,82 @@
+package com.iho.asn1.cms;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.ASN1Explicit;
+import com.iho.asn1.ASN1Identifier;
+import com.iho.asn1.ASN1Integer;
+import com.iho.asn1.ASN1Node;
+import com.iho.asn1.ASN1ObjectIdentifier;
+import com.iho.asn1.ASN1OctetString;
+import com.iho.asn1.ASN1Sequence;
+import com.iho.asn1.ASN1Set;
+import com.iho.asn1.DERParser;
+import com.iho.asn1.DERWriter;
+import com.iho.asn1.TagClass;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// SHA-256 of the eContent of a SignedData: streamed in one pass, against parsing the tree and hashing the
+// OCTET STRING afterwards
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SignedDataReaderBenchmark {
+    private static final ASN1Identifier ZERO = new ASN1Identifier(0, TagClass.ContextSpecific);
+
+    @Param({"16777216"})
+    public int contentLength;
+
+    private byte[] cms;
+
+    @Setup
+    public void setup() throws ASN1Exception {
+        byte[] content = new byte[contentLength];
+        new Random(1).nextBytes(content);
+        ASN1Sequence sha256 = new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.1")));
+        ASN1Sequence signerInfo = new ASN1Sequence(List.of(ASN1Integer.valueOf(1),
+                new ASN1Sequence(List.of(new ASN1Sequence(List.of()), ASN1Integer.valueOf(1))), sha256,
+                new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.10045.4.3.2"))), new ASN1OctetString(new byte[72])));
+        ASN1Sequence signedData = new ASN1Sequence(List.of(ASN1Integer.valueOf(1), new ASN1Set(List.of(sha256)),
+                new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.113549.1.7.1"), new ASN1Explicit(ZERO, new ASN1OctetString(content)))),
+                new ASN1Set(List.of(signerInfo))));
+        DERWriter writer = new DERWriter();
+        new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.113549.1.7.2"), new ASN1Explicit(ZERO, signedData))).serialize(writer);
+        cms = writer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] streamed() throws IOException, ASN1Exception {
+        return SignedDataReader.read(new ByteArrayInputStream(cms), null).contentDigests().values().iterator().next();
+    }
+
+    @Benchmark
+    public byte[] parsedThenHashed() throws ASN1Exception, NoSuchAlgorithmException {
+        ASN1Node contentInfo = DERParser.parse(cms);
+        ASN1Node signedData = child(child(contentInfo, 1), 0);
+        ASN1Node content = child(child(child(signedData, 2), 1), 0);
+        return MessageDigest.getInstance("SHA-256").digest(ASN1OctetString.decode(content).toByteArray());
+    }
+
+    private static ASN1Node child(ASN1Node node, int index) {
+        var children = ((ASN1Node.Constructed) node.content).iterator();
+        for (int i = 0; i < index; i++) {
+            children.next();
+        }
+        return children.next();
+    }
+}
@@ -0,0 +1,108 @@
+package com.iho.asn1.x509;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.ASN1Explicit;
+import com.iho.asn1.ASN1Identifier;
+import com.iho.asn1.ASN1Integer;
+import com.iho.asn1.ASN1Node;
+import com.iho.asn1.ASN1ObjectIdentifier;
+import com.iho.asn1.ASN1OctetString;
+import com.iho.asn1.ASN1Time;
+import com.iho.asn1.DERParser;
+import com.iho.asn1.TagClass;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Pulls serial, issuer, subject, notAfter, SPKI and basicConstraints out of a certificate three ways:
+// the fixed-layout view, a full DERParser tree walk and the JDK's CertificateFactory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CertificateViewBenchmark {
+    // tests/golden/cert.der: self-signed P-256 with SKI, AKI and basicConstraints
+    static final String CERTIFICATE = "MIIByDCCAW2gAwIBAgIUKg+eCrb5dVVFI84s7bD38JgNCNswCgYIKoZIzj0EAwIwOTELMAkGA1UEBhMCVUExETAPBgNVBAoMCGRlci5qYXZhMRcwFQYDVQQDDA5Hb2xkZW4gVGVzdCBDQTAeFw0yNjEwMTkwMDI5NDVaFw0zNjEwMTYwMDI5NDVaMDkxCzAJBgNVBAYTAlVBMREwDwYDVQQKDAhkZXIuamF2YTEXMBUGA1UEAwwOR29sZGVuIFRlc3QgQ0EwWTATBgcqhkjOPQIBBggqhkjOPQMBBwNCAASaOo66lkeMmhdCuZWbxYrMb+3PiqLK40yOEtCVPf0n6YtsboWgG3t1gDpkzGRq9x44hvR5TkkCzws3fDPQKJHQo1MwUTAdBgNVHQ4EFgQURbpGOml5kxa4fKUB827lv03Xw3QwHwYDVR0jBBgwFoAURbpGOml5kxa4fKUB827lv03Xw3QwDwYDVR0TAQH/BAUwAwEB/zAKBggqhkjOPQQDAgNJADBGAiEA8oWjstWCtK+5tgTbwc+NXlCSwsRJRXYGqb4CZxPWxyICIQDYF26qRtBaKmbKiDHyF9i7wT0zFv5vEmp2yniLLtm3xA==";
+    private static final ASN1ObjectIdentifier BASIC_CONSTRAINTS = ASN1ObjectIdentifier.of("2.5.29.19");
+    private static final ASN1Identifier VERSION = new ASN1Identifier(0, TagClass.ContextSpecific);
+    private static final ASN1Identifier EXTENSIONS = new ASN1Identifier(3, TagClass.ContextSpecific);
+
+    private byte[] der;
+    private CertificateFactory factory;
+
+    @Setup
+    public void setup() throws CertificateException {
+        der = Base64.getDecoder().decode(CERTIFICATE);
+        factory = CertificateFactory.getInstance("X.509");
+    }
+
+    @Benchmark
+    public void view(Blackhole blackhole) throws ASN1Exception {
+        CertificateView view = CertificateView.parse(der);
+        blackhole.consume(view.serialNumber());
+        blackhole.consume(view.issuer());
+        blackhole.consume(view.subject());
+        blackhole.consume(view.notAfter());
+        blackhole.consume(view.subjectPublicKeyInfo());
+        blackhole.consume(view.extension(BASIC_CONSTRAINTS));
+    }
+
+    @Benchmark
+    public void fullParse(Blackhole blackhole) throws ASN1Exception {
+        ASN1Node certificate = DERParser.parse(der);
+        ASN1Node tbsCertificate = ((ASN1Node.Constructed) certificate.content).iterator().next();
+        Iterator<ASN1Node> tbs = ((ASN1Node.Constructed) tbsCertificate.content).iterator();
+        ASN1Node field = tbs.next();
+        if (field.identifier.equals(VERSION)) {
+            field = tbs.next();
+        }
+        blackhole.consume(ASN1Integer.decode(field).value());
+        tbs.next();
+        blackhole.consume(tbs.next().encodedBytes);
+        Iterator<ASN1Node> validity = ((ASN1Node.Constructed) tbs.next().content).iterator();
+        validity.next();
+        blackhole.consume(ASN1Time.UTCTime.decode(validity.next()));
+        blackhole.consume(tbs.next().encodedBytes);
+        blackhole.consume(tbs.next().encodedBytes);
+        while (tbs.hasNext()) {
+            field = tbs.next();
+            if (!field.identifier.equals(EXTENSIONS)) {
+                continue;
+            }
+            for (ASN1Node extension : (ASN1Node.Constructed) ASN1Explicit.decode(field, EXTENSIONS, node -> node).content) {
+                Iterator<ASN1Node> parts = ((ASN1Node.Constructed) extension.content).iterator();
+                if (ASN1ObjectIdentifier.decode(parts.next()).equals(BASIC_CONSTRAINTS)) {
+                    ASN1Node value = parts.next();
+                    if (value.identifier.equals(ASN1Identifier.BOOLEAN)) {
+                        value = parts.next();
+                    }
+                    blackhole.consume(ASN1OctetString.decode(value));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void certificateFactory(Blackhole blackhole) throws CertificateException {
+        X509Certificate certificate = (X509Certificate) factory.generateCertificate(new ByteArrayInputStream(der));
+        blackhole.consume(certificate.getSerialNumber());
+        blackhole.consume(certificate.getIssuerX500Principal().getEncoded());
+        blackhole.consume(certificate.getSubjectX500Principal().getEncoded());
+        blackhole.consume(certificate.getNotAfter());
+        blackhole.consume(certificate.getPublicKey().getEncoded());
+        blackhole.consume(certificate.getExtensionValue("2.5.29.19"));
+    }
+}
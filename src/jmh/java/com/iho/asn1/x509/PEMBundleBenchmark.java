@@ -0,0 +1,69 @@
+package com.iho.asn1.x509;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.PEMDocument;
+import com.iho.asn1.PEMReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Reads the serial of every certificate in a PEM bundle: PEMReader decoding into its reused buffer, against
+// the usual line-by-line StringBuilder and Base64.getMimeDecoder per block
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PEMBundleBenchmark {
+    @Param({"1000"})
+    public int certificates;
+
+    private byte[] bundle;
+
+    @Setup
+    public void setup() {
+        String pem = new PEMDocument("CERTIFICATE", Base64.getDecoder().decode(CertificateViewBenchmark.CERTIFICATE)).toPEM();
+        bundle = pem.repeat(certificates).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public void pemReader(Blackhole blackhole) throws IOException, ASN1Exception {
+        try (PEMReader reader = new PEMReader(new ByteArrayInputStream(bundle))) {
+            while (reader.next()) {
+                blackhole.consume(CertificateView.parse(reader.buffer(), 0, reader.length()).serialNumber());
+            }
+        }
+    }
+
+    @Benchmark
+    public void stringAndMimeDecoder(Blackhole blackhole) throws IOException, ASN1Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bundle), StandardCharsets.US_ASCII))) {
+            StringBuilder body = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("-----BEGIN ")) {
+                    body = new StringBuilder();
+                } else if (line.startsWith("-----END ")) {
+                    byte[] der = Base64.getMimeDecoder().decode(body.toString());
+                    blackhole.consume(CertificateView.parse(der).serialNumber());
+                    body = null;
+                } else if (body != null) {
+                    body.append(line);
+                }
+            }
+        }
+    }
+}
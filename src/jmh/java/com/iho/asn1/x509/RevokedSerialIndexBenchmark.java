@@ -0,0 +1,75 @@
+package com.iho.asn1.x509;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.iho.asn1.ASN1Exception;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Serial lookups against a large CRL: the packed index with and without its Bloom filter, and a
+// HashSet<BigInteger> as the usual on-heap baseline. Mostly misses, as for live traffic.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RevokedSerialIndexBenchmark {
+    @Param({"1000000"})
+    public int revoked;
+
+    private RevokedSerialIndex plain;
+    private RevokedSerialIndex filtered;
+    private Set<BigInteger> set;
+    private byte[][] probes;
+    private BigInteger[] probeValues;
+    private int next;
+
+    @Setup
+    public void setup() throws ASN1Exception {
+        Random random = new Random(1);
+        RevokedSerialIndex.Builder builder = RevokedSerialIndex.builder();
+        set = new HashSet<>();
+        BigInteger[] serials = new BigInteger[revoked];
+        for (int i = 0; i < revoked; i++) {
+            serials[i] = new BigInteger(159, random);
+            builder.add(serials[i]);
+            set.add(serials[i]);
+        }
+        plain = builder.build(0);
+        RevokedSerialIndex.Builder again = RevokedSerialIndex.builder();
+        for (BigInteger serial : serials) {
+            again.add(serial);
+        }
+        filtered = again.build(10);
+        probes = new byte[1024][];
+        probeValues = new BigInteger[probes.length];
+        for (int i = 0; i < probes.length; i++) {
+            probeValues[i] = i % 16 == 0 ? serials[random.nextInt(revoked)] : new BigInteger(159, random);
+            probes[i] = probeValues[i].toByteArray();
+        }
+    }
+
+    @Benchmark
+    public boolean sortedIndex() {
+        return plain.contains(probes[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean bloomThenSortedIndex() {
+        return filtered.contains(probes[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean hashSet() {
+        return set.contains(probeValues[next++ & 1023]);
+    }
+}
@@ -1,24 +1,71 @@
 package com.iho.asn1;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class ASN1BitString implements DERParseable<ASN1BitString>, DERSerializable {
-    public final byte[] value;
+    public static final DERParseable<ASN1BitString> DECODER = ASN1BitString::decode;
+
+    // Payload view, excluding the leading padding-count byte of the encoding
+    private final byte[] array;
+    private final int offset;
+    private final int length;
     public final int paddingBits;
 
     public ASN1BitString(byte[] value, int paddingBits) throws ASN1Exception {
+        this(value, 0, value.length, paddingBits);
+    }
+
+    public ASN1BitString(byte[] array, int offset, int length, int paddingBits) throws ASN1Exception {
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IndexOutOfBoundsException("Slice " + offset + "+" + length + " outside array of " + array.length);
+        }
         if (paddingBits < 0 || paddingBits > 7) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Invalid padding bits: " + paddingBits);
         }
-        if (value.length == 0 && paddingBits != 0) {
+        if (length == 0 && paddingBits != 0) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Empty BIT STRING must have 0 padding bits");
         }
-        this.value = value;
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
         this.paddingBits = paddingBits;
     }
 
+    public int length() {
+        return length;
+    }
+
+    public int bitLength() {
+        return length * 8 - paddingBits;
+    }
+
+    // Bit 0 is the most significant bit of the first byte, matching named-bit numbering (e.g. KeyUsage).
+    // Bits past the end read as zero, since DER drops trailing zero named bits.
+    public boolean testBit(int bit) {
+        if (bit < 0) {
+            throw new IndexOutOfBoundsException("Negative bit index: " + bit);
+        }
+        if (bit >= bitLength()) {
+            return false;
+        }
+        return (array[offset + (bit >>> 3)] & (0x80 >>> (bit & 7))) != 0;
+    }
+
+    public ByteBuffer asReadOnlyByteBuffer() {
+        return ByteBuffer.wrap(array, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(array, offset, offset + length);
+    }
+
     @Override
     public ASN1BitString fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1BitString decode(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.BIT_STRING)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected BIT STRING, got " + node.identifier);
         }
@@ -33,33 +80,29 @@ public class ASN1BitString implements DERParseable<ASN1BitString>, DERSerializab
         if (paddingBits > 7) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Invalid padding bits: " + paddingBits);
         }
-        byte[] bits = Arrays.copyOfRange(data, 1, data.length);
-        if (bits.length == 0 && paddingBits != 0) {
+        if (data.length == 1 && paddingBits != 0) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Empty BIT STRING with padding");
         }
         
         // DER check: unused bits must be zero
-        if (bits.length > 0 && paddingBits > 0) {
-            int last = bits[bits.length - 1] & 0xFF;
+        if (data.length > 1 && paddingBits > 0) {
+            int last = data[data.length - 1] & 0xFF;
             int mask = (1 << paddingBits) - 1;
             if ((last & mask) != 0) {
                 throw new ASN1Exception(ErrorCode.InvalidASN1Object, "BIT STRING unused bits must be zero");
             }
         }
-        return new ASN1BitString(bits, paddingBits);
+        return new ASN1BitString(data, 1, data.length - 1, paddingBits);
     }
 
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        byte[] data = new byte[value.length + 1];
-        data[0] = (byte) paddingBits;
-        System.arraycopy(value, 0, data, 1, value.length);
-        writer.writePrimitive(ASN1Identifier.BIT_STRING, data);
+        writer.writeBitString(paddingBits, array, offset, length);
     }
 
     @Override
     public String toString() {
-        return String.format("ASN1BitString(bits: %s, padding: %d)", Arrays.toString(value), paddingBits);
+        return String.format("ASN1BitString(bits: %s, padding: %d)", Arrays.toString(toByteArray()), paddingBits);
     }
 
     @Override
@@ -67,13 +110,23 @@ public class ASN1BitString implements DERParseable<ASN1BitString>, DERSerializab
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ASN1BitString that = (ASN1BitString) o;
-        return paddingBits == that.paddingBits && Arrays.equals(value, that.value);
+        return paddingBits == that.paddingBits
+                && Arrays.equals(array, offset, offset + length, that.array, that.offset, that.offset + that.length);
     }
 
     @Override
     public int hashCode() {
-        int result = Arrays.hashCode(value);
+        int result = hashRange(array, offset, length);
         result = 31 * result + paddingBits;
         return result;
     }
+
+    // Same value as Arrays.hashCode over the slice
+    static int hashRange(byte[] array, int offset, int length) {
+        int result = 1;
+        for (int i = offset; i < offset + length; i++) {
+            result = 31 * result + array[i];
+        }
+        return result;
+    }
 }
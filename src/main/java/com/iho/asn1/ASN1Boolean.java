@@ -1,6 +1,8 @@
 package com.iho.asn1;
 
 public class ASN1Boolean implements DERParseable<ASN1Boolean>, DERSerializable {
+    public static final DERParseable<ASN1Boolean> DECODER = ASN1Boolean::decode;
+
     public final boolean value;
 
     public ASN1Boolean(boolean value) {
@@ -9,6 +11,10 @@ public class ASN1Boolean implements DERParseable<ASN1Boolean>, DERSerializable {
 
     @Override
     public ASN1Boolean fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1Boolean decode(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.BOOLEAN)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected BOOLEAN, got " + node.identifier);
         }
@@ -1,8 +1,5 @@
 package com.iho.asn1;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-
 public class ASN1Implicit implements DERSerializable {
     public final ASN1Identifier identifier;
     public final DERSerializable value;
@@ -14,30 +11,18 @@ public class ASN1Implicit implements DERSerializable {
 
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        DERWriter innerWriter = new DERWriter();
-        value.serialize(innerWriter);
-        byte[] innerBytes = innerWriter.toByteArray();
-        
-        ASN1Node innerNode = DERParser.parse(innerBytes);
-        
-        boolean constructed = innerNode.isConstructed();
-        byte[] contentBytes;
-        
-        if (constructed) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ASN1Node.Constructed constructedContent = (ASN1Node.Constructed) innerNode.content;
-            for (ASN1Node child : constructedContent.getCollection()) {
-                try {
-                    baos.write(child.encodedBytes);
-                } catch (IOException e) {
-                    throw new ASN1Exception(ErrorCode.UnknownError, "Error writing implicit content");
-                }
-            }
-            contentBytes = baos.toByteArray();
-        } else {
-            contentBytes = ((ASN1Node.Primitive) innerNode.content).data;
+        // Implicit tagging replaces the value's own identifier, keeping its constructed bit
+        writer.writeImplicit(identifier, value);
+    }
+
+    // Checks the implicit tag and returns the node re-tagged with the underlying type's identifier, ready
+    // for that type's decoder. The encoding is rewritten too, since dispatch and re-encoding read its octets.
+    public static ASN1Node untag(ASN1Node node, ASN1Identifier expectedIdentifier, ASN1Identifier underlyingIdentifier) throws ASN1Exception {
+        if (!node.identifier.equals(expectedIdentifier)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected " + expectedIdentifier + ", got " + node.identifier);
         }
-        
-        writer.writeNode(identifier, constructed, contentBytes);
+        DERWriter writer = new DERWriter();
+        writer.writeImplicit(underlyingIdentifier, node);
+        return new ASN1Node(underlyingIdentifier, node.content, writer.toByteArray());
     }
 }
@@ -1,20 +1,91 @@
 package com.iho.asn1;
 
 import java.math.BigInteger;
+import java.util.Objects;
 
 public class ASN1Integer implements DERParseable<ASN1Integer>, DERSerializable {
-    public final BigInteger value;
+    public static final DERParseable<ASN1Integer> DECODER = ASN1Integer::decode;
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final ASN1Integer[] CACHE = new ASN1Integer[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new ASN1Integer(CACHE_LOW + i);
+        }
+    }
+
+    // Values that fit in a long never allocate a BigInteger; bigValue is set only when they do not
+    private final long longValue;
+    private final BigInteger bigValue;
 
     public ASN1Integer(BigInteger value) {
-        this.value = value;
+        if (value.bitLength() < 64) {
+            this.longValue = value.longValue();
+            this.bigValue = null;
+        } else {
+            this.longValue = 0;
+            this.bigValue = value;
+        }
     }
 
     public ASN1Integer(long value) {
-        this.value = BigInteger.valueOf(value);
+        this.longValue = value;
+        this.bigValue = null;
+    }
+
+    public static ASN1Integer valueOf(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return new ASN1Integer(value);
+    }
+
+    public BigInteger value() {
+        return bigValue != null ? bigValue : BigInteger.valueOf(longValue);
+    }
+
+    public boolean fitsInLong() {
+        return bigValue == null;
+    }
+
+    public long longValueExact() {
+        if (bigValue != null) {
+            throw new ArithmeticException("INTEGER out of long range");
+        }
+        return longValue;
+    }
+
+    public int intValueExact() {
+        if (bigValue != null || longValue != (int) longValue) {
+            throw new ArithmeticException("INTEGER out of int range");
+        }
+        return (int) longValue;
     }
 
     @Override
     public ASN1Integer fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1Integer decode(ASN1Node node) throws ASN1Exception {
+        byte[] data = contentBytes(node);
+        if (data.length <= 8) {
+            return valueOf(readLong(data));
+        }
+        return new ASN1Integer(new BigInteger(data));
+    }
+
+    public static long decodeLong(ASN1Node node) throws ASN1Exception {
+        byte[] data = contentBytes(node);
+        if (data.length > 8) {
+            throw new ASN1Exception(ErrorCode.ValueOutOfRange, "INTEGER does not fit in a long");
+        }
+        return readLong(data);
+    }
+
+    private static byte[] contentBytes(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.INTEGER)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected INTEGER, got " + node.identifier);
         }
@@ -22,14 +93,19 @@ public class ASN1Integer implements DERParseable<ASN1Integer>, DERSerializable {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "INTEGER must be primitive");
         }
         byte[] data = ((ASN1Node.Primitive) node.content).data;
-        if (data.length == 0) {
+        checkMinimalEncoding(data, 0, data.length);
+        return data;
+    }
+
+    static void checkMinimalEncoding(byte[] data, int offset, int length) throws ASN1Exception {
+        if (length == 0) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "INTEGER with 0 bytes");
         }
 
         // DER minimal encoding check
-        if (data.length > 1) {
-            byte first = data[0];
-            byte second = data[1];
+        if (length > 1) {
+            byte first = data[offset];
+            byte second = data[offset + 1];
             if (first == 0x00 && (second & 0x80) == 0) {
                 throw new ASN1Exception(ErrorCode.InvalidASN1IntegerEncoding, "Redundant leading zero");
             }
@@ -37,18 +113,33 @@ public class ASN1Integer implements DERParseable<ASN1Integer>, DERSerializable {
                 throw new ASN1Exception(ErrorCode.InvalidASN1IntegerEncoding, "Redundant leading FF");
             }
         }
+    }
 
-        return new ASN1Integer(new BigInteger(data));
+    private static long readLong(byte[] data) {
+        return readLong(data, 0, data.length);
+    }
+
+    static long readLong(byte[] data, int offset, int length) {
+        // The first byte is sign-extended, the rest are shifted in unsigned
+        long value = data[offset];
+        for (int i = 1; i < length; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
     }
 
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        writer.writePrimitive(ASN1Identifier.INTEGER, value.toByteArray());
+        if (bigValue == null) {
+            writer.writeInteger(ASN1Identifier.INTEGER, longValue);
+        } else {
+            writer.writePrimitive(ASN1Identifier.INTEGER, bigValue.toByteArray());
+        }
     }
 
     @Override
     public String toString() {
-        return "ASN1Integer(" + value + ")";
+        return "ASN1Integer(" + (bigValue != null ? bigValue.toString() : Long.toString(longValue)) + ")";
     }
 
     @Override
@@ -56,11 +147,11 @@ public class ASN1Integer implements DERParseable<ASN1Integer>, DERSerializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ASN1Integer that = (ASN1Integer) o;
-        return value.equals(that.value);
+        return longValue == that.longValue && Objects.equals(bigValue, that.bigValue);
     }
 
     @Override
     public int hashCode() {
-        return value.hashCode();
+        return bigValue != null ? bigValue.hashCode() : Long.hashCode(longValue);
     }
 }
@@ -1,11 +1,19 @@
 package com.iho.asn1;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
-public class ASN1Node {
+// Nodes compare by their encodings: equal encodings are equal nodes, and the order is unsigned
+// lexicographic, the order DER sorts SET OF components in.
+public class ASN1Node implements DERSerializable, Comparable<ASN1Node> {
     public final ASN1Identifier identifier;
     public final Content content;
     public final byte[] encodedBytes;
+    // Memoized hash64(). Threads may race to compute it, always to the same value; volatile keeps a long
+    // from being read half-written, which equals() relies on for its early exit.
+    // hashIsZero tells a computed 0 from one not yet computed.
+    private volatile long hash;
+    private boolean hashIsZero;
 
     public ASN1Node(ASN1Identifier identifier, Content content, byte[] encodedBytes) {
         this.identifier = identifier;
@@ -17,6 +25,67 @@ public class ASN1Node {
         return content instanceof Constructed;
     }
 
+    // 64-bit hash of the encoding, computed once per node
+    public long hash64() {
+        long h = hash;
+        if (h == 0 && !hashIsZero) {
+            h = DERHash.hash64(encodedBytes, 0, encodedBytes.length);
+            if (h == 0) {
+                hashIsZero = true;
+            } else {
+                hash = h;
+            }
+        }
+        return h;
+    }
+
+    // Same function as hash64(), over an encoding held in a larger array
+    public static long hash64(byte[] bytes, int offset, int length) {
+        return DERHash.hash64(bytes, offset, length);
+    }
+
+    public boolean encodingEquals(byte[] bytes, int offset, int length) {
+        return Arrays.equals(encodedBytes, 0, encodedBytes.length, bytes, offset, offset + length);
+    }
+
+    public int compareEncoding(byte[] bytes, int offset, int length) {
+        return Arrays.compareUnsigned(encodedBytes, 0, encodedBytes.length, bytes, offset, offset + length);
+    }
+
+    @Override
+    public int compareTo(ASN1Node other) {
+        return Arrays.compareUnsigned(encodedBytes, other.encodedBytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ASN1Node other) || encodedBytes.length != other.encodedBytes.length) {
+            return false;
+        }
+        // Hashes already memoized on both sides settle most mismatches without reading the bytes
+        long h = hash;
+        long otherHash = other.hash;
+        if (h != 0 && otherHash != 0 && h != otherHash) {
+            return false;
+        }
+        return Arrays.equals(encodedBytes, other.encodedBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = hash64();
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public void serialize(DERWriter writer) throws ASN1Exception {
+        // A parsed node is re-emitted exactly as it was encoded
+        writer.writeRaw(encodedBytes);
+    }
+
     public interface Content {}
 
     public static final class Primitive implements Content {
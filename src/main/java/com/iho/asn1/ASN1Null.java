@@ -2,11 +2,16 @@ package com.iho.asn1;
 
 public class ASN1Null implements DERParseable<ASN1Null>, DERSerializable {
     public static final ASN1Null INSTANCE = new ASN1Null();
+    public static final DERParseable<ASN1Null> DECODER = ASN1Null::decode;
 
     private ASN1Null() {}
 
     @Override
     public ASN1Null fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1Null decode(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.NULL)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected NULL, got " + node.identifier);
         }
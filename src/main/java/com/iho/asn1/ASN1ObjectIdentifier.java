@@ -1,37 +1,46 @@
 package com.iho.asn1;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.Arrays;
 
 public class ASN1ObjectIdentifier implements DERParseable<ASN1ObjectIdentifier>, DERSerializable {
+    public static final DERParseable<ASN1ObjectIdentifier> DECODER = ASN1ObjectIdentifier::decode;
+
     private final byte[] encoded;
+    // Dotted form is built on first use; racy initialisation is harmless as every thread computes the same string
+    private String dotted;
 
     private ASN1ObjectIdentifier(byte[] encoded) {
         this.encoded = encoded;
     }
 
     public ASN1ObjectIdentifier(long[] components) throws ASN1Exception {
-        if (components.length < 2) {
+        int count = components.length;
+        if (count < 2) {
             throw new ASN1Exception(ErrorCode.TooFewOIDComponents, "Must have at least 2 components");
         }
-        if (components[0] > 2) {
+        if (components[0] < 0 || components[0] > 2) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "First OID component must be 0, 1, or 2");
         }
-        if (components[0] < 2 && components[1] > 39) {
+        if (components[1] < 0 || (components[0] < 2 && components[1] > 39)) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Second OID component must be <= 39 if first is 0 or 1");
         }
-
-        List<Byte> buffer = new ArrayList<>();
         long firstValue = components[0] * 40 + components[1];
-        writeSubidentifier(firstValue, buffer);
-        for (int i = 2; i < components.length; i++) {
-            writeSubidentifier(components[i], buffer);
+        if (firstValue < 0) {
+            throw new ASN1Exception(ErrorCode.ValueOutOfRange, "Second OID component is too large");
+        }
+
+        // Size the encoding up front so each subidentifier is written straight into place
+        int length = subidentifierLength(firstValue);
+        for (int i = 2; i < count; i++) {
+            if (components[i] < 0) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "OID components must not be negative");
+            }
+            length += subidentifierLength(components[i]);
         }
-        
-        this.encoded = new byte[buffer.size()];
-        for (int i = 0; i < buffer.size(); i++) {
-            this.encoded[i] = buffer.get(i);
+        this.encoded = new byte[length];
+        int position = writeSubidentifier(firstValue, encoded, 0);
+        for (int i = 2; i < count; i++) {
+            position = writeSubidentifier(components[i], encoded, position);
         }
     }
 
@@ -47,77 +56,126 @@ public class ASN1ObjectIdentifier implements DERParseable<ASN1ObjectIdentifier>,
         }
     }
 
-    private static long[] parseComponents(String dotted) {
-        String[] parts = dotted.split("\\.");
-        long[] comps = new long[parts.length];
-        for (int i = 0; i < parts.length; i++) {
-            comps[i] = Long.parseLong(parts[i]);
+    private static long[] parseComponents(String dotted) throws ASN1Exception {
+        int count = 1;
+        for (int i = 0; i < dotted.length(); i++) {
+            if (dotted.charAt(i) == '.') count++;
+        }
+        long[] comps = new long[count];
+        int index = 0;
+        int digits = 0;
+        long value = 0;
+        for (int i = 0; i <= dotted.length(); i++) {
+            char c = i < dotted.length() ? dotted.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0) {
+                    throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Empty OID component in " + dotted);
+                }
+                comps[index++] = value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                    throw new ASN1Exception(ErrorCode.ValueOutOfRange, "OID component exceeds long range in " + dotted);
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+            } else {
+                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Invalid character in OID: " + dotted);
+            }
         }
         return comps;
     }
 
-    private void writeSubidentifier(long value, List<Byte> buffer) {
+    private static int subidentifierLength(long value) {
         if (value == 0) {
-            buffer.add((byte) 0);
-            return;
+            return 1;
         }
         int numBits = 64 - Long.numberOfLeadingZeros(value);
-        int numBytes = (numBits + 6) / 7;
+        return (numBits + 6) / 7;
+    }
+
+    private static int writeSubidentifier(long value, byte[] buffer, int position) {
+        int numBytes = subidentifierLength(value);
         for (int i = numBytes - 1; i >= 0; i--) {
             byte b = (byte) ((value >> (i * 7)) & 0x7F);
             if (i > 0) b |= 0x80;
-            buffer.add(b);
+            buffer[position++] = b;
         }
+        return position;
     }
 
-    public long[] getComponents() throws ASN1Exception {
-        List<Long> components = new ArrayList<>();
-        int index = 0;
-        
-        long firstValue = readSubidentifier(index);
-        index = skipSubidentifier(index);
-        
-        long first = firstValue / 40;
-        long second = firstValue % 40;
-        if (first > 2) {
-             second = firstValue - 80;
-             first = 2;
-        }
-        components.add(first);
-        components.add(second);
-
-        while (index < encoded.length) {
-            components.add(readSubidentifier(index));
-            index = skipSubidentifier(index);
+    public int componentCount() {
+        // Every subidentifier ends in a byte without the continuation bit; the first one holds two arcs
+        int count = 1;
+        for (byte b : encoded) {
+            if ((b & 0x80) == 0) count++;
         }
+        return count;
+    }
 
-        long[] result = new long[components.size()];
-        for (int i = 0; i < components.size(); i++) {
-            result[i] = components.get(i);
-        }
+    public long[] getComponents() throws ASN1Exception {
+        long[] result = new long[componentCount()];
+        getComponents(result);
         return result;
     }
 
-    private long readSubidentifier(int index) throws ASN1Exception {
+    public int getComponents(long[] destination) throws ASN1Exception {
+        int count = componentCount();
+        if (destination.length < count) {
+            throw new ASN1Exception(ErrorCode.ValueOutOfRange, "Destination holds " + destination.length + " components, OID has " + count);
+        }
+        int index = 0;
+        int arc = 2;
         long value = 0;
-        while (true) {
-            if (index >= encoded.length) {
-                throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Truncated OID subidentifier");
+        for (int i = 0; i < encoded.length; i++) {
+            byte b = encoded[i];
+            if ((value & 0xFE00000000000000L) != 0) {
+                throw new ASN1Exception(ErrorCode.ValueOutOfRange, "OID subidentifier exceeds long range");
             }
-            byte b = encoded[index++];
             value = (value << 7) | (b & 0x7F);
-            if ((b & 0x80) == 0) break;
+            if ((b & 0x80) != 0) continue;
+            if (index == 0) {
+                long first = value < 80 ? value / 40 : 2;
+                destination[0] = first;
+                destination[1] = value - first * 40;
+                index = 1;
+            } else {
+                destination[arc++] = value;
+            }
+            value = 0;
+        }
+        if (index == 0 || (encoded[encoded.length - 1] & 0x80) != 0) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Truncated OID subidentifier");
+        }
+        return count;
+    }
+
+    public String toDottedString() throws ASN1Exception {
+        String result = dotted;
+        if (result == null) {
+            long[] comps = getComponents();
+            StringBuilder sb = new StringBuilder(comps.length * 4);
+            for (int i = 0; i < comps.length; i++) {
+                if (i > 0) sb.append('.');
+                sb.append(comps[i]);
+            }
+            result = sb.toString();
+            dotted = result;
         }
-        return value;
+        return result;
     }
 
-    private int skipSubidentifier(int index) {
-        while ((encoded[index++] & 0x80) != 0);
-        return index;
+    byte[] contentBytes() {
+        return encoded;
     }
 
     @Override
     public ASN1ObjectIdentifier fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1ObjectIdentifier decode(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.OBJECT_IDENTIFIER)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected OID, got " + node.identifier);
         }
@@ -128,7 +186,7 @@ public class ASN1ObjectIdentifier implements DERParseable<ASN1ObjectIdentifier>,
         if (data.length == 0) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Zero components in OID");
         }
-        
+
         // Validate subidentifiers
         int i = 0;
         while (i < data.length) {
@@ -153,13 +211,7 @@ public class ASN1ObjectIdentifier implements DERParseable<ASN1ObjectIdentifier>,
     @Override
     public String toString() {
         try {
-            long[] comps = getComponents();
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < comps.length; i++) {
-                if (i > 0) sb.append(".");
-                sb.append(comps[i]);
-            }
-            return "ASN1ObjectIdentifier(" + sb + ")";
+            return "ASN1ObjectIdentifier(" + toDottedString() + ")";
         } catch (ASN1Exception e) {
             return "ASN1ObjectIdentifier(invalid)";
         }
@@ -177,13 +229,4 @@ public class ASN1ObjectIdentifier implements DERParseable<ASN1ObjectIdentifier>,
     public int hashCode() {
         return Arrays.hashCode(encoded);
     }
-    
-    private static class Arrays {
-        static boolean equals(byte[] a, byte[] a2) {
-            return java.util.Arrays.equals(a, a2);
-        }
-        static int hashCode(byte[] a) {
-            return java.util.Arrays.hashCode(a);
-        }
-    }
 }
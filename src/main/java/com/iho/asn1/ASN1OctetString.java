@@ -1,16 +1,66 @@
 package com.iho.asn1;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
 public class ASN1OctetString implements DERParseable<ASN1OctetString>, DERSerializable {
-    public final byte[] value;
+    public static final DERParseable<ASN1OctetString> DECODER = ASN1OctetString::decode;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // A view over the parsed (or caller's) buffer; the bytes are copied only by toByteArray()
+    private final byte[] array;
+    private final int offset;
+    private final int length;
 
     public ASN1OctetString(byte[] value) {
-        this.value = value;
+        this(value == null ? EMPTY : value, 0, value == null ? 0 : value.length);
+    }
+
+    public ASN1OctetString(byte[] array, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IndexOutOfBoundsException("Slice " + offset + "+" + length + " outside array of " + array.length);
+        }
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static DERSerializable reference(ByteBuffer content) {
+        ByteBuffer view = content.slice().asReadOnlyBuffer();
+        return writer -> writer.writePrimitiveReference(ASN1Identifier.OCTET_STRING, view);
+    }
+
+    public static DERSerializable reference(FileChannel channel, long position, long count) {
+        return writer -> writer.writePrimitiveReference(ASN1Identifier.OCTET_STRING, channel, position, count);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside OCTET STRING of " + length);
+        }
+        return array[offset + index];
+    }
+
+    public ByteBuffer asReadOnlyByteBuffer() {
+        return ByteBuffer.wrap(array, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(array, offset, offset + length);
     }
 
     @Override
     public ASN1OctetString fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1OctetString decode(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.OCTET_STRING)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected OCTET STRING, got " + node.identifier);
         }
@@ -22,12 +72,12 @@ public class ASN1OctetString implements DERParseable<ASN1OctetString>, DERSerial
 
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        writer.writePrimitive(ASN1Identifier.OCTET_STRING, value);
+        writer.writePrimitiveReference(ASN1Identifier.OCTET_STRING, ByteBuffer.wrap(array, offset, length));
     }
 
     @Override
     public String toString() {
-        return "ASN1OctetString(" + Arrays.toString(value) + ")";
+        return "ASN1OctetString(" + Arrays.toString(toByteArray()) + ")";
     }
 
     @Override
@@ -35,11 +85,11 @@ public class ASN1OctetString implements DERParseable<ASN1OctetString>, DERSerial
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ASN1OctetString that = (ASN1OctetString) o;
-        return Arrays.equals(value, that.value);
+        return Arrays.equals(array, offset, offset + length, that.array, that.offset, that.offset + that.length);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(value);
+        return ASN1BitString.hashRange(array, offset, length);
     }
 }
@@ -1,10 +1,11 @@
 package com.iho.asn1;
 
-import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.nio.charset.StandardCharsets;
 
 public class ASN1Real implements DERParseable<ASN1Real>, DERSerializable {
+    public static final DERParseable<ASN1Real> DECODER = ASN1Real::decode;
+
     public final double value;
 
     public ASN1Real(double value) {
@@ -13,6 +14,10 @@ public class ASN1Real implements DERParseable<ASN1Real>, DERSerializable {
 
     @Override
     public ASN1Real fromDERNode(ASN1Node node) throws ASN1Exception {
+        return decode(node);
+    }
+
+    public static ASN1Real decode(ASN1Node node) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.REAL)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected REAL, got " + node.identifier);
         }
@@ -20,139 +25,207 @@ public class ASN1Real implements DERParseable<ASN1Real>, DERSerializable {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "REAL must be primitive");
         }
         byte[] data = ((ASN1Node.Primitive) node.content).data;
-        if (data.length == 0) return new ASN1Real(0.0);
-
-        byte first = data[0];
-        if (first == 0x40) return new ASN1Real(Double.POSITIVE_INFINITY);
-        if (first == 0x41) return new ASN1Real(Double.NEGATIVE_INFINITY);
-
-        if ((first & 0x80) != 0) {
-            // Binary encoding
-            double sign = (first & 0x40) != 0 ? -1.0 : 1.0;
-            int expLen = (first & 0x03) + 1;
-            
-            if (data.length < 1 + expLen) {
-                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "REAL encoding too short");
-            }
+        return new ASN1Real(decode(data, 0, data.length));
+    }
 
-            long exponent = 0;
-            for (int i = 0; i < expLen; i++) {
-                exponent = (exponent << 8) | (data[1 + i] & 0xFF);
-            }
-            // Sign extend
-            if ((data[1] & 0x80) != 0) {
-                exponent |= (~0L << (expLen * 8));
-            }
+    static double decode(byte[] data, int offset, int length) throws ASN1Exception {
+        if (length == 0) return 0.0;
 
-            long mantissa = 0;
-            for (int i = 1 + expLen; i < data.length; i++) {
-                mantissa = (mantissa << 8) | (data[i] & 0xFF);
-            }
+        byte first = data[offset];
+        if (first == 0x40) return Double.POSITIVE_INFINITY;
+        if (first == 0x41) return Double.NEGATIVE_INFINITY;
 
-            // Note: This logic assumes base-2 and might need scaling for the mantissa alignment.
-            // Simplified: value = S * M * 2^E
-            return new ASN1Real(sign * mantissa * Math.pow(2.0, exponent));
+        if ((first & 0x80) != 0) {
+            return decodeBinary(data, offset, length);
         } else {
             // Decimal encoding (bit 8 is 0)
             // Bit 7 reserved (0) or specialized?
             // "If bit 8 is 0, then the encoding ... is decimal"
             // Content starts at byte 1 (0-indexed byte 0 is header).
             
-            if (data.length < 2) {
+            if (length < 2) {
                 // If length is 1, it's just the header byte. Empty string? "value is 0"? 
                 // No, value 0 is length 0.
                 throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Decimal REAL too short");
             }
             
-            String s = new String(data, 1, data.length - 1, StandardCharsets.US_ASCII);
+            String s = new String(data, offset + 1, length - 1, StandardCharsets.US_ASCII);
             try {
                 // Handle NR1/NR2/NR3. Java's parseDouble handles most: "123", "123.45", "1.2E3"
                 // Replace comma with dot if present (ISO 6093 allows comma)
                 s = s.replace(',', '.');
-                return new ASN1Real(Double.parseDouble(s));
+                return Double.parseDouble(s);
             } catch (NumberFormatException e) {
                  throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Invalid Decimal REAL format: " + s);
             }
         }
     }
 
+    private static double decodeBinary(byte[] data, int offset, int length) throws ASN1Exception {
+        // Value = S * N * 2^F * B^E with B = 2, 8 or 16, all folded into one power-of-two exponent
+        int first = data[offset];
+        boolean negative = (first & 0x40) != 0;
+        int baseShift;
+        switch ((first >> 4) & 0x03) {
+            case 0: baseShift = 1; break;
+            case 1: baseShift = 3; break;
+            case 2: baseShift = 4; break;
+            default: throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Reserved REAL base");
+        }
+        int scale = (first >> 2) & 0x03;
+        int position = offset + 1;
+        int end = offset + length;
+        int expLen = (first & 0x03) + 1;
+        if (expLen == 4) {
+            if (position >= end) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "REAL encoding too short");
+            }
+            expLen = data[position++] & 0xFF;
+        }
+        if (expLen == 0 || end - position < expLen) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "REAL encoding too short");
+        }
+        if (expLen > 4) {
+            throw new ASN1Exception(ErrorCode.ValueOutOfRange, "REAL exponent exceeds " + expLen + " bytes");
+        }
+
+        // Sign-extended big-endian exponent
+        long exponent = data[position++];
+        for (int i = 1; i < expLen; i++) {
+            exponent = (exponent << 8) | (data[position++] & 0xFF);
+        }
+        exponent = exponent * baseShift + scale;
+
+        // Mantissa bits beyond 64 only matter as a sticky bit for rounding
+        long mantissa = 0;
+        boolean sticky = false;
+        for (; position < end; position++) {
+            if ((mantissa >>> 56) != 0) {
+                sticky |= data[position] != 0;
+                exponent += 8;
+            } else {
+                mantissa = (mantissa << 8) | (data[position] & 0xFF);
+            }
+        }
+        if (sticky) {
+            mantissa |= 1;
+        }
+        return toDouble(negative, mantissa, exponent);
+    }
+
+    // Rounds N * 2^exponent to the nearest double, ties to even, as a single rounding step
+    static double toDouble(boolean negative, long mantissa, long exponent) {
+        long signBit = negative ? Long.MIN_VALUE : 0;
+        if (mantissa == 0) {
+            return Double.longBitsToDouble(signBit);
+        }
+        int bitLength = 64 - Long.numberOfLeadingZeros(mantissa);
+        long top = exponent + bitLength - 1;
+        if (top > 1023) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        // 53 significant bits for normal numbers, fewer as the value sinks below 2^-1022
+        long precision = Math.min(53, top + 1075);
+        long drop = bitLength - precision;
+        long significand;
+        if (drop <= 0) {
+            significand = mantissa << -drop;
+        } else if (drop > 64) {
+            significand = 0;
+        } else if (drop == 64) {
+            significand = Long.compareUnsigned(mantissa, Long.MIN_VALUE) > 0 ? 1 : 0;
+        } else {
+            significand = mantissa >>> drop;
+            long dropped = mantissa & ((1L << drop) - 1);
+            long half = 1L << (drop - 1);
+            if (Long.compareUnsigned(dropped, half) > 0 || (dropped == half && (significand & 1) != 0)) {
+                significand++;
+            }
+        }
+
+        if (top < -1022) {
+            // Subnormal: the significand is the raw bit pattern, and a carry into bit 52 lands on MIN_NORMAL
+            return Double.longBitsToDouble(signBit | significand);
+        }
+        if (significand == 1L << 53) {
+            significand >>>= 1;
+            top++;
+            if (top > 1023) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+        }
+        return Double.longBitsToDouble(signBit | ((top + 1023) << 52) | (significand & 0x000FFFFFFFFFFFFFL));
+    }
+
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        // Zero
+        writer.writeReal(value);
+    }
+
+    static int contentLength(double value) throws ASN1Exception {
         if (value == 0.0) {
-            // Check for negative zero?
-            if (Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(-0.0)) {
-                // DER doesn't strictly distinguish -0.0 from 0.0 usually, but let's encode as 0-length (0.0).
-                // "The real value zero is encoded ... as no octets."
-            }
-            writer.writePrimitive(ASN1Identifier.REAL, new byte[0]);
-            return;
+            // "The real value zero is encoded ... as no octets." Negative zero is folded into it.
+            return 0;
         }
-
         if (Double.isInfinite(value)) {
-            writer.writePrimitive(ASN1Identifier.REAL, new byte[]{value > 0 ? (byte) 0x40 : (byte) 0x41});
-            return;
+            return 1;
         }
-
         if (Double.isNaN(value)) {
             throw new ASN1Exception(ErrorCode.InvalidASN1Object, "NaN cannot be encoded in DER REAL");
         }
+        long mantissa = binaryMantissa(value);
+        int exponent = binaryExponent(value);
+        int mantissaBytes = (64 - Long.numberOfLeadingZeros(mantissa) + 7) / 8;
+        return 1 + (exponent >= -128 && exponent <= 127 ? 1 : 2) + mantissaBytes;
+    }
+
+    // Writes the content octets for a value already measured by contentLength and returns the new position
+    static int putContent(double value, byte[] out, int position) {
+        if (value == 0.0) {
+            return position;
+        }
+        if (Double.isInfinite(value)) {
+            out[position] = value > 0 ? (byte) 0x40 : (byte) 0x41;
+            return position + 1;
+        }
 
-        // Binary encoding (base 2)
+        // Binary encoding, base 2, F = 0, with an odd mantissa as DER requires
+        long mantissa = binaryMantissa(value);
+        int exponent = binaryExponent(value);
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        boolean shortExponent = exponent >= -128 && exponent <= 127;
+        out[position++] = (byte) (0x80 | (negative ? 0x40 : 0x00) | (shortExponent ? 0x00 : 0x01));
+        if (!shortExponent) {
+            out[position++] = (byte) (exponent >> 8);
+        }
+        out[position++] = (byte) exponent;
+        int mantissaBytes = (64 - Long.numberOfLeadingZeros(mantissa) + 7) / 8;
+        for (int i = mantissaBytes - 1; i >= 0; i--) {
+            out[position++] = (byte) (mantissa >>> (i * 8));
+        }
+        return position;
+    }
+
+    private static long binaryMantissa(double value) {
+        // Integer significand with the implicit leading 1 restored for normal numbers, trailing zeros shifted out
         long bits = Double.doubleToRawLongBits(value);
-        boolean negative = (bits & (1L << 63)) != 0;
-        int exponent = (int) ((bits >> 52) & 0x7FFL) - 1023;
         long mantissa = bits & 0x000FFFFFFFFFFFFFL;
-        
-        // Add implicit leading 1 unless denormalized
-        if (exponent == -1023) {
-            exponent = -1022; // denormal
-        } else {
+        if ((bits & 0x7FF0000000000000L) != 0) {
             mantissa |= 0x0010000000000000L;
         }
-        
-        // Mantissa is now an integer M. Value was (1.F) * 2^E.
-        // M = (1.F) * 2^52.
-        // So Value = M * 2^(E - 52).
-        exponent -= 52;
-
-        // Remove trailing zeros from mantissa to be minimal
-        while (mantissa != 0 && (mantissa & 1) == 0) {
-            mantissa >>= 1;
-            exponent++;
-        }
-
-        byte firstByte = (byte) (0x80 | (negative ? 0x40 : 0x00));
-        
-        // Exponent length selection
-        // We support 1 or 2 bytes for exponent (sufficient for double)
-        byte[] expBytes;
-        if (exponent >= -128 && exponent <= 127) {
-            expBytes = new byte[]{(byte) exponent};
-            firstByte |= 0x00; // expLen = 1
-        } else {
-            expBytes = new byte[]{(byte) (exponent >> 8), (byte) exponent};
-            firstByte |= 0x01; // expLen = 2
-        }
-
-        byte[] mantissaBytes = longToBytes(mantissa);
-        
-        byte[] result = new byte[1 + expBytes.length + mantissaBytes.length];
-        result[0] = firstByte;
-        System.arraycopy(expBytes, 0, result, 1, expBytes.length);
-        System.arraycopy(mantissaBytes, 0, result, 1 + expBytes.length, mantissaBytes.length);
-        
-        writer.writePrimitive(ASN1Identifier.REAL, result);
+        return mantissa >>> Long.numberOfTrailingZeros(mantissa);
     }
 
-    private byte[] longToBytes(long value) {
-        int len = (64 - Long.numberOfLeadingZeros(value) + 7) / 8;
-        if (len == 0) return new byte[]{0};
-        byte[] bytes = new byte[len];
-        for (int i = 0; i < len; i++) {
-            bytes[len - 1 - i] = (byte) (value >> (i * 8));
+    private static int binaryExponent(double value) {
+        // value = M * 2^(E - 52) before the trailing zeros of M were removed
+        long bits = Double.doubleToRawLongBits(value);
+        int biased = (int) ((bits >>> 52) & 0x7FF);
+        long fullMantissa = bits & 0x000FFFFFFFFFFFFFL;
+        if (biased != 0) {
+            fullMantissa |= 0x0010000000000000L;
         }
-        return bytes;
+        int exponent = (biased == 0 ? -1022 : biased - 1023) - 52;
+        return exponent + Long.numberOfTrailingZeros(fullMantissa);
     }
 
     @Override
@@ -2,6 +2,10 @@ package com.iho.asn1;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class ASN1Sequence implements DERSerializable {
     public final List<DERSerializable> components;
@@ -22,6 +26,62 @@ public class ASN1Sequence implements DERSerializable {
         });
     }
 
+    public void serializeParallel(DERWriter writer) throws ASN1Exception {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        serializeParallel(writer, ForkJoinPool.commonPool(), Math.max(1, components.size() / (parallelism * 4)));
+    }
+
+    public void serializeParallel(DERWriter writer, ExecutorService executor, int chunkSize) throws ASN1Exception {
+        if (chunkSize <= 0) {
+            throw new ASN1Exception(ErrorCode.ValueOutOfRange, "Chunk size must be positive: " + chunkSize);
+        }
+        int count = components.size();
+        if (count <= chunkSize) {
+            serialize(writer);
+            return;
+        }
+
+        // Each chunk is encoded into its own writer; the chunks are then joined in order
+        List<Future<DERWriter>> chunks = new ArrayList<>();
+        for (int start = 0; start < count; start += chunkSize) {
+            List<DERSerializable> chunk = components.subList(start, Math.min(count, start + chunkSize));
+            chunks.add(executor.submit(() -> {
+                DERWriter chunkWriter = new DERWriter();
+                for (DERSerializable component : chunk) {
+                    component.serialize(chunkWriter);
+                }
+                return chunkWriter;
+            }));
+        }
+
+        DERWriter[] encoded = new DERWriter[chunks.size()];
+        long length = 0;
+        try {
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = chunks.get(i).get();
+                length += encoded[i].size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ASN1Exception(ErrorCode.UnknownError, "Interrupted while encoding SEQUENCE components");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ASN1Exception) throw (ASN1Exception) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new ASN1Exception(ErrorCode.UnknownError, "Error encoding SEQUENCE components: " + cause);
+        } finally {
+            for (Future<DERWriter> chunk : chunks) {
+                chunk.cancel(true);
+            }
+        }
+
+        writer.writeHeader(ASN1Identifier.SEQUENCE, true, length);
+        for (DERWriter chunkWriter : encoded) {
+            writer.append(chunkWriter);
+        }
+    }
+
     public static <T> List<T> decode(ASN1Node node, DERParseable<T> decoder) throws ASN1Exception {
         if (!node.identifier.equals(ASN1Identifier.SEQUENCE)) {
             throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected SEQUENCE, got " + node.identifier);
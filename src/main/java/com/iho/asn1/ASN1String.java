@@ -1,31 +1,86 @@
 package com.iho.asn1;
 
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
+import java.util.Arrays;
+
+import com.iho.asn1.StringValidator.Alphabet;
 
 public abstract class ASN1String implements DERParseable<ASN1String>, DERSerializable {
-    public final String value;
+    private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+
+    // Content octets in the type's own character encoding; the String is decoded from them on demand
+    private final byte[] bytes;
+    private String value;
     protected final ASN1Identifier identifier;
 
     protected ASN1String(String value, ASN1Identifier identifier) {
+        this(value, identifier, StandardCharsets.UTF_8, null);
+    }
+
+    private ASN1String(String value, ASN1Identifier identifier, Charset charset, Alphabet ascii) {
         this.value = value;
         this.identifier = identifier;
-        validate();
+        if (ascii == null) {
+            this.bytes = value.getBytes(charset);
+        } else {
+            // The restricted alphabets are all ASCII subsets, so one byte per char and one pass over the bytes
+            this.bytes = new byte[value.length()];
+            for (int i = 0; i < bytes.length; i++) {
+                char c = value.charAt(i);
+                if (c > 0x7F) {
+                    throw new IllegalArgumentException("Invalid character in " + getClass().getSimpleName() + ": " + c);
+                }
+                bytes[i] = (byte) c;
+            }
+            int invalid = StringValidator.firstInvalid(ascii, bytes, 0, bytes.length);
+            if (invalid >= 0) {
+                throw new IllegalArgumentException("Invalid character in " + getClass().getSimpleName() + ": " + value.charAt(invalid));
+            }
+        }
+    }
+
+    private ASN1String(byte[] bytes, ASN1Identifier identifier, Alphabet alphabet) throws ASN1Exception {
+        this.bytes = bytes;
+        this.identifier = identifier;
+        if (alphabet != null) {
+            int invalid = StringValidator.firstInvalid(alphabet, bytes, 0, bytes.length);
+            if (invalid >= 0) {
+                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation,
+                        "Invalid byte in " + getClass().getSimpleName() + " at offset " + invalid + ": 0x" + Integer.toHexString(bytes[invalid] & 0xFF));
+            }
+        }
     }
 
-    protected void validate() {
-        // Default no-op
+    protected Charset charset() {
+        return StandardCharsets.UTF_8;
+    }
+
+    public String value() {
+        String result = value;
+        if (result == null) {
+            result = new String(bytes, charset());
+            value = result;
+        }
+        return result;
+    }
+
+    public int byteLength() {
+        return bytes.length;
+    }
+
+    public byte[] toByteArray() {
+        return bytes.clone();
     }
 
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        // Default serialization (UTF-8) - subclasses should override if different
-        writer.writePrimitive(identifier, value.getBytes(StandardCharsets.UTF_8));
+        writer.writePrimitive(identifier, bytes);
     }
 
     @Override
     public String toString() {
-        return getClass().getSimpleName() + "(" + value + ")";
+        return getClass().getSimpleName() + "(" + value() + ")";
     }
 
     @Override
@@ -33,264 +88,302 @@ public abstract class ASN1String implements DERParseable<ASN1String>, DERSeriali
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ASN1String that = (ASN1String) o;
-        return Objects.equals(value, that.value) && Objects.equals(identifier, that.identifier);
+        return identifier.equals(that.identifier) && Arrays.equals(bytes, that.bytes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value, identifier);
+        return 31 * identifier.hashCode() + Arrays.hashCode(bytes);
+    }
+
+    private static byte[] contentBytes(ASN1Node node, ASN1Identifier expected, String name) throws ASN1Exception {
+        if (!node.identifier.equals(expected)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected " + name);
+        }
+        if (!(node.content instanceof ASN1Node.Primitive)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, name + " must be primitive in DER");
+        }
+        return ((ASN1Node.Primitive) node.content).data;
     }
 
     public static class UTF8String extends ASN1String {
+        public static final DERParseable<UTF8String> DECODER = UTF8String::decode;
+
         public UTF8String(String value) {
-            super(value, ASN1Identifier.UTF8_STRING);
+            super(value, ASN1Identifier.UTF8_STRING, StandardCharsets.UTF_8, null);
+        }
+
+        UTF8String(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.UTF8_STRING, Alphabet.UTF8);
         }
 
         @Override
         public UTF8String fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.UTF8_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected UTF8String");
-            }
-            return new UTF8String(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.UTF_8));
+            return decode(node);
+        }
+
+        public static UTF8String decode(ASN1Node node) throws ASN1Exception {
+            return new UTF8String(contentBytes(node, ASN1Identifier.UTF8_STRING, "UTF8String"));
         }
     }
 
     public static class PrintableString extends ASN1String {
-        public PrintableString(String value) {
-            super(value, ASN1Identifier.PRINTABLE_STRING);
-        }
+        public static final DERParseable<PrintableString> DECODER = PrintableString::decode;
 
-        @Override
-        protected void validate() {
-            for (char c : value.toCharArray()) {
-                if (!isPrintable(c)) {
-                    throw new IllegalArgumentException("Invalid character in PrintableString: " + c);
-                }
-            }
+        public PrintableString(String value) {
+            super(value, ASN1Identifier.PRINTABLE_STRING, StandardCharsets.US_ASCII, Alphabet.PRINTABLE);
         }
 
-        private boolean isPrintable(char c) {
-            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
-                    " '()+,-./:=?".indexOf(c) != -1;
+        PrintableString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.PRINTABLE_STRING, Alphabet.PRINTABLE);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-             writer.writePrimitive(identifier, value.getBytes(StandardCharsets.US_ASCII));
+        protected Charset charset() {
+            return StandardCharsets.US_ASCII;
         }
 
         @Override
         public PrintableString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.PRINTABLE_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected PrintableString");
-            }
-            return new PrintableString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.US_ASCII));
+            return decode(node);
+        }
+
+        public static PrintableString decode(ASN1Node node) throws ASN1Exception {
+            return new PrintableString(contentBytes(node, ASN1Identifier.PRINTABLE_STRING, "PrintableString"));
         }
     }
 
     public static class IA5String extends ASN1String {
+        public static final DERParseable<IA5String> DECODER = IA5String::decode;
+
         public IA5String(String value) {
-            super(value, ASN1Identifier.IA5_STRING);
+            super(value, ASN1Identifier.IA5_STRING, StandardCharsets.US_ASCII, Alphabet.IA5);
         }
 
-        @Override
-        protected void validate() {
-            for (char c : value.toCharArray()) {
-                if (c > 127) {
-                    throw new IllegalArgumentException("Invalid character in IA5String: " + c);
-                }
-            }
+        IA5String(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.IA5_STRING, Alphabet.IA5);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-             writer.writePrimitive(identifier, value.getBytes(StandardCharsets.US_ASCII));
+        protected Charset charset() {
+            return StandardCharsets.US_ASCII;
         }
 
         @Override
         public IA5String fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.IA5_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected IA5String");
-            }
-            return new IA5String(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.US_ASCII));
+            return decode(node);
+        }
+
+        public static IA5String decode(ASN1Node node) throws ASN1Exception {
+            return new IA5String(contentBytes(node, ASN1Identifier.IA5_STRING, "IA5String"));
         }
     }
 
     public static class NumericString extends ASN1String {
+        public static final DERParseable<NumericString> DECODER = NumericString::decode;
+
         public NumericString(String value) {
-            super(value, ASN1Identifier.NUMERIC_STRING);
+            super(value, ASN1Identifier.NUMERIC_STRING, StandardCharsets.US_ASCII, Alphabet.NUMERIC);
         }
 
-        @Override
-        protected void validate() {
-            for (char c : value.toCharArray()) {
-                if (!(c >= '0' && c <= '9') && c != ' ') {
-                    throw new IllegalArgumentException("Invalid character in NumericString: " + c);
-                }
-            }
+        NumericString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.NUMERIC_STRING, Alphabet.NUMERIC);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-             writer.writePrimitive(identifier, value.getBytes(StandardCharsets.US_ASCII));
+        protected Charset charset() {
+            return StandardCharsets.US_ASCII;
         }
 
         @Override
         public NumericString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.NUMERIC_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected NumericString");
-            }
-            return new NumericString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.US_ASCII));
+            return decode(node);
+        }
+
+        public static NumericString decode(ASN1Node node) throws ASN1Exception {
+            return new NumericString(contentBytes(node, ASN1Identifier.NUMERIC_STRING, "NumericString"));
         }
     }
 
     public static class VisibleString extends ASN1String {
+        public static final DERParseable<VisibleString> DECODER = VisibleString::decode;
+
         public VisibleString(String value) {
-            super(value, ASN1Identifier.VISIBLE_STRING);
+            super(value, ASN1Identifier.VISIBLE_STRING, StandardCharsets.US_ASCII, Alphabet.VISIBLE);
         }
 
-        @Override
-        protected void validate() {
-            for (char c : value.toCharArray()) {
-                if (c < 32 || c > 126) {
-                    throw new IllegalArgumentException("Invalid character in VisibleString: " + c);
-                }
-            }
+        VisibleString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.VISIBLE_STRING, Alphabet.VISIBLE);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-             writer.writePrimitive(identifier, value.getBytes(StandardCharsets.US_ASCII));
+        protected Charset charset() {
+            return StandardCharsets.US_ASCII;
         }
 
         @Override
         public VisibleString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.VISIBLE_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected VisibleString");
-            }
-            return new VisibleString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.US_ASCII));
+            return decode(node);
+        }
+
+        public static VisibleString decode(ASN1Node node) throws ASN1Exception {
+            return new VisibleString(contentBytes(node, ASN1Identifier.VISIBLE_STRING, "VisibleString"));
         }
     }
 
     public static class TeletexString extends ASN1String {
+        public static final DERParseable<TeletexString> DECODER = TeletexString::decode;
+
         public TeletexString(String value) {
-            super(value, ASN1Identifier.TELETEX_STRING);
+            super(value, ASN1Identifier.TELETEX_STRING, StandardCharsets.ISO_8859_1, null);
+        }
+
+        TeletexString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.TELETEX_STRING, null);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-            writer.writePrimitive(identifier, value.getBytes(StandardCharsets.ISO_8859_1));
+        protected Charset charset() {
+            return StandardCharsets.ISO_8859_1;
         }
 
         @Override
         public TeletexString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.TELETEX_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected TeletexString");
-            }
-            return new TeletexString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.ISO_8859_1));
+            return decode(node);
+        }
+
+        public static TeletexString decode(ASN1Node node) throws ASN1Exception {
+            return new TeletexString(contentBytes(node, ASN1Identifier.TELETEX_STRING, "TeletexString"));
         }
     }
 
     public static class VideotexString extends ASN1String {
+        public static final DERParseable<VideotexString> DECODER = VideotexString::decode;
+
         public VideotexString(String value) {
-            super(value, ASN1Identifier.VIDEOTEX_STRING);
+            super(value, ASN1Identifier.VIDEOTEX_STRING, StandardCharsets.ISO_8859_1, null);
+        }
+
+        VideotexString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.VIDEOTEX_STRING, null);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-            writer.writePrimitive(identifier, value.getBytes(StandardCharsets.ISO_8859_1));
+        protected Charset charset() {
+            return StandardCharsets.ISO_8859_1;
         }
 
         @Override
         public VideotexString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.VIDEOTEX_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected VideotexString");
-            }
-            return new VideotexString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.ISO_8859_1));
+            return decode(node);
+        }
+
+        public static VideotexString decode(ASN1Node node) throws ASN1Exception {
+            return new VideotexString(contentBytes(node, ASN1Identifier.VIDEOTEX_STRING, "VideotexString"));
         }
     }
 
     public static class GraphicString extends ASN1String {
+        public static final DERParseable<GraphicString> DECODER = GraphicString::decode;
+
         public GraphicString(String value) {
-            super(value, ASN1Identifier.GRAPHIC_STRING);
+            super(value, ASN1Identifier.GRAPHIC_STRING, StandardCharsets.ISO_8859_1, null);
+        }
+
+        GraphicString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.GRAPHIC_STRING, null);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-            writer.writePrimitive(identifier, value.getBytes(StandardCharsets.ISO_8859_1));
+        protected Charset charset() {
+            return StandardCharsets.ISO_8859_1;
         }
 
         @Override
         public GraphicString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.GRAPHIC_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected GraphicString");
-            }
-            return new GraphicString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.ISO_8859_1));
+            return decode(node);
+        }
+
+        public static GraphicString decode(ASN1Node node) throws ASN1Exception {
+            return new GraphicString(contentBytes(node, ASN1Identifier.GRAPHIC_STRING, "GraphicString"));
         }
     }
 
     public static class GeneralString extends ASN1String {
+        public static final DERParseable<GeneralString> DECODER = GeneralString::decode;
+
         public GeneralString(String value) {
-            super(value, ASN1Identifier.GENERAL_STRING);
+            super(value, ASN1Identifier.GENERAL_STRING, StandardCharsets.ISO_8859_1, null);
+        }
+
+        GeneralString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.GENERAL_STRING, null);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-            writer.writePrimitive(identifier, value.getBytes(StandardCharsets.ISO_8859_1));
+        protected Charset charset() {
+            return StandardCharsets.ISO_8859_1;
         }
 
         @Override
         public GeneralString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.GENERAL_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected GeneralString");
-            }
-            return new GeneralString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.ISO_8859_1));
+            return decode(node);
+        }
+
+        public static GeneralString decode(ASN1Node node) throws ASN1Exception {
+            return new GeneralString(contentBytes(node, ASN1Identifier.GENERAL_STRING, "GeneralString"));
         }
     }
 
     public static class UniversalString extends ASN1String {
+        public static final DERParseable<UniversalString> DECODER = UniversalString::decode;
+
         public UniversalString(String value) {
-            super(value, ASN1Identifier.UNIVERSAL_STRING);
+            super(value, ASN1Identifier.UNIVERSAL_STRING, UTF_32BE, null);
+        }
+
+        UniversalString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.UNIVERSAL_STRING, null);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-            try {
-                writer.writePrimitive(identifier, value.getBytes("UTF-32BE"));
-            } catch (java.io.UnsupportedEncodingException e) {
-                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "UTF-32BE not supported");
-            }
+        protected Charset charset() {
+            return UTF_32BE;
         }
 
         @Override
         public UniversalString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.UNIVERSAL_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected UniversalString");
-            }
-            try {
-                return new UniversalString(new String(((ASN1Node.Primitive) node.content).data, "UTF-32BE"));
-            } catch (java.io.UnsupportedEncodingException e) {
-                 throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "UTF-32BE not supported");
-            }
+            return decode(node);
+        }
+
+        public static UniversalString decode(ASN1Node node) throws ASN1Exception {
+            return new UniversalString(contentBytes(node, ASN1Identifier.UNIVERSAL_STRING, "UniversalString"));
         }
     }
 
     public static class BMPString extends ASN1String {
+        public static final DERParseable<BMPString> DECODER = BMPString::decode;
+
         public BMPString(String value) {
-            super(value, ASN1Identifier.BMP_STRING);
+            super(value, ASN1Identifier.BMP_STRING, StandardCharsets.UTF_16BE, null);
+        }
+
+        BMPString(byte[] bytes) throws ASN1Exception {
+            super(bytes, ASN1Identifier.BMP_STRING, null);
         }
 
         @Override
-        public void serialize(DERWriter writer) throws ASN1Exception {
-            writer.writePrimitive(identifier, value.getBytes(StandardCharsets.UTF_16BE));
+        protected Charset charset() {
+            return StandardCharsets.UTF_16BE;
         }
 
         @Override
         public BMPString fromDERNode(ASN1Node node) throws ASN1Exception {
-            if (!node.identifier.equals(ASN1Identifier.BMP_STRING)) {
-                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected BMPString");
-            }
-            return new BMPString(new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.UTF_16BE));
+            return decode(node);
+        }
+
+        public static BMPString decode(ASN1Node node) throws ASN1Exception {
+            return new BMPString(contentBytes(node, ASN1Identifier.BMP_STRING, "BMPString"));
         }
     }
 }
@@ -1,87 +1,332 @@
 package com.iho.asn1;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.nio.charset.StandardCharsets;
 
 public abstract class ASN1Time implements DERParseable<ASN1Time>, DERSerializable {
-    public final ZonedDateTime value;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final long epochSecond;
+    private final int nano;
+    // Built only when a caller asks for it; decoding works purely on the epoch fields
+    private ZonedDateTime value;
     protected final ASN1Identifier identifier;
 
     protected ASN1Time(ZonedDateTime value, ASN1Identifier identifier) {
         this.value = value;
         this.identifier = identifier;
+        if (value != null) {
+            this.epochSecond = value.toEpochSecond();
+            this.nano = value.getNano();
+        } else {
+            this.epochSecond = 0;
+            this.nano = 0;
+        }
+    }
+
+    protected ASN1Time(long epochSecond, int nano, ASN1Identifier identifier) {
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.identifier = identifier;
+    }
+
+    public ZonedDateTime value() {
+        ZonedDateTime result = value;
+        if (result == null) {
+            result = ZonedDateTime.ofInstant(toInstant(), ZoneOffset.UTC);
+            value = result;
+        }
+        return result;
+    }
+
+    public long epochSecond() {
+        return epochSecond;
+    }
+
+    public int nano() {
+        return nano;
+    }
+
+    public Instant toInstant() {
+        return Instant.ofEpochSecond(epochSecond, nano);
+    }
+
+    public int compareTo(Instant instant) {
+        int result = Long.compare(epochSecond, instant.getEpochSecond());
+        return result != 0 ? result : Integer.compare(nano, instant.getNano());
+    }
+
+    public boolean isBefore(Instant instant) {
+        return compareTo(instant) < 0;
+    }
+
+    public boolean isAfter(Instant instant) {
+        return compareTo(instant) > 0;
+    }
+
+    public static int compareEncoded(ASN1Node node, Instant instant) throws ASN1Exception {
+        byte[] data = primitiveContent(node);
+        long seconds;
+        int nanos = 0;
+        if (node.identifier.equals(ASN1Identifier.UTC_TIME)) {
+            seconds = parseUTCTime(data);
+        } else if (node.identifier.equals(ASN1Identifier.GENERALIZED_TIME)) {
+            seconds = parseGeneralizedTime(data);
+            nanos = fractionNanos(data);
+        } else {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected UTCTime or GeneralizedTime, got " + node.identifier);
+        }
+        int result = Long.compare(seconds, instant.getEpochSecond());
+        return result != 0 ? result : Integer.compare(nanos, instant.getNano());
     }
 
     @Override
     public void serialize(DERWriter writer) throws ASN1Exception {
-        writer.writePrimitive(identifier, getEncodedString().getBytes(StandardCharsets.US_ASCII));
+        writer.writePrimitive(identifier, encode());
+    }
+
+    protected abstract byte[] encode() throws ASN1Exception;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + toInstant() + ")";
     }
 
-    protected abstract String getEncodedString();
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ASN1Time that = (ASN1Time) o;
+        return epochSecond == that.epochSecond && nano == that.nano;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(epochSecond) + nano;
+    }
 
     public static class GeneralizedTime extends ASN1Time {
-        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'");
+        public static final DERParseable<GeneralizedTime> DECODER = GeneralizedTime::decode;
 
         public GeneralizedTime(ZonedDateTime value) {
             super(value, ASN1Identifier.GENERALIZED_TIME);
         }
 
+        public GeneralizedTime(long epochSecond, int nano) {
+            super(epochSecond, checkNano(nano), ASN1Identifier.GENERALIZED_TIME);
+        }
+
+        // encode() assumes a nano-of-second; anything else would drop a second or emit bad fraction digits
+        private static int checkNano(int nano) {
+            if (nano < 0 || nano > 999_999_999) {
+                throw new IllegalArgumentException("nano must be in [0, 999999999]: " + nano);
+            }
+            return nano;
+        }
+
         @Override
-        protected String getEncodedString() {
-            return value.format(FORMATTER);
+        protected byte[] encode() throws ASN1Exception {
+            long days = Math.floorDiv(epochSecond(), 86400);
+            int secondOfDay = (int) Math.floorMod(epochSecond(), 86400);
+            long civil = civilFromDays(days);
+            long year = civil >> 9;
+            if (year < 0 || year > 9999) {
+                throw new ASN1Exception(ErrorCode.ValueOutOfRange, "GeneralizedTime year out of range: " + year);
+            }
+
+            // Fractional seconds carry no trailing zeros in DER
+            int fraction = nano();
+            int fractionDigits = 0;
+            if (fraction != 0) {
+                fractionDigits = 9;
+                while (fraction % 10 == 0) {
+                    fraction /= 10;
+                    fractionDigits--;
+                }
+            }
+            byte[] out = new byte[15 + (fractionDigits > 0 ? fractionDigits + 1 : 0)];
+            putDigits(out, 0, (int) year, 4);
+            putDateTime(out, 4, civil, secondOfDay);
+            int position = 14;
+            if (fractionDigits > 0) {
+                out[position++] = '.';
+                putDigits(out, position, fraction, fractionDigits);
+                position += fractionDigits;
+            }
+            out[position] = 'Z';
+            return out;
         }
 
         @Override
         public GeneralizedTime fromDERNode(ASN1Node node) throws ASN1Exception {
+            return decode(node);
+        }
+
+        public static GeneralizedTime decode(ASN1Node node) throws ASN1Exception {
             if (!node.identifier.equals(ASN1Identifier.GENERALIZED_TIME)) {
                 throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected GeneralizedTime");
             }
-            String s = new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.US_ASCII);
-            if (!s.endsWith("Z")) {
-                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "GeneralizedTime must end with Z in DER");
-            }
-            try {
-                // Simplified: assuming YYYYMMDDHHMMSSZ format as per rust-asn1 logic
-                ZonedDateTime dt = ZonedDateTime.parse(s, DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(java.time.ZoneOffset.UTC));
-                return new GeneralizedTime(dt);
-            } catch (Exception e) {
-                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Invalid GeneralizedTime format: " + s);
-            }
+            byte[] data = primitiveContent(node);
+            return new GeneralizedTime(parseGeneralizedTime(data), fractionNanos(data));
         }
     }
 
     public static class UTCTime extends ASN1Time {
-        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'");
+        public static final DERParseable<UTCTime> DECODER = UTCTime::decode;
 
         public UTCTime(ZonedDateTime value) {
             super(value, ASN1Identifier.UTC_TIME);
         }
 
+        public UTCTime(long epochSecond) {
+            super(epochSecond, 0, ASN1Identifier.UTC_TIME);
+        }
+
         @Override
-        protected String getEncodedString() {
-            return value.format(FORMATTER);
+        protected byte[] encode() throws ASN1Exception {
+            long days = Math.floorDiv(epochSecond(), 86400);
+            int secondOfDay = (int) Math.floorMod(epochSecond(), 86400);
+            long civil = civilFromDays(days);
+            long year = civil >> 9;
+            // ASN.1 UTCTime year logic: 00-49 -> 2000-2049, 50-99 -> 1950-1999
+            if (year < 1950 || year > 2049) {
+                throw new ASN1Exception(ErrorCode.ValueOutOfRange, "UTCTime year out of range: " + year);
+            }
+            if (nano() != 0) {
+                throw new ASN1Exception(ErrorCode.ValueOutOfRange, "UTCTime cannot carry fractional seconds");
+            }
+            byte[] out = new byte[13];
+            putDigits(out, 0, (int) (year % 100), 2);
+            putDateTime(out, 2, civil, secondOfDay);
+            out[12] = 'Z';
+            return out;
         }
 
         @Override
         public UTCTime fromDERNode(ASN1Node node) throws ASN1Exception {
+            return decode(node);
+        }
+
+        public static UTCTime decode(ASN1Node node) throws ASN1Exception {
             if (!node.identifier.equals(ASN1Identifier.UTC_TIME)) {
                 throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected UTCTime");
             }
-            String s = new String(((ASN1Node.Primitive) node.content).data, StandardCharsets.US_ASCII);
-            if (s.length() != 13 || !s.endsWith("Z")) {
-                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "UTCTime must be YYMMDDHHMMSSZ");
+            return new UTCTime(parseUTCTime(primitiveContent(node)));
+        }
+    }
+
+    private static byte[] primitiveContent(ASN1Node node) throws ASN1Exception {
+        if (!(node.content instanceof ASN1Node.Primitive)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Time values must be primitive");
+        }
+        return ((ASN1Node.Primitive) node.content).data;
+    }
+
+    static long parseUTCTime(byte[] data) throws ASN1Exception {
+        if (data.length != 13 || data[12] != 'Z') {
+            throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "UTCTime must be YYMMDDHHMMSSZ");
+        }
+        int yy = digits(data, 0, 2);
+        return epochSecond(yy >= 50 ? 1900 + yy : 2000 + yy, data, 2);
+    }
+
+    static long parseGeneralizedTime(byte[] data) throws ASN1Exception {
+        int length = data.length;
+        if (length < 15 || data[length - 1] != 'Z') {
+            throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "GeneralizedTime must be YYYYMMDDHHMMSS[.f]Z in DER");
+        }
+        if (length > 15) {
+            // DER fractions use '.', have at least one digit, at most nanosecond precision and no trailing zero
+            int fractionDigits = length - 16;
+            if (data[14] != '.' || fractionDigits < 1 || fractionDigits > 9 || data[length - 2] == '0') {
+                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Invalid GeneralizedTime fraction");
             }
-            try {
-                // ASN.1 UTCTime year logic: 00-49 -> 2000-2049, 50-99 -> 1950-1999
-                int year = Integer.parseInt(s.substring(0, 2));
-                int century = (year >= 50) ? 1900 : 2000;
-                String fullYearS = String.format("%02d", century / 100) + s;
-                ZonedDateTime dt = ZonedDateTime.parse(fullYearS, DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(java.time.ZoneOffset.UTC));
-                return new UTCTime(dt);
-            } catch (Exception e) {
-                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Invalid UTCTime format: " + s);
+            digits(data, 15, fractionDigits);
+        }
+        return epochSecond(digits(data, 0, 4), data, 4);
+    }
+
+    private static int fractionNanos(byte[] data) {
+        int fractionDigits = data.length - 16;
+        if (fractionDigits <= 0) {
+            return 0;
+        }
+        int nanos = 0;
+        for (int i = 0; i < 9; i++) {
+            nanos = nanos * 10 + (i < fractionDigits ? data[15 + i] - '0' : 0);
+        }
+        return nanos;
+    }
+
+    private static long epochSecond(int year, byte[] data, int offset) throws ASN1Exception {
+        int month = digits(data, offset, 2);
+        int day = digits(data, offset + 2, 2);
+        int hour = digits(data, offset + 4, 2);
+        int minute = digits(data, offset + 6, 2);
+        int second = digits(data, offset + 8, 2);
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Time field out of range");
+        }
+        return daysFromCivil(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+    }
+
+    private static int digits(byte[] data, int offset, int count) throws ASN1Exception {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new ASN1Exception(ErrorCode.InvalidStringRepresentation, "Non-digit in time value");
             }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    private static long daysFromCivil(long year, int month, int day) {
+        // Proleptic Gregorian days since 1970-01-01 (H. Hinnant's algorithm)
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static long civilFromDays(long days) {
+        // Inverse of daysFromCivil, packed as year << 9 | month << 5 | day
+        days += 719468;
+        long era = Math.floorDiv(days, 146097);
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    private static void putDateTime(byte[] out, int offset, long civil, int secondOfDay) {
+        putDigits(out, offset, (int) ((civil >> 5) & 0xF), 2);
+        putDigits(out, offset + 2, (int) (civil & 0x1F), 2);
+        putDigits(out, offset + 4, secondOfDay / 3600, 2);
+        putDigits(out, offset + 6, secondOfDay / 60 % 60, 2);
+        putDigits(out, offset + 8, secondOfDay % 60, 2);
+    }
+
+    private static void putDigits(byte[] out, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
         }
     }
 }
@@ -0,0 +1,182 @@
+package com.iho.asn1;
+
+// Bulk codecs for SEQUENCE OF INTEGER / REAL / BOOLEAN backed by primitive arrays.
+// Decoding walks the element TLVs in the encoded bytes, so no per-element node or value object is built.
+public final class DERArrays {
+    private static final int INTEGER_TAG = 0x02;
+    private static final int REAL_TAG = 0x09;
+    private static final int BOOLEAN_TAG = 0x01;
+    private static final int SEQUENCE_TAG = 0x30;
+
+    private DERArrays() {}
+
+    public static DERSerializable sequenceOf(long[] values) {
+        return writer -> {
+            long contentLength = 0;
+            for (long value : values) {
+                contentLength += 2 + DERWriter.integerLength(value);
+            }
+            writer.writeHeader(ASN1Identifier.SEQUENCE, true, contentLength);
+            for (long value : values) {
+                writer.writeInteger(ASN1Identifier.INTEGER, value);
+            }
+        };
+    }
+
+    public static DERSerializable sequenceOf(double[] values) {
+        return writer -> {
+            long contentLength = 0;
+            for (double value : values) {
+                contentLength += 2 + ASN1Real.contentLength(value);
+            }
+            writer.writeHeader(ASN1Identifier.SEQUENCE, true, contentLength);
+            for (double value : values) {
+                writer.writeReal(value);
+            }
+        };
+    }
+
+    public static DERSerializable sequenceOf(boolean[] values) {
+        return writer -> {
+            byte[] content = new byte[values.length * 3];
+            for (int i = 0, position = 0; i < values.length; i++) {
+                content[position++] = BOOLEAN_TAG;
+                content[position++] = 1;
+                content[position++] = values[i] ? (byte) 0xFF : 0x00;
+            }
+            writer.writeHeader(ASN1Identifier.SEQUENCE, true, content.length);
+            writer.writeRaw(content);
+        };
+    }
+
+    public static long[] decodeLongs(ASN1Node sequence) throws ASN1Exception {
+        return decodeLongs(sequence.encodedBytes, contentOffset(sequence), sequence.encodedBytes.length);
+    }
+
+    public static long[] decodeLongs(byte[] der) throws ASN1Exception {
+        return decodeLongs(der, contentOffset(der), der.length);
+    }
+
+    public static double[] decodeDoubles(ASN1Node sequence) throws ASN1Exception {
+        return decodeDoubles(sequence.encodedBytes, contentOffset(sequence), sequence.encodedBytes.length);
+    }
+
+    public static double[] decodeDoubles(byte[] der) throws ASN1Exception {
+        return decodeDoubles(der, contentOffset(der), der.length);
+    }
+
+    public static boolean[] decodeBooleans(ASN1Node sequence) throws ASN1Exception {
+        return decodeBooleans(sequence.encodedBytes, contentOffset(sequence), sequence.encodedBytes.length);
+    }
+
+    public static boolean[] decodeBooleans(byte[] der) throws ASN1Exception {
+        return decodeBooleans(der, contentOffset(der), der.length);
+    }
+
+    private static long[] decodeLongs(byte[] data, int position, int end) throws ASN1Exception {
+        long[] result = new long[count(data, position, end, INTEGER_TAG)];
+        for (int i = 0; i < result.length; i++) {
+            int length = data[position + 1];
+            if (length > 8) {
+                throw new ASN1Exception(ErrorCode.ValueOutOfRange, "INTEGER at element " + i + " does not fit in a long");
+            }
+            ASN1Integer.checkMinimalEncoding(data, position + 2, length);
+            result[i] = ASN1Integer.readLong(data, position + 2, length);
+            position += 2 + length;
+        }
+        return result;
+    }
+
+    private static double[] decodeDoubles(byte[] data, int position, int end) throws ASN1Exception {
+        double[] result = new double[count(data, position, end, REAL_TAG)];
+        for (int i = 0; i < result.length; i++) {
+            int length = data[position + 1];
+            result[i] = ASN1Real.decode(data, position + 2, length);
+            position += 2 + length;
+        }
+        return result;
+    }
+
+    private static boolean[] decodeBooleans(byte[] data, int position, int end) throws ASN1Exception {
+        boolean[] result = new boolean[count(data, position, end, BOOLEAN_TAG)];
+        for (int i = 0; i < result.length; i++) {
+            if (data[position + 1] != 1) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "BOOLEAN must have length 1");
+            }
+            byte value = data[position + 2];
+            if (value != 0x00 && value != (byte) 0xFF) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "DER BOOLEAN must be 0x00 or 0xFF");
+            }
+            result[i] = value != 0;
+            position += 3;
+        }
+        return result;
+    }
+
+    // Checks every element header and returns the element count. Elements of these types never
+    // need more than 127 content bytes, so a long-form length is rejected along with any other tag.
+    private static int count(byte[] data, int position, int end, int tag) throws ASN1Exception {
+        int count = 0;
+        while (position < end) {
+            if (end - position < 2) {
+                throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Truncated element header");
+            }
+            if (data[position] != tag) {
+                throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected tag 0x" + Integer.toHexString(tag)
+                        + " at element " + count + ", got 0x" + Integer.toHexString(data[position] & 0xFF));
+            }
+            int length = data[position + 1];
+            if (length < 0) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Element " + count + " is too long for a primitive array");
+            }
+            position += 2 + length;
+            if (position > end) {
+                throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Element " + count + " exceeds the SEQUENCE content");
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static int contentOffset(ASN1Node sequence) throws ASN1Exception {
+        if (!sequence.identifier.equals(ASN1Identifier.SEQUENCE)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected SEQUENCE, got " + sequence.identifier);
+        }
+        // The parser has already checked the header, so only its size is needed
+        int lengthByte = sequence.encodedBytes[1] & 0xFF;
+        return lengthByte < 0x80 ? 2 : 2 + (lengthByte & 0x7F);
+    }
+
+    private static int contentOffset(byte[] der) throws ASN1Exception {
+        if (der.length < 2) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "SEQUENCE header missing");
+        }
+        if ((der[0] & 0xFF) != SEQUENCE_TAG) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected SEQUENCE, got tag 0x" + Integer.toHexString(der[0] & 0xFF));
+        }
+        int lengthByte = der[1] & 0xFF;
+        int offset = 2;
+        long length = lengthByte;
+        if (lengthByte >= 0x80) {
+            int numBytes = lengthByte & 0x7F;
+            if (numBytes == 0 || numBytes > 4 || der.length < 2 + numBytes) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Invalid SEQUENCE length encoding");
+            }
+            if (der[2] == 0) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field length encoded in excessive number of bytes");
+            }
+            length = 0;
+            for (int i = 0; i < numBytes; i++) {
+                length = (length << 8) | (der[offset++] & 0xFF);
+            }
+            if (length < 128) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field length encoded in long form, but DER requires short form");
+            }
+        }
+        if (length != der.length - offset) {
+            throw new ASN1Exception(length > der.length - offset ? ErrorCode.TruncatedASN1Field : ErrorCode.InvalidASN1Object,
+                    "SEQUENCE length does not match the data");
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,71 @@
+package com.iho.asn1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Maps a node to its typed value through a 256-entry table indexed by the identifier octet, which packs
+// the tag class, the constructed bit and a short tag number. Nodes without a built-in type (context or
+// application tags, long-form tags, unsupported universal types) are returned unchanged; ASN1Node is
+// itself DERSerializable, so decoded trees re-encode byte for byte, except that a REAL received in
+// decimal form is written back in binary.
+public final class DERDecoders {
+    private static final DERParseable<?>[] TABLE = new DERParseable<?>[256];
+
+    public static final DERParseable<DERSerializable> ANY = DERDecoders::decode;
+
+    static {
+        register(ASN1Identifier.BOOLEAN, false, ASN1Boolean.DECODER);
+        register(ASN1Identifier.INTEGER, false, ASN1Integer.DECODER);
+        register(ASN1Identifier.BIT_STRING, false, ASN1BitString.DECODER);
+        register(ASN1Identifier.OCTET_STRING, false, ASN1OctetString.DECODER);
+        register(ASN1Identifier.NULL, false, ASN1Null.DECODER);
+        register(ASN1Identifier.OBJECT_IDENTIFIER, false, ASN1ObjectIdentifier.DECODER);
+        register(ASN1Identifier.REAL, false, ASN1Real.DECODER);
+        register(ASN1Identifier.UTF8_STRING, false, ASN1String.UTF8String.DECODER);
+        register(ASN1Identifier.NUMERIC_STRING, false, ASN1String.NumericString.DECODER);
+        register(ASN1Identifier.PRINTABLE_STRING, false, ASN1String.PrintableString.DECODER);
+        register(ASN1Identifier.TELETEX_STRING, false, ASN1String.TeletexString.DECODER);
+        register(ASN1Identifier.VIDEOTEX_STRING, false, ASN1String.VideotexString.DECODER);
+        register(ASN1Identifier.IA5_STRING, false, ASN1String.IA5String.DECODER);
+        register(ASN1Identifier.UTC_TIME, false, ASN1Time.UTCTime.DECODER);
+        register(ASN1Identifier.GENERALIZED_TIME, false, ASN1Time.GeneralizedTime.DECODER);
+        register(ASN1Identifier.GRAPHIC_STRING, false, ASN1String.GraphicString.DECODER);
+        register(ASN1Identifier.VISIBLE_STRING, false, ASN1String.VisibleString.DECODER);
+        register(ASN1Identifier.GENERAL_STRING, false, ASN1String.GeneralString.DECODER);
+        register(ASN1Identifier.UNIVERSAL_STRING, false, ASN1String.UniversalString.DECODER);
+        register(ASN1Identifier.BMP_STRING, false, ASN1String.BMPString.DECODER);
+        register(ASN1Identifier.SEQUENCE, true, node -> new ASN1Sequence(decodeChildren(node)));
+        register(ASN1Identifier.SET, true, node -> new ASN1Set(decodeChildren(node)));
+    }
+
+    private DERDecoders() {}
+
+    private static void register(ASN1Identifier identifier, boolean constructed, DERParseable<? extends DERSerializable> decoder) {
+        TABLE[identifierOctet(identifier, constructed)] = decoder;
+    }
+
+    static int identifierOctet(ASN1Identifier identifier, boolean constructed) {
+        return identifier.tagClass.topByteFlags() & 0xFF | (constructed ? 0x20 : 0) | (int) identifier.tagNumber;
+    }
+
+    public static DERParseable<?> decoderFor(int identifierOctet) {
+        return TABLE[identifierOctet & 0xFF];
+    }
+
+    public static DERSerializable decode(ASN1Node node) throws ASN1Exception {
+        // Every ASN1Node keeps its encoding, so the identifier octet is always the first byte
+        DERParseable<?> decoder = TABLE[node.encodedBytes[0] & 0xFF];
+        if (decoder == null) {
+            return node;
+        }
+        return (DERSerializable) decoder.fromDERNode(node);
+    }
+
+    private static List<DERSerializable> decodeChildren(ASN1Node node) throws ASN1Exception {
+        List<DERSerializable> children = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) node.content) {
+            children.add(decode(child));
+        }
+        return children;
+    }
+}
@@ -0,0 +1,36 @@
+package com.iho.asn1;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// 64-bit hash of encoded bytes, eight at a time, for content-addressed lookups. Not collision resistant:
+// callers confirm a match by comparing the bytes.
+final class DERHash {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private DERHash() {}
+
+    static long hash64(byte[] bytes, int offset, int length) {
+        long h = length * 0x9E3779B97F4A7C15L;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 8 <= end; i += 8) {
+            h ^= Long.rotateLeft((long) LONGS.get(bytes, i) * C1, 31) * C2;
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729;
+        }
+        long tail = 0;
+        for (int shift = 0; i < end; i++, shift += 8) {
+            tail |= (bytes[i] & 0xFFL) << shift;
+        }
+        h ^= Long.rotateLeft(tail * C1, 31) * C2;
+        // MurmurHash3 finaliser
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
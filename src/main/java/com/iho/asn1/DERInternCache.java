@@ -0,0 +1,206 @@
+package com.iho.asn1;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Shares one decoded instance among identical encodings: issuer Names, AlgorithmIdentifiers and intermediate
+// certificates recur across large certificate sets. Entries are found by a 64-bit hash of the encoding and
+// confirmed by comparing bytes. The cache is bounded by the total weight of its keys and evicts the least
+// recently used entry first. Decoding happens outside the lock, so two threads missing on the same
+// encoding may both decode it; the first to insert wins and both return its instance.
+public final class DERInternCache<T> {
+    // Charged to each entry on top of its encoding, roughly the entry and value headers
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final DERParseable<T> decoder;
+    private final long maximumWeight;
+    private Entry<T>[] table;
+    private int size;
+    private long weight;
+    // Sentinel of the recency list: head.after is the most recently used entry, head.before the least
+    private final Entry<T> head = new Entry<>(0, null, null, 0);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public record Stats(long hits, long misses, long evictions, int size, long weight) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    // maximumWeight is in bytes of encoding plus a fixed per-entry charge
+    @SuppressWarnings("unchecked")
+    public DERInternCache(DERParseable<T> decoder, long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.decoder = decoder;
+        this.maximumWeight = maximumWeight;
+        this.table = new Entry[16];
+        head.before = head;
+        head.after = head;
+    }
+
+    // Caches the node's own encoding as the key
+    public T intern(ASN1Node node) throws ASN1Exception {
+        byte[] encoded = node.encodedBytes;
+        long hash = node.hash64();
+        synchronized (this) {
+            Entry<T> entry = find(hash, encoded, 0, encoded.length);
+            if (entry != null) {
+                hits++;
+                touch(entry);
+                return entry.value;
+            }
+            misses++;
+        }
+        return insert(hash, encoded, decoder.fromDERNode(node));
+    }
+
+    // der[offset .. offset + length) holds one encoded element; it is parsed only on a miss
+    public T intern(byte[] der, int offset, int length) throws ASN1Exception {
+        long hash = DERHash.hash64(der, offset, length);
+        synchronized (this) {
+            Entry<T> entry = find(hash, der, offset, length);
+            if (entry != null) {
+                hits++;
+                touch(entry);
+                return entry.value;
+            }
+            misses++;
+        }
+        ASN1Node node = DERParser.parse(der, offset, length);
+        return insert(hash, node.encodedBytes, decoder.fromDERNode(node));
+    }
+
+    // For the slices CertificateView hands out
+    public T intern(ByteBuffer der) throws ASN1Exception {
+        if (der.hasArray()) {
+            return intern(der.array(), der.arrayOffset() + der.position(), der.remaining());
+        }
+        byte[] bytes = new byte[der.remaining()];
+        der.duplicate().get(bytes);
+        return intern(bytes, 0, bytes.length);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, size, weight);
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(table, null);
+        head.before = head;
+        head.after = head;
+        size = 0;
+        weight = 0;
+    }
+
+    private synchronized T insert(long hash, byte[] key, T value) {
+        Entry<T> existing = find(hash, key, 0, key.length);
+        if (existing != null) {
+            touch(existing);
+            return existing.value;
+        }
+        long entryWeight = (long) key.length + ENTRY_OVERHEAD;
+        if (entryWeight > maximumWeight) {
+            return value;
+        }
+        Entry<T> entry = new Entry<>(hash, key, value, (int) entryWeight);
+        int index = index(hash, table.length);
+        entry.next = table[index];
+        table[index] = entry;
+        linkFirst(entry);
+        size++;
+        weight += entryWeight;
+        if (size > table.length - (table.length >>> 2)) {
+            resize();
+        }
+        while (weight > maximumWeight) {
+            remove(head.before);
+            evictions++;
+        }
+        return value;
+    }
+
+    private Entry<T> find(long hash, byte[] bytes, int offset, int length) {
+        for (Entry<T> entry = table[index(hash, table.length)]; entry != null; entry = entry.next) {
+            if (entry.hash == hash && Arrays.equals(entry.key, 0, entry.key.length, bytes, offset, offset + length)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void touch(Entry<T> entry) {
+        if (head.after != entry) {
+            unlink(entry);
+            linkFirst(entry);
+        }
+    }
+
+    private void linkFirst(Entry<T> entry) {
+        entry.before = head;
+        entry.after = head.after;
+        head.after.before = entry;
+        head.after = entry;
+    }
+
+    private void unlink(Entry<T> entry) {
+        entry.before.after = entry.after;
+        entry.after.before = entry.before;
+    }
+
+    private void remove(Entry<T> entry) {
+        unlink(entry);
+        int index = index(entry.hash, table.length);
+        if (table[index] == entry) {
+            table[index] = entry.next;
+        } else {
+            Entry<T> previous = table[index];
+            while (previous.next != entry) {
+                previous = previous.next;
+            }
+            previous.next = entry.next;
+        }
+        size--;
+        weight -= entry.weight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        Entry<T>[] resized = new Entry[table.length * 2];
+        for (Entry<T> bucket : table) {
+            for (Entry<T> entry = bucket; entry != null; ) {
+                Entry<T> next = entry.next;
+                int index = index(entry.hash, resized.length);
+                entry.next = resized[index];
+                resized[index] = entry;
+                entry = next;
+            }
+        }
+        table = resized;
+    }
+
+    private static int index(long hash, int length) {
+        return (int) (hash ^ (hash >>> 32)) & (length - 1);
+    }
+
+    private static final class Entry<T> {
+        final long hash;
+        final byte[] key;
+        final T value;
+        final int weight;
+        Entry<T> next;
+        Entry<T> before;
+        Entry<T> after;
+
+        Entry(long hash, byte[] key, T value, int weight) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -34,7 +34,12 @@ public class DERParser {
     }
 
     public static ASN1Node parse(byte[] data) throws ASN1Exception {
-        ByteBuffer buffer = ByteBuffer.wrap(data);
+        return parse(data, 0, data.length);
+    }
+
+    // Parses data[offset .. offset + length); nodes copy their bytes, so the array can be reused afterwards
+    public static ASN1Node parse(byte[] data, int offset, int length) throws ASN1Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
         List<ParserNode> nodes = new ArrayList<>();
         int[] nodeCount = {0};
         
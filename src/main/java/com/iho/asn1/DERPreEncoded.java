@@ -0,0 +1,64 @@
+package com.iho.asn1;
+
+import java.util.Arrays;
+
+public final class DERPreEncoded implements DERSerializable {
+    private final byte[] encoded;
+
+    private DERPreEncoded(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    public static DERPreEncoded of(byte[] encoded) throws ASN1Exception {
+        // Parsing validates that the bytes hold exactly one well-formed DER node
+        byte[] copy = encoded.clone();
+        DERParser.parse(copy);
+        return new DERPreEncoded(copy);
+    }
+
+    public static DERPreEncoded of(DERSerializable value) throws ASN1Exception {
+        DERWriter writer = new DERWriter();
+        value.serialize(writer);
+        return new DERPreEncoded(writer.toByteArray());
+    }
+
+    public static DERPreEncoded fromNode(ASN1Node node) {
+        // Parsed nodes are already validated, so their encoding is shared rather than re-checked
+        return new DERPreEncoded(node.encodedBytes);
+    }
+
+    public int length() {
+        return encoded.length;
+    }
+
+    public byte[] toByteArray() {
+        return encoded.clone();
+    }
+
+    public ASN1Node toNode() throws ASN1Exception {
+        return DERParser.parse(encoded);
+    }
+
+    @Override
+    public void serialize(DERWriter writer) throws ASN1Exception {
+        writer.writeRaw(encoded);
+    }
+
+    @Override
+    public String toString() {
+        return "DERPreEncoded(" + encoded.length + " bytes)";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DERPreEncoded that = (DERPreEncoded) o;
+        return Arrays.equals(encoded, that.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+}
@@ -0,0 +1,192 @@
+package com.iho.asn1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public final class DERStreamEncoder {
+    private static final int DEFAULT_RUN_BYTES = 8 << 20;
+    private static final int SPOOL_BUFFER_BYTES = 64 << 10;
+
+    private DERStreamEncoder() {}
+
+    public static long writeSequenceOf(Iterable<? extends DERSerializable> elements, OutputStream out) throws ASN1Exception, IOException {
+        return writeSequenceOf(ASN1Identifier.SEQUENCE, elements, out);
+    }
+
+    public static long writeSequenceOf(ASN1Identifier identifier, Iterable<? extends DERSerializable> elements, OutputStream out) throws ASN1Exception, IOException {
+        // The source is replayable, so a first pass only measures and the second pass writes
+        DERWriter scratch = new DERWriter();
+        long contentLength = 0;
+        for (DERSerializable element : elements) {
+            scratch.reset();
+            element.serialize(scratch);
+            contentLength += scratch.size();
+        }
+
+        byte[] header = DERWriter.encodeHeader(identifier, true, contentLength);
+        out.write(header);
+        long written = 0;
+        for (DERSerializable element : elements) {
+            scratch.reset();
+            element.serialize(scratch);
+            scratch.writeTo(out);
+            written += scratch.size();
+        }
+        if (written != contentLength) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Elements changed between length pass and write pass");
+        }
+        return header.length + contentLength;
+    }
+
+    public static long writeSequenceOf(Iterator<? extends DERSerializable> elements, OutputStream out) throws ASN1Exception, IOException {
+        return writeSequenceOf(ASN1Identifier.SEQUENCE, elements, out);
+    }
+
+    public static long writeSequenceOf(ASN1Identifier identifier, Iterator<? extends DERSerializable> elements, OutputStream out) throws ASN1Exception, IOException {
+        // A one-shot source is spooled to disk so the header can be written before the content
+        Path spool = Files.createTempFile("der-sequence-", ".spool");
+        try {
+            DERWriter scratch = new DERWriter();
+            long contentLength = 0;
+            try (OutputStream spoolOut = new BufferedOutputStream(Files.newOutputStream(spool), SPOOL_BUFFER_BYTES)) {
+                while (elements.hasNext()) {
+                    scratch.reset();
+                    elements.next().serialize(scratch);
+                    scratch.writeTo(spoolOut);
+                    contentLength += scratch.size();
+                }
+            }
+
+            byte[] header = DERWriter.encodeHeader(identifier, true, contentLength);
+            out.write(header);
+            Files.copy(spool, out);
+            return header.length + contentLength;
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    public static long writeSetOf(Iterator<? extends DERSerializable> elements, OutputStream out) throws ASN1Exception, IOException {
+        return writeSetOf(ASN1Identifier.SET, elements, out, DEFAULT_RUN_BYTES);
+    }
+
+    public static long writeSetOf(ASN1Identifier identifier, Iterator<? extends DERSerializable> elements, OutputStream out, int runBytes) throws ASN1Exception, IOException {
+        // DER orders SET OF components by their encodings, so sort bounded runs and merge them
+        List<Path> runs = new ArrayList<>();
+        try {
+            DERWriter scratch = new DERWriter();
+            List<byte[]> run = new ArrayList<>();
+            long runSize = 0;
+            long contentLength = 0;
+            while (elements.hasNext()) {
+                scratch.reset();
+                elements.next().serialize(scratch);
+                byte[] encoded = scratch.toByteArray();
+                run.add(encoded);
+                runSize += encoded.length;
+                contentLength += encoded.length;
+                if (runSize >= runBytes) {
+                    runs.add(spillRun(run));
+                    run.clear();
+                    runSize = 0;
+                }
+            }
+            run.sort(Arrays::compareUnsigned);
+
+            byte[] header = DERWriter.encodeHeader(identifier, true, contentLength);
+            out.write(header);
+            if (runs.isEmpty()) {
+                for (byte[] encoded : run) {
+                    out.write(encoded);
+                }
+            } else {
+                if (!run.isEmpty()) {
+                    runs.add(spillRun(run));
+                }
+                mergeRuns(runs, out);
+            }
+            return header.length + contentLength;
+        } finally {
+            for (Path path : runs) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static Path spillRun(List<byte[]> run) throws IOException {
+        run.sort(Arrays::compareUnsigned);
+        Path path = Files.createTempFile("der-set-run-", ".spool");
+        try (DataOutputStream runOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), SPOOL_BUFFER_BYTES))) {
+            for (byte[] encoded : run) {
+                runOut.writeInt(encoded.length);
+                runOut.write(encoded);
+            }
+        }
+        return path;
+    }
+
+    private static void mergeRuns(List<Path> runs, OutputStream out) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(), (a, b) -> Arrays.compareUnsigned(a.head, b.head));
+        // Every reader opened, so one polled from the queue is still closed when a write or read fails
+        List<RunReader> opened = new ArrayList<>(runs.size());
+        try {
+            for (Path path : runs) {
+                RunReader reader = new RunReader(Files.newInputStream(path));
+                opened.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                out.write(reader.head);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : opened) {
+                reader.close();
+            }
+        }
+    }
+
+    private static final class RunReader {
+        private final DataInputStream in;
+        private byte[] head;
+
+        RunReader(InputStream in) {
+            this.in = new DataInputStream(new BufferedInputStream(in, SPOOL_BUFFER_BYTES));
+        }
+
+        boolean advance() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                head = null;
+                return false;
+            }
+            head = new byte[length];
+            in.readFully(head);
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
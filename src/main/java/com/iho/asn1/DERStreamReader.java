@@ -0,0 +1,448 @@
+package com.iho.asn1;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+// Pull parser over an InputStream for documents too large to hold as a tree. next() reads the header of the
+// following element at the current level; the caller then enters it, reads its content, or moves on, in
+// which case the content is skipped without being buffered. Memory use is the read buffer plus the
+// per-level end offsets, whatever the document size.
+//
+// Taps receive the exact encoding of a chosen element, header included, as the reader passes over it: a
+// TBSCertList can be digested for signature verification while its entries are streamed. Bytes go to the
+// tap straight from the read buffer, before it is refilled, so the signed region is never copied.
+public final class DERStreamReader implements Closeable {
+    private static final int MAXIMUM_NODE_DEPTH = 50;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    // Absolute offset of buffer[0]
+    private long bufferOffset;
+
+    // End offset of each entered element; level 0 runs to the end of the stream
+    private final long[] ends = new long[MAXIMUM_NODE_DEPTH + 1];
+    // Position of the current element among its siblings at each level
+    private final int[] indexes = new int[MAXIMUM_NODE_DEPTH + 1];
+    private int depth;
+
+    private final List<PendingTap> pending = new ArrayList<>();
+    private final List<ActiveTap> active = new ArrayList<>();
+
+    // Current element
+    private final byte[] header = new byte[20];
+    private int headerLength;
+    private long elementOffset;
+    private long contentEnd;
+    private long tagNumber;
+    private TagClass tagClass;
+    private boolean constructed;
+    private ASN1Identifier identifier;
+    private boolean current;
+
+    public DERStreamReader(InputStream in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    public DERStreamReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.ends[0] = Long.MAX_VALUE;
+        this.indexes[0] = -1;
+    }
+
+    @FunctionalInterface
+    public interface Tap {
+        void update(byte[] bytes, int offset, int length) throws IOException;
+
+        static Tap of(MessageDigest digest) {
+            return digest::update;
+        }
+
+        // A SignatureException, which only an uninitialised Signature throws, surfaces as an IOException
+        static Tap of(Signature signature) {
+            return (bytes, offset, length) -> {
+                try {
+                    signature.update(bytes, offset, length);
+                } catch (SignatureException e) {
+                    throw new IOException(e);
+                }
+            };
+        }
+    }
+
+    // Feeds the element at path to the tap once the reader reaches it. The path holds sibling indices from
+    // the top level down, so {0, 0} is the TBSCertificate or TBSCertList of the first document. The tap
+    // only fires if the caller enters every element above it.
+    public void tap(Tap tap, int... path) {
+        if (path.length == 0 || path.length > MAXIMUM_NODE_DEPTH + 1) {
+            throw new IllegalArgumentException("Tap path must name an element");
+        }
+        pending.add(new PendingTap(tap, path.clone()));
+    }
+
+    // Feeds the current element to the tap; its content must not have been read yet
+    public void tapCurrent(Tap tap) throws IOException {
+        requireCurrent();
+        if (offset() != elementOffset + headerLength) {
+            throw new IllegalStateException("Content of the current element was already read");
+        }
+        startTap(tap);
+    }
+
+    // Moves to the next element at the current level, skipping whatever is left of the current one.
+    // Returns false at the end of the entered element, or at the end of the stream on the top level.
+    public boolean next() throws IOException, ASN1Exception {
+        if (current) {
+            discard(contentEnd - offset());
+            current = false;
+        }
+        if (!active.isEmpty()) {
+            feed();
+        }
+        long end = ends[depth];
+        if (offset() == end || (depth == 0 && !fill())) {
+            return false;
+        }
+
+        elementOffset = offset();
+        headerLength = 0;
+        int first = headerByte(end);
+        constructed = (first & 0x20) != 0;
+        tagClass = TagClass.fromTopByte((byte) first);
+        identifier = null;
+        if ((first & 0x1F) == 0x1F) {
+            long number = 0;
+            int b;
+            do {
+                b = headerByte(end);
+                if ((number & 0xFE00000000000000L) != 0) {
+                    throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Base-128 integer exceeds long range");
+                }
+                number = (number << 7) | (b & 0x7F);
+            } while ((b & 0x80) != 0);
+            if (number < 0x1F) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "ASN.1 tag incorrectly encoded in long form: " + number);
+            }
+            tagNumber = number;
+        } else {
+            tagNumber = first & 0x1F;
+        }
+
+        long length = headerByte(end);
+        if (length == 0x80) {
+            throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Indefinite form of field length not supported in DER.");
+        }
+        if (length > 0x80) {
+            int count = (int) length & 0x7F;
+            if (count > 8) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Length exceeds supported range");
+            }
+            length = 0;
+            for (int i = 0; i < count; i++) {
+                int b = headerByte(end);
+                if (i == 0 && b == 0) {
+                    throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field length encoded in excessive number of bytes");
+                }
+                length = (length << 8) | b;
+            }
+            if (length < 0x80) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field length encoded in long form, but DER requires short form");
+            }
+            if (length < 0) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Length exceeds supported range");
+            }
+        }
+        if (length > end - offset()) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Field length exceeds the enclosing element");
+        }
+        contentEnd = offset() + length;
+        current = true;
+        indexes[depth]++;
+        if (!pending.isEmpty()) {
+            startPendingTaps();
+        }
+        return true;
+    }
+
+    // Descends into the current constructed element; next() then walks its children
+    public void enter() throws ASN1Exception {
+        if (!current || !constructed) {
+            throw new IllegalStateException("No constructed element to enter");
+        }
+        if (depth == MAXIMUM_NODE_DEPTH) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Excessive stack depth was reached");
+        }
+        ends[++depth] = contentEnd;
+        indexes[depth] = -1;
+        current = false;
+    }
+
+    // Skips the rest of the entered element and returns to its parent's level
+    public void exit() throws IOException, ASN1Exception {
+        if (depth == 0) {
+            throw new IllegalStateException("No entered element to exit");
+        }
+        discard(ends[depth] - offset());
+        current = false;
+        depth--;
+        if (!active.isEmpty()) {
+            feed();
+        }
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    // Absolute offset of the next unread byte
+    public long offset() {
+        return bufferOffset + position;
+    }
+
+    // Absolute offset of the current element's identifier octet
+    public long elementOffset() {
+        return elementOffset;
+    }
+
+    public int identifierOctet() {
+        return header[0] & 0xFF;
+    }
+
+    public ASN1Identifier identifier() {
+        if (identifier == null) {
+            identifier = new ASN1Identifier(tagNumber, tagClass);
+        }
+        return identifier;
+    }
+
+    public boolean isConstructed() {
+        return constructed;
+    }
+
+    public long length() {
+        return contentEnd - elementOffset - headerLength;
+    }
+
+    // Reads the current element's content into a new array
+    public byte[] readContent() throws IOException, ASN1Exception {
+        requireCurrent();
+        byte[] content = new byte[checkedLength()];
+        take(content, 0, content.length);
+        current = false;
+        return content;
+    }
+
+    // Reads the current element's content into dst, returning its length; for small fields read in a loop
+    public int readContent(byte[] dst, int offset) throws IOException, ASN1Exception {
+        requireCurrent();
+        long length = contentEnd - offset();
+        if (length > dst.length - offset) {
+            throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field of " + length + " bytes does not fit the buffer");
+        }
+        take(dst, offset, (int) length);
+        current = false;
+        return (int) length;
+    }
+
+    // Reads the whole current element, header included, into a new array
+    public byte[] readElement() throws IOException, ASN1Exception {
+        requireCurrent();
+        if (offset() != elementOffset + headerLength) {
+            throw new IllegalStateException("Content of the current element was already read");
+        }
+        int length = checkedLength();
+        byte[] element = new byte[headerLength + length];
+        System.arraycopy(header, 0, element, 0, headerLength);
+        take(element, headerLength, length);
+        current = false;
+        return element;
+    }
+
+    // Parses the current element as a tree; meant for the small parts of a large document
+    public ASN1Node readNode() throws IOException, ASN1Exception {
+        return DERParser.parse(readElement());
+    }
+
+    // Streams the current element's content; anything left unread is skipped by next()
+    public InputStream contentStream() {
+        requireCurrent();
+        long end = contentEnd;
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if (offset() >= end) {
+                    return -1;
+                }
+                if (position == limit && !fill()) {
+                    throw new EOFException("Stream ended inside a DER element");
+                }
+                return buffer[position++] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                long remaining = end - offset();
+                if (remaining <= 0) {
+                    return -1;
+                }
+                if (position == limit && !fill()) {
+                    throw new EOFException("Stream ended inside a DER element");
+                }
+                int n = (int) Math.min(Math.min(len, remaining), limit - position);
+                System.arraycopy(buffer, position, b, off, n);
+                position += n;
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void requireCurrent() {
+        if (!current) {
+            throw new IllegalStateException("No current element; call next() first");
+        }
+    }
+
+    private int checkedLength() throws ASN1Exception {
+        long length = contentEnd - offset();
+        if (length > Integer.MAX_VALUE - 32) {
+            throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field of " + length + " bytes is too large to read into memory");
+        }
+        return (int) length;
+    }
+
+    private int headerByte(long end) throws IOException, ASN1Exception {
+        if (offset() == end || (position == limit && !fill())) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Truncated DER header");
+        }
+        if (headerLength == header.length) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "DER header too long");
+        }
+        int b = buffer[position++] & 0xFF;
+        header[headerLength++] = (byte) b;
+        return b;
+    }
+
+    private void take(byte[] dst, int offset, int length) throws IOException, ASN1Exception {
+        while (length > 0) {
+            if (position == limit && !fill()) {
+                throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Stream ended inside a DER element");
+            }
+            int n = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, dst, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+        if (!active.isEmpty()) {
+            feed();
+        }
+    }
+
+    private void discard(long count) throws IOException, ASN1Exception {
+        while (count > 0) {
+            if (position == limit && active.isEmpty()) {
+                // Let the stream skip large gaps itself; reading is the fallback when it cannot, and taps
+                // need the bytes
+                long skipped = in.skip(count);
+                if (skipped > 0) {
+                    bufferOffset += skipped;
+                    count -= skipped;
+                    continue;
+                }
+            }
+            if (position == limit && !fill()) {
+                throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Stream ended inside a DER element");
+            }
+            int n = (int) Math.min(count, limit - position);
+            position += n;
+            count -= n;
+        }
+    }
+
+    // Refills an exhausted buffer; false at the end of the stream
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        if (!active.isEmpty()) {
+            feed();
+        }
+        bufferOffset += limit;
+        position = limit = 0;
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private void startPendingTaps() throws IOException {
+        for (Iterator<PendingTap> it = pending.iterator(); it.hasNext(); ) {
+            PendingTap tap = it.next();
+            if (tap.path.length == depth + 1 && Arrays.equals(tap.path, 0, depth + 1, indexes, 0, depth + 1)) {
+                it.remove();
+                startTap(tap.tap);
+            }
+        }
+    }
+
+    // The header was already consumed, so it comes from its copy; the content follows from the buffer
+    private void startTap(Tap tap) throws IOException {
+        tap.update(header, 0, headerLength);
+        if (contentEnd > offset()) {
+            active.add(new ActiveTap(tap, offset(), contentEnd));
+        }
+    }
+
+    // Hands each active tap the bytes consumed since its last update; called before the buffer is reused
+    private void feed() throws IOException {
+        long consumed = offset();
+        for (int i = active.size() - 1; i >= 0; i--) {
+            ActiveTap tap = active.get(i);
+            long to = Math.min(consumed, tap.end);
+            if (to > tap.mark) {
+                tap.tap.update(buffer, (int) (tap.mark - bufferOffset), (int) (to - tap.mark));
+                tap.mark = to;
+            }
+            if (tap.mark == tap.end) {
+                active.remove(i);
+            }
+        }
+    }
+
+    private record PendingTap(Tap tap, int[] path) {}
+
+    private static final class ActiveTap {
+        final Tap tap;
+        // Absolute offset of the first byte not yet fed, and of the end of the element
+        long mark;
+        final long end;
+
+        ActiveTap(Tap tap, long mark, long end) {
+            this.tap = tap;
+            this.mark = mark;
+            this.end = end;
+        }
+    }
+}
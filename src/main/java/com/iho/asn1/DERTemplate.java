@@ -0,0 +1,294 @@
+package com.iho.asn1;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+public final class DERTemplate {
+    // Slots are encoded as private-class markers carrying a per-JVM random token while compiling
+    private static final ASN1Identifier MARKER = new ASN1Identifier(0x44455254L, TagClass.Private);
+    private static final byte[] TOKEN = new byte[16];
+
+    static {
+        new SecureRandom().nextBytes(TOKEN);
+    }
+
+    private final Part root;
+    private final List<String> slotNames;
+    private final int constructedCount;
+    private final int encodingCount;
+
+    private DERTemplate(Part root, List<String> slotNames, int constructedCount, int encodingCount) {
+        this.root = root;
+        this.slotNames = slotNames;
+        this.constructedCount = constructedCount;
+        this.encodingCount = encodingCount;
+    }
+
+    public static DERSerializable slot(String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] content = Arrays.copyOf(TOKEN, TOKEN.length + nameBytes.length);
+        System.arraycopy(nameBytes, 0, content, TOKEN.length, nameBytes.length);
+        return writer -> writer.writePrimitive(MARKER, content);
+    }
+
+    public static DERTemplate compile(DERSerializable prototype) throws ASN1Exception {
+        DERWriter writer = new DERWriter();
+        prototype.serialize(writer);
+        ASN1Node node = DERParser.parse(writer.toByteArray());
+
+        Set<ASN1Node> implicitSets = new HashSet<>();
+        findImplicitSets(prototype, implicitSets);
+        List<String> names = new ArrayList<>();
+        List<SlotPart> encodings = new ArrayList<>();
+        int[] constructedCount = {0};
+        Part root = compileNode(node, implicitSets, names, encodings, constructedCount);
+        if (names.isEmpty()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Template has no slots");
+        }
+        return new DERTemplate(root, Collections.unmodifiableList(names), constructedCount[0], encodings.size());
+    }
+
+    // An implicitly tagged SET no longer says SET once parsed, so these are found in the prototype's own
+    // components and matched to the parsed nodes by encoding
+    private static void findImplicitSets(DERSerializable value, Set<ASN1Node> implicitSets) throws ASN1Exception {
+        if (value instanceof ASN1Implicit implicit) {
+            if (implicit.value instanceof ASN1Set) {
+                DERWriter writer = new DERWriter();
+                implicit.serialize(writer);
+                implicitSets.add(DERParser.parse(writer.toByteArray()));
+            }
+            findImplicitSets(implicit.value, implicitSets);
+        } else if (value instanceof ASN1Explicit explicit) {
+            findImplicitSets(explicit.value, implicitSets);
+        } else if (value instanceof ASN1Sequence sequence) {
+            for (DERSerializable component : sequence.components) {
+                findImplicitSets(component, implicitSets);
+            }
+        } else if (value instanceof ASN1Set set) {
+            for (DERSerializable component : set.components) {
+                findImplicitSets(component, implicitSets);
+            }
+        }
+    }
+
+    // encodings holds one slot per distinct name and tagging, each filled once per encode
+    private static Part compileNode(ASN1Node node, Set<ASN1Node> implicitSets, List<String> names, List<SlotPart> encodings,
+                                    int[] constructedCount) {
+        if (node.content instanceof ASN1Node.Primitive) {
+            byte[] data = ((ASN1Node.Primitive) node.content).data;
+            if (data.length >= TOKEN.length && Arrays.equals(data, 0, TOKEN.length, TOKEN, 0, TOKEN.length)) {
+                String name = new String(data, TOKEN.length, data.length - TOKEN.length, StandardCharsets.UTF_8);
+                int index = names.indexOf(name);
+                if (index < 0) {
+                    index = names.size();
+                    names.add(name);
+                }
+                // A slot wrapped in ASN1Implicit carries the implicit tag instead of the marker
+                ASN1Identifier implicitIdentifier = node.identifier.equals(MARKER) ? null : node.identifier;
+                for (SlotPart slot : encodings) {
+                    if (slot.index == index && Objects.equals(slot.implicitIdentifier, implicitIdentifier)) {
+                        return slot;
+                    }
+                }
+                SlotPart slot = new SlotPart(index, implicitIdentifier, encodings.size());
+                encodings.add(slot);
+                return slot;
+            }
+            return new FixedPart(node.encodedBytes);
+        }
+
+        // The prototype's SET order was decided while slots were still markers, so SET children stay separate
+        // and are sorted again once the values are encoded
+        boolean set = node.identifier.equals(ASN1Identifier.SET) || implicitSets.contains(node);
+
+        int constructedBefore = constructedCount[0];
+        int index = constructedCount[0]++;
+        List<Part> children = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) node.content) {
+            Part part = compileNode(child, implicitSets, names, encodings, constructedCount);
+            int last = children.size() - 1;
+            if (!set && part instanceof FixedPart && last >= 0 && children.get(last) instanceof FixedPart) {
+                children.set(last, ((FixedPart) children.get(last)).concat((FixedPart) part));
+            } else {
+                children.add(part);
+            }
+        }
+        if (!containsSlot(children)) {
+            // Nothing below varies, so the whole subtree is copied as one chunk
+            constructedCount[0] = constructedBefore;
+            return new FixedPart(node.encodedBytes);
+        }
+        return new ConstructedPart(index, node.identifier, set, children.toArray(new Part[0]));
+    }
+
+    private static boolean containsSlot(List<Part> parts) {
+        for (Part part : parts) {
+            if (!(part instanceof FixedPart)) return true;
+        }
+        return false;
+    }
+
+    public List<String> slotNames() {
+        return slotNames;
+    }
+
+    public int slotIndex(String name) {
+        int index = slotNames.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown template slot: " + name);
+        }
+        return index;
+    }
+
+    public byte[] encode(DERSerializable... values) throws ASN1Exception {
+        DERWriter writer = new DERWriter();
+        encode(writer, values);
+        return writer.toByteArray();
+    }
+
+    public void encode(DERWriter writer, Map<String, ? extends DERSerializable> values) throws ASN1Exception {
+        DERSerializable[] ordered = new DERSerializable[slotNames.size()];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = values.get(slotNames.get(i));
+        }
+        encode(writer, ordered);
+    }
+
+    public void encode(DERWriter writer, DERSerializable... values) throws ASN1Exception {
+        if (values.length != slotNames.size()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Template expects " + slotNames.size() + " values, got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "No value for template slot " + slotNames.get(i));
+            }
+        }
+        Fill fill = new Fill(values, encodingCount, constructedCount);
+        fill.measure(root);
+        fill.write(root, writer);
+    }
+
+    private interface Part {}
+
+    private static final class FixedPart implements Part {
+        final byte[] bytes;
+
+        FixedPart(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        FixedPart concat(FixedPart next) {
+            byte[] joined = Arrays.copyOf(bytes, bytes.length + next.bytes.length);
+            System.arraycopy(next.bytes, 0, joined, bytes.length, next.bytes.length);
+            return new FixedPart(joined);
+        }
+    }
+
+    private static final class SlotPart implements Part {
+        final int index;
+        final ASN1Identifier implicitIdentifier;
+        final int encoding;
+
+        SlotPart(int index, ASN1Identifier implicitIdentifier, int encoding) {
+            this.index = index;
+            this.implicitIdentifier = implicitIdentifier;
+            this.encoding = encoding;
+        }
+    }
+
+    private static final class ConstructedPart implements Part {
+        final int index;
+        final ASN1Identifier identifier;
+        final boolean set;
+        final Part[] children;
+
+        ConstructedPart(int index, ASN1Identifier identifier, boolean set, Part[] children) {
+            this.index = index;
+            this.identifier = identifier;
+            this.set = set;
+            this.children = children;
+        }
+    }
+
+    private static final class Fill {
+        private final DERSerializable[] values;
+        private final DERWriter[] encodedSlots;
+        private final long[] contentLengths;
+
+        Fill(DERSerializable[] values, int encodingCount, int constructedCount) {
+            this.values = values;
+            this.encodedSlots = new DERWriter[encodingCount];
+            this.contentLengths = new long[constructedCount];
+        }
+
+        long measure(Part part) throws ASN1Exception {
+            if (part instanceof FixedPart) {
+                return ((FixedPart) part).bytes.length;
+            }
+            if (part instanceof SlotPart) {
+                return encodeSlot((SlotPart) part).size();
+            }
+            ConstructedPart constructed = (ConstructedPart) part;
+            long length = 0;
+            for (Part child : constructed.children) {
+                length += measure(child);
+            }
+            contentLengths[constructed.index] = length;
+            return DERWriter.headerLength(constructed.identifier, length) + length;
+        }
+
+        void write(Part part, DERWriter writer) throws ASN1Exception {
+            if (part instanceof FixedPart) {
+                writer.writeRaw(((FixedPart) part).bytes);
+            } else if (part instanceof SlotPart) {
+                writer.append(encodedSlots[((SlotPart) part).encoding]);
+            } else {
+                ConstructedPart constructed = (ConstructedPart) part;
+                writer.writeHeader(constructed.identifier, true, contentLengths[constructed.index]);
+                if (constructed.set) {
+                    writeSorted(constructed.children, writer);
+                } else {
+                    for (Part child : constructed.children) {
+                        write(child, writer);
+                    }
+                }
+            }
+        }
+
+        // DER orders SET components by their encodings, as ASN1Set does
+        private void writeSorted(Part[] children, DERWriter writer) throws ASN1Exception {
+            byte[][] encoded = new byte[children.length][];
+            for (int i = 0; i < children.length; i++) {
+                DERWriter child = new DERWriter();
+                write(children[i], child);
+                encoded[i] = child.toByteArray();
+            }
+            Arrays.sort(encoded, Arrays::compareUnsigned);
+            for (byte[] child : encoded) {
+                writer.writeRaw(child);
+            }
+        }
+
+        private DERWriter encodeSlot(SlotPart slot) throws ASN1Exception {
+            DERWriter encoded = encodedSlots[slot.encoding];
+            if (encoded == null) {
+                encoded = new DERWriter();
+                if (slot.implicitIdentifier != null) {
+                    encoded.writeImplicit(slot.implicitIdentifier, values[slot.index]);
+                } else {
+                    values[slot.index].serialize(encoded);
+                }
+                encodedSlots[slot.encoding] = encoded;
+            }
+            return encoded;
+        }
+    }
+}
@@ -1,12 +1,124 @@
 package com.iho.asn1;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class DERWriter {
-    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    // Payloads at least this large are kept by reference instead of being copied into the buffer
+    static final int REFERENCE_THRESHOLD = 4096;
+
+    private byte[] buffer = new byte[64];
+    private int size;
+    private List<Reference> references;
+    private long referencedBytes;
 
     public byte[] toByteArray() {
-        return buffer.toByteArray();
+        byte[] result = new byte[Math.toIntExact(size())];
+        if (references == null) {
+            System.arraycopy(buffer, 0, result, 0, size);
+            return result;
+        }
+        int inline = 0;
+        int offset = 0;
+        for (Reference reference : references) {
+            System.arraycopy(buffer, inline, result, offset, reference.anchor - inline);
+            offset += reference.anchor - inline;
+            inline = reference.anchor;
+            reference.copyTo(result, offset);
+            offset += (int) reference.length();
+        }
+        System.arraycopy(buffer, inline, result, offset, size - inline);
+        return result;
+    }
+
+    public ByteBuffer[] toByteBuffers() throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        int inline = 0;
+        if (references != null) {
+            for (Reference reference : references) {
+                if (reference.anchor > inline) {
+                    buffers.add(ByteBuffer.wrap(buffer, inline, reference.anchor - inline).asReadOnlyBuffer());
+                }
+                inline = reference.anchor;
+                reference.addBuffers(buffers);
+            }
+        }
+        if (size > inline) {
+            buffers.add(ByteBuffer.wrap(buffer, inline, size - inline).asReadOnlyBuffer());
+        }
+        return buffers.toArray(new ByteBuffer[0]);
+    }
+
+    public long size() {
+        return size + referencedBytes;
+    }
+
+    public void reset() {
+        size = 0;
+        references = null;
+        referencedBytes = 0;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (references == null) {
+            out.write(buffer, 0, size);
+        } else {
+            writeTo(Channels.newChannel(out));
+        }
+    }
+
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        int inline = 0;
+        List<ByteBuffer> pending = new ArrayList<>();
+        if (references != null) {
+            for (Reference reference : references) {
+                if (reference.anchor > inline) {
+                    pending.add(ByteBuffer.wrap(buffer, inline, reference.anchor - inline));
+                }
+                inline = reference.anchor;
+                if (reference.channel != null) {
+                    // File regions go through transferTo so the payload never enters the heap
+                    flush(channel, pending);
+                    reference.transferTo(channel);
+                } else {
+                    pending.add(reference.buffer.duplicate());
+                }
+            }
+        }
+        if (size > inline) {
+            pending.add(ByteBuffer.wrap(buffer, inline, size - inline));
+        }
+        flush(channel, pending);
+    }
+
+    private static void flush(WritableByteChannel channel, List<ByteBuffer> pending) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = pending.toArray(new ByteBuffer[0]);
+        pending.clear();
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            ByteBuffer last = buffers[buffers.length - 1];
+            while (last.hasRemaining()) {
+                gathering.write(buffers);
+            }
+        } else {
+            for (ByteBuffer b : buffers) {
+                while (b.hasRemaining()) {
+                    channel.write(b);
+                }
+            }
+        }
     }
 
     public void writeSerializable(DERSerializable value) throws ASN1Exception {
@@ -14,17 +126,126 @@ public class DERWriter {
     }
 
     public void writeRaw(byte[] bytes) {
-        buffer.writeBytes(bytes);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    public void writeRawReference(ByteBuffer bytes) {
+        if (bytes.remaining() < REFERENCE_THRESHOLD) {
+            ensureCapacity(bytes.remaining());
+            bytes.duplicate().get(buffer, size, bytes.remaining());
+            size += bytes.remaining();
+        } else {
+            addReference(new Reference(size, bytes.slice().asReadOnlyBuffer()));
+        }
     }
 
     public void writePrimitive(ASN1Identifier identifier, byte[] content) throws ASN1Exception {
         writeNode(identifier, false, content);
     }
 
+    public void writeInteger(ASN1Identifier identifier, long value) {
+        int contentLength = integerLength(value);
+        writeIdentifier(identifier, false);
+        ensureCapacity(1 + contentLength);
+        buffer[size++] = (byte) contentLength;
+        for (int i = contentLength - 1; i >= 0; i--) {
+            buffer[size++] = (byte) (value >> (i * 8));
+        }
+    }
+
+    public void writeBoolean(ASN1Identifier identifier, boolean value) {
+        writeIdentifier(identifier, false);
+        ensureCapacity(2);
+        buffer[size++] = 1;
+        buffer[size++] = value ? (byte) 0xFF : 0x00;
+    }
+
+    static int integerLength(long value) {
+        // Minimal two's complement: the magnitude bits plus one sign bit, rounded up to whole bytes
+        return (64 - Long.numberOfLeadingZeros(value ^ (value >> 63))) / 8 + 1;
+    }
+
+    public void writeReal(double value) throws ASN1Exception {
+        int contentLength = ASN1Real.contentLength(value);
+        writeIdentifier(ASN1Identifier.REAL, false);
+        ensureCapacity(1 + contentLength);
+        buffer[size++] = (byte) contentLength;
+        size = ASN1Real.putContent(value, buffer, size);
+    }
+
+    void writeBitString(int paddingBits, byte[] array, int offset, int length) {
+        // The padding count goes in front of the payload without assembling a combined array
+        writeHeader(ASN1Identifier.BIT_STRING, false, 1L + length);
+        ensureCapacity(1);
+        buffer[size++] = (byte) paddingBits;
+        writeRawReference(ByteBuffer.wrap(array, offset, length));
+    }
+
+    public void writePrimitiveReference(ASN1Identifier identifier, ByteBuffer content) throws ASN1Exception {
+        writeIdentifier(identifier, false);
+        writeLength(content.remaining());
+        writeRawReference(content);
+    }
+
+    public void writePrimitiveReference(ASN1Identifier identifier, FileChannel channel, long position, long count) throws ASN1Exception {
+        if (position < 0 || count < 0) {
+            throw new ASN1Exception(ErrorCode.ValueOutOfRange, "Invalid file region: " + position + "+" + count);
+        }
+        writeIdentifier(identifier, false);
+        writeLength(count);
+        if (count > 0) {
+            addReference(new Reference(size, channel, position, count));
+        }
+    }
+
     public void writeConstructed(ASN1Identifier identifier, DERSerializable content) throws ASN1Exception {
         DERWriter nested = new DERWriter();
         content.serialize(nested);
-        writeNode(identifier, true, nested.toByteArray());
+        writeIdentifier(identifier, true);
+        writeLength(nested.size());
+        append(nested);
+    }
+
+    // Opens a constructed node and returns the mark to close it with. The length is patched in by
+    // endConstructed, so the content is written once in place rather than through a nested writer.
+    public int beginConstructed(ASN1Identifier identifier) {
+        writeIdentifier(identifier, true);
+        ensureCapacity(1);
+        buffer[size++] = 0;
+        return size;
+    }
+
+    public void endConstructed(int mark) throws ASN1Exception {
+        if (mark <= 0 || mark > size) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "No constructed node is open at " + mark);
+        }
+        long length = size - mark;
+        int firstReference = references == null ? 0 : references.size();
+        while (firstReference > 0 && references.get(firstReference - 1).anchor >= mark) {
+            firstReference--;
+            length += references.get(firstReference).length();
+        }
+        if (length <= 0x7F) {
+            buffer[mark - 1] = (byte) length;
+            return;
+        }
+
+        // Long-form length: make room after the placeholder byte and move everything written since
+        int numBytes = (64 - Long.numberOfLeadingZeros(length) + 7) / 8;
+        ensureCapacity(numBytes);
+        System.arraycopy(buffer, mark, buffer, mark + numBytes, size - mark);
+        size += numBytes;
+        if (references != null) {
+            for (int i = firstReference; i < references.size(); i++) {
+                references.get(i).anchor += numBytes;
+            }
+        }
+        buffer[mark - 1] = (byte) (0x80 | numBytes);
+        for (int i = 0; i < numBytes; i++) {
+            buffer[mark + i] = (byte) (length >> ((numBytes - 1 - i) * 8));
+        }
     }
 
     public void writeSequence(DERSerializable content) throws ASN1Exception {
@@ -35,49 +256,234 @@ public class DERWriter {
         writeConstructed(ASN1Identifier.SET, content);
     }
 
+    public void writeImplicit(ASN1Identifier identifier, DERSerializable value) throws ASN1Exception {
+        int start = size;
+        int firstReference = references == null ? 0 : references.size();
+        long startLength = size();
+        value.serialize(this);
+        if (startLength == size()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Implicitly tagged value produced no encoding");
+        }
+
+        // Locate the header the value just wrote and make sure it is the only node
+        int identifierEnd = start + 1;
+        if (start < size && (buffer[start] & 0x1F) == 0x1F) {
+            while (identifierEnd < size && (buffer[identifierEnd] & 0x80) != 0) identifierEnd++;
+            identifierEnd++;
+        }
+        if (identifierEnd >= size || headerInterrupted(firstReference, identifierEnd)) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Implicitly tagged value has a truncated header");
+        }
+        int lengthEnd = identifierEnd + 1;
+        long length = buffer[identifierEnd] & 0xFF;
+        if (length > 0x7F) {
+            int numBytes = (int) length & 0x7F;
+            length = 0;
+            for (int i = 0; i < numBytes && lengthEnd < size; i++) {
+                length = (length << 8) | (buffer[lengthEnd++] & 0xFF);
+            }
+        }
+        if (headerInterrupted(firstReference, lengthEnd) || startLength + (lengthEnd - start) + length != size()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Implicitly tagged value must encode exactly one node");
+        }
+
+        // Swap the identifier in place, shifting the length and content only if its size changed
+        boolean constructed = (buffer[start] & 0x20) != 0;
+        int oldLength = identifierEnd - start;
+        int newLength = identifierLength(identifier);
+        if (newLength != oldLength) {
+            ensureCapacity(newLength - oldLength);
+            System.arraycopy(buffer, identifierEnd, buffer, start + newLength, size - identifierEnd);
+            size += newLength - oldLength;
+            if (references != null) {
+                for (int i = firstReference; i < references.size(); i++) {
+                    references.get(i).anchor += newLength - oldLength;
+                }
+            }
+        }
+        putIdentifier(start, identifier, constructed);
+    }
+
+    private boolean headerInterrupted(int firstReference, int headerEnd) {
+        return references != null && references.size() > firstReference && references.get(firstReference).anchor < headerEnd;
+    }
+
     void writeNode(ASN1Identifier identifier, boolean constructed, byte[] content) throws ASN1Exception {
         writeIdentifier(identifier, constructed);
         writeLength(content.length);
-        buffer.writeBytes(content);
+        writeRaw(content);
+    }
+
+    static byte[] encodeHeader(ASN1Identifier identifier, boolean constructed, long length) {
+        DERWriter header = new DERWriter();
+        header.writeHeader(identifier, constructed, length);
+        return header.toByteArray();
+    }
+
+    void writeHeader(ASN1Identifier identifier, boolean constructed, long length) {
+        writeIdentifier(identifier, constructed);
+        writeLength(length);
+    }
+
+    static int headerLength(ASN1Identifier identifier, long length) {
+        int lengthBytes = length <= 0x7F ? 1 : 1 + (64 - Long.numberOfLeadingZeros(length) + 7) / 8;
+        return identifierLength(identifier) + lengthBytes;
+    }
+
+    void append(DERWriter other) {
+        if (other.references != null) {
+            for (Reference reference : other.references) {
+                addReference(reference.rebase(size));
+            }
+        }
+        ensureCapacity(other.size);
+        System.arraycopy(other.buffer, 0, buffer, size, other.size);
+        size += other.size;
+    }
+
+    private void addReference(Reference reference) {
+        if (references == null) {
+            references = new ArrayList<>();
+        }
+        references.add(reference);
+        referencedBytes += reference.length();
+    }
+
+    private void writeIdentifier(ASN1Identifier identifier, boolean constructed) {
+        int length = identifierLength(identifier);
+        ensureCapacity(length);
+        putIdentifier(size, identifier, constructed);
+        size += length;
     }
 
-    private void writeIdentifier(ASN1Identifier identifier, boolean constructed) throws ASN1Exception {
+    private static int identifierLength(ASN1Identifier identifier) {
+        if (identifier.tagNumber < 0x1F) {
+            return 1;
+        }
+        int numBits = 64 - Long.numberOfLeadingZeros(identifier.tagNumber);
+        return 1 + (numBits + 6) / 7;
+    }
+
+    private void putIdentifier(int position, ASN1Identifier identifier, boolean constructed) {
         if (identifier.tagNumber < 0x1F) {
             byte b = (byte) identifier.tagNumber;
             if (constructed) b |= 0x20;
             b |= identifier.tagClass.topByteFlags();
-            buffer.write(b);
+            buffer[position] = b;
         } else {
             byte top = (byte) (0x1F | identifier.tagClass.topByteFlags());
             if (constructed) top |= 0x20;
-            buffer.write(top);
-            writeBase128Int(identifier.tagNumber);
+            buffer[position] = top;
+            putBase128Int(position + 1, identifier.tagNumber);
         }
     }
 
-    private void writeBase128Int(long value) {
-        if (value == 0) {
-            buffer.write(0);
-            return;
-        }
+    private void putBase128Int(int position, long value) {
         int numBits = 64 - Long.numberOfLeadingZeros(value);
         int numBytes = (numBits + 6) / 7;
         for (int i = numBytes - 1; i >= 0; i--) {
             byte b = (byte) ((value >> (i * 7)) & 0x7F);
             if (i > 0) b |= 0x80;
-            buffer.write(b);
+            buffer[position++] = b;
         }
     }
 
-    private void writeLength(int length) {
+    private void writeLength(long length) {
+        ensureCapacity(9);
         if (length <= 0x7F) {
-            buffer.write((byte) length);
+            buffer[size++] = (byte) length;
         } else {
-            int numBits = 32 - Integer.numberOfLeadingZeros(length);
+            int numBits = 64 - Long.numberOfLeadingZeros(length);
             int numBytes = (numBits + 7) / 8;
-            buffer.write((byte) (0x80 | numBytes));
+            buffer[size++] = (byte) (0x80 | numBytes);
             for (int i = numBytes - 1; i >= 0; i--) {
-                buffer.write((byte) ((length >> (i * 8)) & 0xFF));
+                buffer[size++] = (byte) ((length >> (i * 8)) & 0xFF);
+            }
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = size + additional;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+
+    private static final class Reference {
+        // Position in the inline buffer the referenced bytes are spliced in front of
+        int anchor;
+        final ByteBuffer buffer;
+        final FileChannel channel;
+        final long position;
+        final long count;
+
+        Reference(int anchor, ByteBuffer buffer) {
+            this.anchor = anchor;
+            this.buffer = buffer;
+            this.channel = null;
+            this.position = 0;
+            this.count = buffer.remaining();
+        }
+
+        Reference(int anchor, FileChannel channel, long position, long count) {
+            this.anchor = anchor;
+            this.buffer = null;
+            this.channel = channel;
+            this.position = position;
+            this.count = count;
+        }
+
+        long length() {
+            return count;
+        }
+
+        Reference rebase(int offset) {
+            if (channel != null) {
+                return new Reference(anchor + offset, channel, position, count);
+            }
+            return new Reference(anchor + offset, buffer);
+        }
+
+        void copyTo(byte[] destination, int offset) {
+            if (channel == null) {
+                buffer.duplicate().get(destination, offset, (int) count);
+                return;
+            }
+            try {
+                ByteBuffer target = ByteBuffer.wrap(destination, offset, (int) count);
+                long filePosition = position;
+                while (target.hasRemaining()) {
+                    int read = channel.read(target, filePosition);
+                    if (read < 0) {
+                        throw new IOException("File region ends before " + (position + count));
+                    }
+                    filePosition += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void addBuffers(List<ByteBuffer> buffers) throws IOException {
+            if (channel == null) {
+                buffers.add(buffer.duplicate());
+                return;
+            }
+            // Mapped regions stay off the heap; a single mapping is limited to Integer.MAX_VALUE bytes
+            for (long done = 0; done < count; ) {
+                long chunk = Math.min(count - done, Integer.MAX_VALUE);
+                buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, position + done, chunk));
+                done += chunk;
+            }
+        }
+
+        void transferTo(WritableByteChannel target) throws IOException {
+            for (long done = 0; done < count; ) {
+                long transferred = channel.transferTo(position + done, count - done, target);
+                if (transferred <= 0 && position + done >= channel.size()) {
+                    throw new IOException("File region ends before " + (position + count));
+                }
+                done += transferred;
             }
         }
     }
@@ -0,0 +1,124 @@
+package com.iho.asn1;
+
+import java.util.Arrays;
+
+public final class OIDRegistry<K> {
+    public static final class Entry<K> {
+        public final ASN1ObjectIdentifier oid;
+        public final String name;
+        public final K key;
+
+        Entry(ASN1ObjectIdentifier oid, String name, K key) {
+            this.oid = oid;
+            this.name = name;
+            this.key = key;
+        }
+
+        @Override
+        public String toString() {
+            return "OIDRegistry.Entry(" + name + ", " + oid + ")";
+        }
+    }
+
+    // Nodes are immutable; registration rebuilds the path and publishes a new root, so lookups need no locking
+    private volatile TrieNode<K> root = TrieNode.empty();
+    private int size;
+
+    public Entry<K> register(String dotted, String name, K key) throws ASN1Exception {
+        return register(new ASN1ObjectIdentifier(dotted), name, key);
+    }
+
+    public synchronized Entry<K> register(ASN1ObjectIdentifier oid, String name, K key) {
+        byte[] encoded = oid.contentBytes();
+        if (lookup(encoded, 0, encoded.length) != null) {
+            throw new IllegalArgumentException("OID already registered: " + oid);
+        }
+        Entry<K> entry = new Entry<>(oid, name, key);
+        root = root.insert(encoded, 0, entry);
+        size++;
+        return entry;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Entry<K> lookup(ASN1ObjectIdentifier oid) {
+        byte[] encoded = oid.contentBytes();
+        return lookup(encoded, 0, encoded.length);
+    }
+
+    public Entry<K> lookup(ASN1Node node) {
+        if (!node.identifier.equals(ASN1Identifier.OBJECT_IDENTIFIER) || !(node.content instanceof ASN1Node.Primitive)) {
+            return null;
+        }
+        byte[] data = ((ASN1Node.Primitive) node.content).data;
+        return lookup(data, 0, data.length);
+    }
+
+    public Entry<K> lookup(byte[] content, int offset, int length) {
+        TrieNode<K> node = root;
+        for (int i = offset; i < offset + length; i++) {
+            node = node.child(content[i]);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.entry;
+    }
+
+    public K keyOf(ASN1Node node, K unknown) {
+        Entry<K> entry = lookup(node);
+        return entry != null ? entry.key : unknown;
+    }
+
+    public ASN1ObjectIdentifier intern(ASN1Node node) throws ASN1Exception {
+        Entry<K> entry = lookup(node);
+        return entry != null ? entry.oid : ASN1ObjectIdentifier.decode(node);
+    }
+
+    private static final class TrieNode<K> {
+        // Labels are kept sorted so a child is found by binary search on the next content byte
+        final byte[] labels;
+        final TrieNode<K>[] children;
+        final Entry<K> entry;
+
+        TrieNode(byte[] labels, TrieNode<K>[] children, Entry<K> entry) {
+            this.labels = labels;
+            this.children = children;
+            this.entry = entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K> TrieNode<K> empty() {
+            return new TrieNode<>(new byte[0], new TrieNode[0], null);
+        }
+
+        TrieNode<K> child(byte label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        TrieNode<K> insert(byte[] encoded, int position, Entry<K> newEntry) {
+            if (position == encoded.length) {
+                return new TrieNode<>(labels, children, newEntry);
+            }
+            byte label = encoded[position];
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                TrieNode<K>[] updated = children.clone();
+                updated[index] = children[index].insert(encoded, position + 1, newEntry);
+                return new TrieNode<>(labels, updated, entry);
+            }
+            int insertAt = -index - 1;
+            byte[] newLabels = new byte[labels.length + 1];
+            TrieNode<K>[] newChildren = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = TrieNode.<K>empty().insert(encoded, position + 1, newEntry);
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            return new TrieNode<>(newLabels, newChildren, entry);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.iho.asn1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A labelled DER document in PEM form (RFC 7468). Encoding wraps the Base64 body at 64 characters and
+// emits LF line endings; decoding of whole files goes through PEMReader.
+public record PEMDocument(String label, byte[] derBytes) {
+    static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+    private static final int LINE_BYTES = 48;
+
+    public PEMDocument {
+        if (!isValidLabel(label)) {
+            throw new IllegalArgumentException("Invalid PEM label: " + label);
+        }
+    }
+
+    public static PEMDocument of(String label, DERSerializable value) throws ASN1Exception {
+        DERWriter writer = new DERWriter();
+        value.serialize(writer);
+        return new PEMDocument(label, writer.toByteArray());
+    }
+
+    // Exactly one block, as in a single certificate or key file
+    public static PEMDocument parse(String pem) throws ASN1Exception {
+        List<PEMDocument> documents = parseAll(pem);
+        if (documents.size() != 1) {
+            throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Expected one PEM block, found " + documents.size());
+        }
+        return documents.get(0);
+    }
+
+    public static List<PEMDocument> parseAll(String pem) throws ASN1Exception {
+        List<PEMDocument> documents = new ArrayList<>();
+        try (PEMReader reader = new PEMReader(new ByteArrayInputStream(pem.getBytes(StandardCharsets.ISO_8859_1)))) {
+            while (reader.next()) {
+                documents.add(reader.document());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return documents;
+    }
+
+    public ASN1Node parseNode() throws ASN1Exception {
+        return DERParser.parse(derBytes);
+    }
+
+    public String toPEM() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(derBytes.length * 4 / 3 + derBytes.length / 48 + 64);
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out, label);
+        encoder.update(derBytes, 0, derBytes.length);
+        encoder.finish();
+    }
+
+    // Writes the writer's output as one block without flattening payloads it holds by reference
+    public static void write(String label, DERWriter writer, OutputStream out) throws IOException {
+        if (!isValidLabel(label)) {
+            throw new IllegalArgumentException("Invalid PEM label: " + label);
+        }
+        Encoder encoder = new Encoder(out, label);
+        byte[] scratch = null;
+        for (ByteBuffer buffer : writer.toByteBuffers()) {
+            if (buffer.hasArray()) {
+                encoder.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                continue;
+            }
+            if (scratch == null) {
+                scratch = new byte[LINE_BYTES * 256];
+            }
+            ByteBuffer source = buffer.duplicate();
+            while (source.hasRemaining()) {
+                int n = Math.min(scratch.length, source.remaining());
+                source.get(scratch, 0, n);
+                encoder.update(scratch, 0, n);
+            }
+        }
+        encoder.finish();
+    }
+
+    // Printable ASCII, with single spaces or hyphens only between label characters
+    static boolean isValidLabel(String label) {
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            boolean separator = c == ' ' || c == '-';
+            if (c < 0x20 || c > 0x7E
+                    || (separator && (i == 0 || i == label.length() - 1 || label.charAt(i - 1) == ' ' || label.charAt(i - 1) == '-'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PEMDocument other && label.equals(other.label) && Arrays.equals(derBytes, other.derBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * label.hashCode() + Arrays.hashCode(derBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "PEMDocument[" + label + ", " + derBytes.length + " bytes]";
+    }
+
+    // Base64 in whole 48-byte lines, carrying a partial line across update() calls
+    private static final class Encoder {
+        private final OutputStream out;
+        private final String label;
+        private final byte[] pending = new byte[LINE_BYTES];
+        private int pendingLength;
+        // 64 lines of 64 characters and a newline
+        private final byte[] text = new byte[64 * 65];
+        private int textLength;
+
+        Encoder(OutputStream out, String label) throws IOException {
+            this.out = out;
+            this.label = label;
+            out.write(("-----BEGIN " + label + "-----\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        void update(byte[] bytes, int offset, int length) throws IOException {
+            if (pendingLength > 0) {
+                int n = Math.min(length, LINE_BYTES - pendingLength);
+                System.arraycopy(bytes, offset, pending, pendingLength, n);
+                pendingLength += n;
+                offset += n;
+                length -= n;
+                if (pendingLength < LINE_BYTES) {
+                    return;
+                }
+                line(pending, 0, LINE_BYTES);
+                pendingLength = 0;
+            }
+            while (length >= LINE_BYTES) {
+                line(bytes, offset, LINE_BYTES);
+                offset += LINE_BYTES;
+                length -= LINE_BYTES;
+            }
+            System.arraycopy(bytes, offset, pending, 0, length);
+            pendingLength = length;
+        }
+
+        void finish() throws IOException {
+            if (pendingLength > 0) {
+                line(pending, 0, pendingLength);
+            }
+            out.write(text, 0, textLength);
+            out.write(("-----END " + label + "-----\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private void line(byte[] bytes, int offset, int length) throws IOException {
+            if (textLength == text.length) {
+                out.write(text, 0, textLength);
+                textLength = 0;
+            }
+            byte[] t = text;
+            int n = textLength;
+            int end = offset + length - length % 3;
+            for (int i = offset; i < end; i += 3) {
+                int bits = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+                t[n++] = ALPHABET[bits >>> 18];
+                t[n++] = ALPHABET[(bits >>> 12) & 0x3F];
+                t[n++] = ALPHABET[(bits >>> 6) & 0x3F];
+                t[n++] = ALPHABET[bits & 0x3F];
+            }
+            if (length % 3 == 1) {
+                int bits = (bytes[end] & 0xFF) << 16;
+                t[n++] = ALPHABET[bits >>> 18];
+                t[n++] = ALPHABET[(bits >>> 12) & 0x3F];
+                t[n++] = '=';
+                t[n++] = '=';
+            } else if (length % 3 == 2) {
+                int bits = (bytes[end] & 0xFF) << 16 | (bytes[end + 1] & 0xFF) << 8;
+                t[n++] = ALPHABET[bits >>> 18];
+                t[n++] = ALPHABET[(bits >>> 12) & 0x3F];
+                t[n++] = ALPHABET[(bits >>> 6) & 0x3F];
+                t[n++] = '=';
+            }
+            t[n++] = '\n';
+            textLength = n;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.iho.asn1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Reads the blocks of a PEM file or bundle (RFC 7468) one at a time. Lines are scanned in the input buffer
+// and Base64 is decoded straight into a DER buffer that is reused from block to block, so a bundle of any
+// size is read in one pass without building a String per body. Text outside the blocks is ignored.
+public final class PEMReader implements Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // Unwrapped bodies arrive as a single line; anything beyond this is not a PEM file
+    private static final int MAXIMUM_LINE_LENGTH = 64 * 1024 * 1024;
+    private static final byte[] BEGIN = "-----BEGIN ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "-----END ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DASHES = "-----".getBytes(StandardCharsets.US_ASCII);
+
+    static final byte[] DECODE = new byte[256];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < PEMDocument.ALPHABET.length; i++) {
+            DECODE[PEMDocument.ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private final InputStream in;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+    private int lineStart;
+    private int lineEnd;
+    private long lineNumber;
+
+    private byte[] der = new byte[4 * 1024];
+    private int length;
+    private String label;
+
+    public PEMReader(InputStream in) {
+        this.in = in;
+    }
+
+    // Decodes the next block; false when the input holds no more
+    public boolean next() throws IOException, ASN1Exception {
+        label = null;
+        length = 0;
+        while (readLine()) {
+            if (startsWith(BEGIN) && endsWith(DASHES, lineStart + BEGIN.length)) {
+                String begin = new String(buffer, lineStart + BEGIN.length, lineEnd - lineStart - BEGIN.length - DASHES.length, StandardCharsets.US_ASCII);
+                if (!PEMDocument.isValidLabel(begin)) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": invalid label " + begin);
+                }
+                decodeBody(begin);
+                label = begin;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String label() {
+        if (label == null) {
+            throw new IllegalStateException("No current block; call next() first");
+        }
+        return label;
+    }
+
+    // The decoded DER of the current block in buffer()[0 .. length()). The array is overwritten by the
+    // following next(), so views that keep slices of it must not outlive the block.
+    public byte[] buffer() {
+        label();
+        return der;
+    }
+
+    public int length() {
+        label();
+        return length;
+    }
+
+    public byte[] derBytes() {
+        label();
+        return Arrays.copyOf(der, length);
+    }
+
+    public ASN1Node parse() throws ASN1Exception {
+        return DERParser.parse(buffer(), 0, length);
+    }
+
+    public PEMDocument document() {
+        return new PEMDocument(label(), derBytes());
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void decodeBody(String begin) throws IOException, ASN1Exception {
+        int quantum = 0;
+        int sextets = 0;
+        int padding = 0;
+        while (readLine()) {
+            if (startsWith(END)) {
+                if (!endsWith(DASHES, lineStart + END.length)
+                        || !matches(lineStart + END.length, lineEnd - DASHES.length, begin)) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": END line does not match BEGIN " + begin);
+                }
+                if (padding == 1 && sextets == 3) {
+                    ensure(2);
+                    der[length++] = (byte) (quantum >> 10);
+                    der[length++] = (byte) (quantum >> 2);
+                    quantum &= 0x03;
+                } else if (padding == 2 && sextets == 2) {
+                    ensure(1);
+                    der[length++] = (byte) (quantum >> 4);
+                    quantum &= 0x0F;
+                } else if (padding != 0 || sextets != 0) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": Base64 body is not padded to a whole quantum");
+                }
+                if (padding != 0 && quantum != 0) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": non-zero bits in the final Base64 character");
+                }
+                return;
+            }
+            ensure((lineEnd - lineStart) / 4 * 3 + 3);
+            byte[] out = der;
+            int n = length;
+            byte[] line = buffer;
+            int i = lineStart;
+            // Whole quanta of plain characters; '=' and invalid characters decode to -1 and drop to the loop below
+            if (sextets == 0 && padding == 0) {
+                while (i + 4 <= lineEnd) {
+                    int a = DECODE[line[i] & 0xFF];
+                    int b = DECODE[line[i + 1] & 0xFF];
+                    int c = DECODE[line[i + 2] & 0xFF];
+                    int d = DECODE[line[i + 3] & 0xFF];
+                    if ((a | b | c | d) < 0) {
+                        break;
+                    }
+                    int bits = a << 18 | b << 12 | c << 6 | d;
+                    out[n++] = (byte) (bits >> 16);
+                    out[n++] = (byte) (bits >> 8);
+                    out[n++] = (byte) bits;
+                    i += 4;
+                }
+            }
+            for (; i < lineEnd; i++) {
+                int c = line[i] & 0xFF;
+                if (c == '=') {
+                    if (++padding > 2) {
+                        throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": too much Base64 padding");
+                    }
+                    continue;
+                }
+                int value = DECODE[c];
+                if (value < 0) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": invalid Base64 character 0x" + Integer.toHexString(c));
+                }
+                if (padding != 0) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + lineNumber + ": Base64 data after padding");
+                }
+                quantum = (quantum << 6) | value;
+                if (++sextets == 4) {
+                    out[n++] = (byte) (quantum >> 16);
+                    out[n++] = (byte) (quantum >> 8);
+                    out[n++] = (byte) quantum;
+                    quantum = 0;
+                    sextets = 0;
+                }
+            }
+            length = n;
+        }
+        throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Input ended before END " + begin);
+    }
+
+    private void ensure(int count) {
+        if (length + count > der.length) {
+            der = Arrays.copyOf(der, Math.max(length + count, der.length * 2));
+        }
+    }
+
+    // Sets lineStart .. lineEnd to the next line without its terminator or trailing whitespace
+    private boolean readLine() throws IOException, ASN1Exception {
+        int scan = position;
+        while (true) {
+            while (scan < limit && buffer[scan] != '\n') {
+                scan++;
+            }
+            if (scan < limit || (eof && position < limit)) {
+                lineStart = position;
+                lineEnd = scan;
+                position = Math.min(scan + 1, limit);
+                while (lineEnd > lineStart && (buffer[lineEnd - 1] == '\r' || buffer[lineEnd - 1] == ' ' || buffer[lineEnd - 1] == '\t')) {
+                    lineEnd--;
+                }
+                lineNumber++;
+                return true;
+            }
+            if (eof) {
+                return false;
+            }
+            // Keep the partial line and read more behind it
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                scan -= position;
+                limit -= position;
+                position = 0;
+            }
+            if (limit == buffer.length) {
+                if (buffer.length >= MAXIMUM_LINE_LENGTH) {
+                    throw new ASN1Exception(ErrorCode.InvalidPEMDocument, "Line " + (lineNumber + 1) + " is too long");
+                }
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+
+    private boolean startsWith(byte[] prefix) {
+        return lineEnd - lineStart >= prefix.length
+                && Arrays.equals(buffer, lineStart, lineStart + prefix.length, prefix, 0, prefix.length);
+    }
+
+    // The line ends with suffix, which does not overlap the first from bytes
+    private boolean endsWith(byte[] suffix, int from) {
+        return lineEnd - from >= suffix.length
+                && Arrays.equals(buffer, lineEnd - suffix.length, lineEnd, suffix, 0, suffix.length);
+    }
+
+    private boolean matches(int from, int to, String text) {
+        if (to - from != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer[from + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,165 @@
+package com.iho.asn1;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+// Reads the children of a SEQUENCE in order. The next child is peeked once and cached, so probing for
+// OPTIONAL, DEFAULT and CHOICE components costs nothing extra, and short-form tags are matched against the
+// identifier octet with the constructed bit masked off rather than through ASN1Identifier.equals.
+public final class SequenceReader {
+    private final Iterator<ASN1Node> children;
+    private ASN1Node next;
+
+    public SequenceReader(ASN1Node.Constructed content) {
+        this.children = content.iterator();
+        this.next = children.hasNext() ? children.next() : null;
+    }
+
+    // Checks the node's identifier and that it is constructed
+    public static SequenceReader of(ASN1Node node, ASN1Identifier identifier) throws ASN1Exception {
+        if (!matches(node, identifier)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected " + identifier + ", got " + node.identifier);
+        }
+        if (!(node.content instanceof ASN1Node.Constructed)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, identifier + " must be constructed");
+        }
+        return new SequenceReader((ASN1Node.Constructed) node.content);
+    }
+
+    public static SequenceReader of(ASN1Node node) throws ASN1Exception {
+        return of(node, ASN1Identifier.SEQUENCE);
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    // The next child without consuming it, or null at the end
+    public ASN1Node peek() {
+        return next;
+    }
+
+    public boolean isNext(ASN1Identifier tag) {
+        return next != null && matches(next, tag);
+    }
+
+    public ASN1Node readNode() throws ASN1Exception {
+        if (next == null) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "SEQUENCE ended before all required components were read");
+        }
+        return advance();
+    }
+
+    public <T> T read(DERParseable<T> decoder) throws ASN1Exception {
+        return decoder.fromDERNode(readNode());
+    }
+
+    public <T> T read(ASN1Identifier tag, DERParseable<T> decoder) throws ASN1Exception {
+        ASN1Node node = readNode();
+        if (!matches(node, tag)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "Expected " + tag + ", got " + node.identifier);
+        }
+        return decoder.fromDERNode(node);
+    }
+
+    // Null when the next child does not carry the tag
+    public <T> T readOptional(ASN1Identifier tag, DERParseable<T> decoder) throws ASN1Exception {
+        return isNext(tag) ? decoder.fromDERNode(advance()) : null;
+    }
+
+    // Reads tag [n] EXPLICIT around a single value
+    public <T> T readExplicit(ASN1Identifier tag, DERParseable<T> decoder) throws ASN1Exception {
+        return ASN1Explicit.decode(readNode(), tag, decoder);
+    }
+
+    public <T> T readOptionalExplicit(ASN1Identifier tag, DERParseable<T> decoder) throws ASN1Exception {
+        return isNext(tag) ? ASN1Explicit.decode(advance(), tag, decoder) : null;
+    }
+
+    // Returns defaultValue when the component is absent; DER forbids encoding a value equal to its DEFAULT
+    public <T> T readDefault(ASN1Identifier tag, DERParseable<T> decoder, T defaultValue) throws ASN1Exception {
+        if (!isNext(tag)) {
+            return defaultValue;
+        }
+        T value = decoder.fromDERNode(advance());
+        if (Objects.equals(value, defaultValue)) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "DER forbids encoding a DEFAULT value: " + tag);
+        }
+        return value;
+    }
+
+    public <T> T readChoice(Choice<T> choice) throws ASN1Exception {
+        ASN1Node node = readNode();
+        DERParseable<? extends T> decoder = choice.decoderFor(node);
+        if (decoder == null) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "No CHOICE alternative for " + node.identifier);
+        }
+        return decoder.fromDERNode(node);
+    }
+
+    // Null when the next child matches no alternative
+    public <T> T readOptionalChoice(Choice<T> choice) throws ASN1Exception {
+        if (next == null) {
+            return null;
+        }
+        DERParseable<? extends T> decoder = choice.decoderFor(next);
+        return decoder == null ? null : decoder.fromDERNode(advance());
+    }
+
+    public void expectEnd() throws ASN1Exception {
+        if (next != null) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component: " + next.identifier);
+        }
+    }
+
+    private ASN1Node advance() {
+        ASN1Node current = next;
+        next = children.hasNext() ? children.next() : null;
+        return current;
+    }
+
+    // Identifier octet without the constructed bit, or -1 for tags that need the long form
+    static int packed(ASN1Identifier tag) {
+        return tag.tagNumber < 0x1F ? (tag.tagClass.topByteFlags() & 0xFF) | (int) tag.tagNumber : -1;
+    }
+
+    // Every parsed node keeps its encoding, so a short-form tag is its first octet
+    static boolean matches(ASN1Node node, ASN1Identifier tag) {
+        int packed = packed(tag);
+        if (packed >= 0) {
+            return (node.encodedBytes[0] & 0xDF) == packed;
+        }
+        return node.identifier.equals(tag);
+    }
+
+    // CHOICE alternatives compiled into a table indexed by the packed tag; long-form tags go through a map
+    public static final class Choice<T> {
+        private final DERParseable<?>[] table = new DERParseable<?>[256];
+        private final Map<ASN1Identifier, DERParseable<? extends T>> longForm = new HashMap<>();
+
+        private Choice() {}
+
+        public static <T> Choice<T> of(Map<ASN1Identifier, ? extends DERParseable<? extends T>> alternatives) {
+            Choice<T> choice = new Choice<>();
+            for (Map.Entry<ASN1Identifier, ? extends DERParseable<? extends T>> alternative : alternatives.entrySet()) {
+                int packed = packed(alternative.getKey());
+                if (packed >= 0) {
+                    choice.table[packed] = alternative.getValue();
+                } else {
+                    choice.longForm.put(alternative.getKey(), alternative.getValue());
+                }
+            }
+            return choice;
+        }
+
+        @SuppressWarnings("unchecked")
+        DERParseable<? extends T> decoderFor(ASN1Node node) {
+            if ((node.encodedBytes[0] & 0x1F) != 0x1F) {
+                return (DERParseable<? extends T>) table[node.encodedBytes[0] & 0xDF];
+            }
+            return longForm.isEmpty() ? null : longForm.get(node.identifier);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.iho.asn1;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// Character set checks for ASN.1 string content. The word-at-a-time paths test eight bytes per
+// long (SWAR); the scalar paths are the reference they are tested against.
+final class StringValidator {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+
+    enum Alphabet {
+        PRINTABLE(table(0x20, 0x20, "'()+,-./:=?", '0', '9', 'A', 'Z', 'a', 'z')),
+        IA5(table(0x00, 0x7F, "")),
+        NUMERIC(table(' ', ' ', "", '0', '9')),
+        VISIBLE(table(0x20, 0x7E, "")),
+        UTF8(null);
+
+        // 256-entry table indexed by the unsigned byte; null for UTF-8, which is not a per-byte check
+        final boolean[] table;
+
+        Alphabet(boolean[] table) {
+            this.table = table;
+        }
+    }
+
+    private StringValidator() {}
+
+    // Both entry points return the index of the first offending byte, or -1 when the range is valid
+    static int firstInvalid(Alphabet alphabet, byte[] data, int offset, int length) {
+        int end = offset + length;
+        // Dispatch once so each word loop is a straight-line mask computation
+        int i;
+        switch (alphabet) {
+            case UTF8:
+                return firstInvalidUtf8(data, offset, end);
+            case IA5:
+                for (i = offset; i + 8 <= end; i += 8) {
+                    long invalid = (long) LONGS.get(data, i) & HIGH;
+                    if (invalid != 0) return i + (Long.numberOfTrailingZeros(invalid) >>> 3);
+                }
+                break;
+            case VISIBLE:
+                for (i = offset; i + 8 <= end; i += 8) {
+                    long invalid = invalidVisible((long) LONGS.get(data, i));
+                    if (invalid != 0) return i + (Long.numberOfTrailingZeros(invalid) >>> 3);
+                }
+                break;
+            case NUMERIC:
+                for (i = offset; i + 8 <= end; i += 8) {
+                    long invalid = invalidNumeric((long) LONGS.get(data, i));
+                    if (invalid != 0) return i + (Long.numberOfTrailingZeros(invalid) >>> 3);
+                }
+                break;
+            default:
+                for (i = offset; i + 8 <= end; i += 8) {
+                    long invalid = invalidPrintable((long) LONGS.get(data, i));
+                    if (invalid != 0) return i + (Long.numberOfTrailingZeros(invalid) >>> 3);
+                }
+                break;
+        }
+        boolean[] table = alphabet.table;
+        for (; i < end; i++) {
+            if (!table[data[i] & 0xFF]) return i;
+        }
+        return -1;
+    }
+
+    static int firstInvalidScalar(Alphabet alphabet, byte[] data, int offset, int length) {
+        int end = offset + length;
+        if (alphabet == Alphabet.UTF8) {
+            for (int i = offset; i < end; ) {
+                int n = utf8SequenceLength(data, i, end);
+                if (n == 0) return i;
+                i += n;
+            }
+            return -1;
+        }
+        boolean[] table = alphabet.table;
+        for (int i = offset; i < end; i++) {
+            if (!table[data[i] & 0xFF]) return i;
+        }
+        return -1;
+    }
+
+    private static int firstInvalidUtf8(byte[] data, int offset, int end) {
+        int i = offset;
+        while (i < end) {
+            // Skip whole words of ASCII and fall back to the sequence decoder around multi-byte characters
+            if (i + 8 <= end) {
+                long nonAscii = (long) LONGS.get(data, i) & HIGH;
+                if (nonAscii == 0) {
+                    i += 8;
+                    continue;
+                }
+                i += Long.numberOfTrailingZeros(nonAscii) >>> 3;
+            } else if (data[i] >= 0) {
+                i++;
+                continue;
+            }
+            int n = utf8SequenceLength(data, i, end);
+            if (n == 0) return i;
+            i += n;
+        }
+        return -1;
+    }
+
+    // Well-formed sequences per Unicode Table 3-7: no overlongs, no surrogates, nothing above U+10FFFF
+    private static int utf8SequenceLength(byte[] data, int i, int end) {
+        int lead = data[i] & 0xFF;
+        if (lead < 0x80) {
+            return 1;
+        }
+        int continuation;
+        int secondLow = 0x80;
+        int secondHigh = 0xBF;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            continuation = 1;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            continuation = 2;
+            if (lead == 0xE0) secondLow = 0xA0;
+            if (lead == 0xED) secondHigh = 0x9F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            continuation = 3;
+            if (lead == 0xF0) secondLow = 0x90;
+            if (lead == 0xF4) secondHigh = 0x8F;
+        } else {
+            return 0;
+        }
+        if (end - i <= continuation) {
+            return 0;
+        }
+        int second = data[i + 1] & 0xFF;
+        if (second < secondLow || second > secondHigh) {
+            return 0;
+        }
+        for (int k = 2; k <= continuation; k++) {
+            if ((data[i + k] & 0xC0) != 0x80) return 0;
+        }
+        return continuation + 1;
+    }
+
+    // Each returns the high bit of every byte in the word that falls outside the alphabet
+    private static long invalidVisible(long word) {
+        long x = word & ~HIGH;
+        long valid = atLeast(x, 0x20) & ~atLeast(x, 0x7F);
+        return (word | ~valid) & HIGH;
+    }
+
+    private static long invalidNumeric(long word) {
+        long x = word & ~HIGH;
+        long valid = within(x, '0', '9') | equal(x, ' ');
+        return (word | ~valid) & HIGH;
+    }
+
+    private static long invalidPrintable(long word) {
+        long x = word & ~HIGH;
+        // Same range and equality tests as the helpers, written out so the whole mask stays one small method.
+        // Setting bit 5 folds upper case onto lower case and maps nothing else into a-z
+        long folded = x | (ONES * 0x20);
+        long letter = (folded + ONES * (0x80 - 'a')) & ~(folded + ONES * (0x80 - 'z' - 1));
+        long digitOrMark = (x + ONES * (0x80 - '+')) & ~(x + ONES * (0x80 - ':' - 1));
+        long paren = (x + ONES * (0x80 - '\'')) & ~(x + ONES * (0x80 - ')' - 1));
+        long space = ~((x ^ (ONES * ' ')) + ~HIGH);
+        long equals = ~((x ^ (ONES * '=')) + ~HIGH);
+        long question = ~((x ^ (ONES * '?')) + ~HIGH);
+        long valid = letter | digitOrMark | paren | space | equals | question;
+        return (word | ~valid) & HIGH;
+    }
+
+    // The helpers below expect every byte of x to be at most 0x7F, so per-byte sums never carry
+    private static long atLeast(long x, int n) {
+        return (x + ONES * (0x80 - n)) & HIGH;
+    }
+
+    private static long within(long x, int low, int high) {
+        return atLeast(x, low) & ~atLeast(x, high + 1);
+    }
+
+    private static long equal(long x, int c) {
+        return ~atLeast(x ^ (ONES * c), 1) & HIGH;
+    }
+
+    private static boolean[] table(int low, int high, String extra, char... ranges) {
+        boolean[] allowed = new boolean[256];
+        for (int c = low; c <= high; c++) allowed[c] = true;
+        for (int i = 0; i < extra.length(); i++) allowed[extra.charAt(i)] = true;
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int c = ranges[i]; c <= ranges[i + 1]; c++) allowed[c] = true;
+        }
+        return allowed;
+    }
+}
@@ -6,6 +6,9 @@ public enum TagClass {
     ContextSpecific(0x02),
     Private(0x03);
 
+    // values() clones its array on every call; the parsers look classes up once per element
+    private static final TagClass[] VALUES = values();
+
     private final int value;
 
     TagClass(int value) {
@@ -18,7 +21,7 @@ public enum TagClass {
 
     public static TagClass fromTopByte(byte topByte) {
         int index = (topByte & 0xFF) >> 6;
-        return TagClass.values()[index];
+        return VALUES[index];
     }
 
     public byte topByteFlags() {
@@ -0,0 +1,13 @@
+package com.iho.asn1.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a record as an ASN.1 CHOICE: exactly one component is non-null and it is encoded without a wrapper.
+// Decoding switches on the identifier octet, so every alternative needs a distinct tag
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DERChoice {
+}
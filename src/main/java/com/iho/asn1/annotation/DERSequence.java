@@ -0,0 +1,13 @@
+package com.iho.asn1.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a record as an ASN.1 SEQUENCE; the codec processor generates <Record>Codec next to it.
+// Kept in class files so records from another compilation can still be used as components
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DERSequence {
+}
@@ -0,0 +1,12 @@
+package com.iho.asn1.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a record with a single List component as a named SET OF type; it encodes as the sorted list itself
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DERSetOf {
+}
@@ -0,0 +1,14 @@
+package com.iho.asn1.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// DEFAULT for a long, int or boolean component, given as a Java literal. The default value is never
+// encoded, as DER requires, and an encoding that carries it explicitly is rejected
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Default {
+    String value();
+}
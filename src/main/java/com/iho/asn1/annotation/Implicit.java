@@ -0,0 +1,16 @@
+package com.iho.asn1.annotation;
+
+import com.iho.asn1.TagClass;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Implicit {
+    int value();
+
+    TagClass tagClass() default TagClass.ContextSpecific;
+}
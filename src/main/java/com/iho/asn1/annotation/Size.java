@@ -0,0 +1,16 @@
+package com.iho.asn1.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// SIZE constraint, checked on both encode and decode: bytes for OCTET STRING, bits for BIT STRING,
+// characters for strings and elements for SEQUENCE OF / SET OF
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Size {
+    long min() default 0;
+
+    long max() default Long.MAX_VALUE;
+}
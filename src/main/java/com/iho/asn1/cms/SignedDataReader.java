@@ -0,0 +1,238 @@
+package com.iho.asn1.cms;
+
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.ASN1Identifier;
+import com.iho.asn1.ASN1Integer;
+import com.iho.asn1.ASN1Node;
+import com.iho.asn1.ASN1ObjectIdentifier;
+import com.iho.asn1.ASN1OctetString;
+import com.iho.asn1.DERStreamReader;
+import com.iho.asn1.ErrorCode;
+import com.iho.asn1.SequenceReader;
+import com.iho.asn1.TagClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streams a DER ContentInfo holding SignedData (RFC 5652 section 5) in one pass. The eContent OCTET STRING
+// is copied through a fixed chunk to the caller's sink and to a MessageDigest for every digestAlgorithms
+// entry, which CMS places ahead of the content for exactly this. Certificates are kept as encodings, CRLs
+// are skipped, and only the SignerInfos are parsed into trees, so heap use does not grow with the content.
+public final class SignedDataReader {
+    private static final ASN1ObjectIdentifier SIGNED_DATA = ASN1ObjectIdentifier.of("1.2.840.113549.1.7.2");
+    private static final ASN1ObjectIdentifier MESSAGE_DIGEST = ASN1ObjectIdentifier.of("1.2.840.113549.1.9.4");
+    private static final Map<ASN1ObjectIdentifier, String> DIGESTS = Map.of(
+            ASN1ObjectIdentifier.of("1.3.14.3.2.26"), "SHA-1",
+            ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.4"), "SHA-224",
+            ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.1"), "SHA-256",
+            ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.2"), "SHA-384",
+            ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.3"), "SHA-512");
+
+    private static final int INTEGER = 0x02;
+    private static final int OCTET_STRING = 0x04;
+    private static final int OBJECT_IDENTIFIER = 0x06;
+    private static final int SEQUENCE = 0x30;
+    private static final int SET = 0x31;
+    private static final int CONTEXT_0 = 0xA0;
+    private static final int CONTEXT_1 = 0xA1;
+    private static final ASN1Identifier SIGNED_ATTRIBUTES = new ASN1Identifier(0, TagClass.ContextSpecific);
+    private static final ASN1Identifier UNSIGNED_ATTRIBUTES = new ASN1Identifier(1, TagClass.ContextSpecific);
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // contentLength is -1 and contentDigests empty for a detached signature. Digests are keyed by the
+    // digestAlgorithms entry; algorithms the JDK does not know are listed but not computed.
+    public record Summary(int version, List<ASN1ObjectIdentifier> digestAlgorithms, ASN1ObjectIdentifier contentType,
+                          long contentLength, Map<ASN1ObjectIdentifier, byte[]> contentDigests,
+                          List<byte[]> certificates, List<SignerInfo> signerInfos) {}
+
+    // sid is the IssuerAndSerialNumber or [0] SubjectKeyIdentifier node as encoded
+    public record SignerInfo(int version, ASN1Node sid, ASN1ObjectIdentifier digestAlgorithm, ASN1Node signedAttributes,
+                             ASN1ObjectIdentifier signatureAlgorithm, byte[] signature, ASN1Node unsignedAttributes) {
+
+        static SignerInfo decode(ASN1Node node) throws ASN1Exception {
+            SequenceReader reader = SequenceReader.of(node);
+            int version = reader.read(ASN1Integer.DECODER).intValueExact();
+            ASN1Node sid = reader.readNode();
+            ASN1ObjectIdentifier digestAlgorithm = algorithm(reader.readNode());
+            ASN1Node signedAttributes = reader.isNext(SIGNED_ATTRIBUTES) ? reader.readNode() : null;
+            ASN1ObjectIdentifier signatureAlgorithm = algorithm(reader.readNode());
+            byte[] signature = reader.read(ASN1Identifier.OCTET_STRING, ASN1OctetString.DECODER).toByteArray();
+            ASN1Node unsignedAttributes = reader.isNext(UNSIGNED_ATTRIBUTES) ? reader.readNode() : null;
+            reader.expectEnd();
+            return new SignerInfo(version, sid, digestAlgorithm, signedAttributes, signatureAlgorithm, signature, unsignedAttributes);
+        }
+
+        // The bytes the signature covers: signed attributes re-tagged from [0] IMPLICIT to SET OF (RFC 5652 5.4)
+        public byte[] signedAttributesEncoding() {
+            if (signedAttributes == null) {
+                return null;
+            }
+            byte[] encoded = signedAttributes.encodedBytes.clone();
+            encoded[0] = (byte) SET;
+            return encoded;
+        }
+
+        // The messageDigest signed attribute, or null when there are no signed attributes
+        public byte[] messageDigest() throws ASN1Exception {
+            if (signedAttributes == null) {
+                return null;
+            }
+            for (ASN1Node attribute : (ASN1Node.Constructed) signedAttributes.content) {
+                SequenceReader reader = SequenceReader.of(attribute);
+                if (MESSAGE_DIGEST.equals(reader.read(ASN1ObjectIdentifier.DECODER))) {
+                    SequenceReader values = SequenceReader.of(reader.readNode(), ASN1Identifier.SET);
+                    byte[] digest = values.read(ASN1Identifier.OCTET_STRING, ASN1OctetString.DECODER).toByteArray();
+                    values.expectEnd();
+                    return digest;
+                }
+            }
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Signed attributes lack messageDigest");
+        }
+
+        // Compares the signed messageDigest with the digest computed over the content
+        public boolean matches(Summary summary) throws ASN1Exception {
+            byte[] computed = summary.contentDigests().get(digestAlgorithm);
+            byte[] signed = messageDigest();
+            return computed != null && signed != null && MessageDigest.isEqual(computed, signed);
+        }
+    }
+
+    private SignedDataReader() {}
+
+    // content, when not null, receives the eContent octets as they are read
+    public static Summary read(InputStream in, OutputStream content) throws IOException, ASN1Exception {
+        DERStreamReader reader = new DERStreamReader(in);
+        expect(reader, SEQUENCE, "ContentInfo");
+        reader.enter();
+        expect(reader, OBJECT_IDENTIFIER, "contentType");
+        ASN1ObjectIdentifier type = ASN1ObjectIdentifier.decode(reader.readNode());
+        if (!SIGNED_DATA.equals(type)) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "ContentInfo holds " + type + ", not SignedData");
+        }
+        expect(reader, CONTEXT_0, "content");
+        reader.enter();
+        expect(reader, SEQUENCE, "SignedData");
+        reader.enter();
+        expect(reader, INTEGER, "version");
+        int version = ASN1Integer.decode(reader.readNode()).intValueExact();
+
+        expect(reader, SET, "digestAlgorithms");
+        reader.enter();
+        List<ASN1ObjectIdentifier> algorithms = new ArrayList<>();
+        Map<ASN1ObjectIdentifier, MessageDigest> digests = new LinkedHashMap<>();
+        while (reader.next()) {
+            require(reader.identifierOctet() == SEQUENCE, reader, "DigestAlgorithmIdentifier");
+            ASN1ObjectIdentifier algorithm = algorithm(reader.readNode());
+            algorithms.add(algorithm);
+            String name = DIGESTS.get(algorithm);
+            if (name != null && !digests.containsKey(algorithm)) {
+                try {
+                    digests.put(algorithm, MessageDigest.getInstance(name));
+                } catch (NoSuchAlgorithmException e) {
+                    // Listed without a digest, like an unknown algorithm
+                }
+            }
+        }
+        reader.exit();
+
+        expect(reader, SEQUENCE, "encapContentInfo");
+        reader.enter();
+        expect(reader, OBJECT_IDENTIFIER, "eContentType");
+        ASN1ObjectIdentifier contentType = ASN1ObjectIdentifier.decode(reader.readNode());
+        long contentLength = -1;
+        if (reader.next()) {
+            require(reader.identifierOctet() == CONTEXT_0, reader, "eContent");
+            reader.enter();
+            // DER leaves no room for the constructed, chunked OCTET STRING that BER encoders produce
+            expect(reader, OCTET_STRING, "eContent OCTET STRING");
+            contentLength = reader.length();
+            pipe(reader.contentStream(), digests.values(), content);
+            end(reader, "eContent");
+            end(reader, "encapContentInfo");
+        } else {
+            reader.exit();
+        }
+
+        boolean more = reader.next();
+        List<byte[]> certificates = new ArrayList<>();
+        if (more && reader.identifierOctet() == CONTEXT_0) {
+            reader.enter();
+            while (reader.next()) {
+                certificates.add(reader.readElement());
+            }
+            reader.exit();
+            more = reader.next();
+        }
+        if (more && reader.identifierOctet() == CONTEXT_1) {
+            more = reader.next();
+        }
+        require(more && reader.identifierOctet() == SET, reader, "signerInfos");
+        reader.enter();
+        List<SignerInfo> signerInfos = new ArrayList<>();
+        while (reader.next()) {
+            require(reader.identifierOctet() == SEQUENCE, reader, "SignerInfo");
+            signerInfos.add(SignerInfo.decode(reader.readNode()));
+        }
+        reader.exit();
+        end(reader, "SignedData");
+        end(reader, "content");
+        end(reader, "ContentInfo");
+        if (reader.next()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Trailing data after ContentInfo");
+        }
+
+        Map<ASN1ObjectIdentifier, byte[]> contentDigests = new LinkedHashMap<>();
+        if (contentLength >= 0) {
+            for (Map.Entry<ASN1ObjectIdentifier, MessageDigest> digest : digests.entrySet()) {
+                contentDigests.put(digest.getKey(), digest.getValue().digest());
+            }
+        }
+        return new Summary(version, Collections.unmodifiableList(algorithms), contentType, contentLength,
+                Collections.unmodifiableMap(contentDigests), Collections.unmodifiableList(certificates),
+                Collections.unmodifiableList(signerInfos));
+    }
+
+    private static void pipe(InputStream content, Iterable<MessageDigest> digests, OutputStream sink) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int n;
+        while ((n = content.read(chunk, 0, chunk.length)) > 0) {
+            for (MessageDigest digest : digests) {
+                digest.update(chunk, 0, n);
+            }
+            if (sink != null) {
+                sink.write(chunk, 0, n);
+            }
+        }
+    }
+
+    // AlgorithmIdentifier's OID; parameters are left to the caller
+    private static ASN1ObjectIdentifier algorithm(ASN1Node node) throws ASN1Exception {
+        return SequenceReader.of(node).read(ASN1ObjectIdentifier.DECODER);
+    }
+
+    private static void expect(DERStreamReader reader, int identifierOctet, String field) throws IOException, ASN1Exception {
+        require(reader.next() && reader.identifierOctet() == identifierOctet, reader, field);
+    }
+
+    private static void require(boolean present, DERStreamReader reader, String field) throws ASN1Exception {
+        if (!present) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "SignedData is missing " + field + " at offset " + reader.elementOffset());
+        }
+    }
+
+    // Leaves the entered element, which must have no components left
+    private static void end(DERStreamReader reader, String field) throws IOException, ASN1Exception {
+        if (reader.next()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component in " + field + ": " + reader.identifier());
+        }
+        reader.exit();
+    }
+}
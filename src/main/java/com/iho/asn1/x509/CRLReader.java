@@ -0,0 +1,144 @@
+package com.iho.asn1.x509;
+
+import com.iho.asn1.ASN1BitString;
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.ASN1Node;
+import com.iho.asn1.ASN1Time;
+import com.iho.asn1.DERStreamReader;
+import com.iho.asn1.ErrorCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Streams a DER CertificateList (RFC 5280 section 5.1) through DERStreamReader. The issuer and update times
+// are parsed; each revokedCertificates entry is reduced to its serial's content octets, which are handed to
+// the consumer from a reused buffer. Entry times and extensions are skipped, so memory does not grow with
+// the CRL. The signature is returned with the summary, and a tap can be handed the exact TBSCertList
+// encoding to verify it in the same pass.
+public final class CRLReader {
+    private static final int INTEGER = 0x02;
+    private static final int UTC_TIME = 0x17;
+    private static final int GENERALIZED_TIME = 0x18;
+    private static final int SEQUENCE = 0x30;
+    private static final int CRL_EXTENSIONS = 0xA0;
+    // RFC 5280 caps serials at 20 octets; leave room for non-conforming issuers
+    private static final int MAXIMUM_SERIAL_LENGTH = 64;
+
+    @FunctionalInterface
+    public interface SerialConsumer {
+        // The buffer is reused for the next serial
+        void accept(byte[] serial, int offset, int length) throws ASN1Exception;
+    }
+
+    public record Summary(int version, ASN1Node issuer, ASN1Time thisUpdate, ASN1Time nextUpdate, long revokedCount,
+                          ASN1Node signatureAlgorithm, ASN1BitString signatureValue) {}
+
+    private CRLReader() {}
+
+    public static Summary read(InputStream in, SerialConsumer consumer) throws IOException, ASN1Exception {
+        return read(in, consumer, null);
+    }
+
+    // tbsCertList, when not null, receives the signed bytes; e.g. DERStreamReader.Tap.of(signature)
+    public static Summary read(InputStream in, SerialConsumer consumer, DERStreamReader.Tap tbsCertList) throws IOException, ASN1Exception {
+        DERStreamReader reader = new DERStreamReader(in);
+        if (tbsCertList != null) {
+            reader.tap(tbsCertList, 0, 0);
+        }
+        expect(reader, SEQUENCE, "CertificateList");
+        reader.enter();
+        expect(reader, SEQUENCE, "tbsCertList");
+        reader.enter();
+
+        boolean more = reader.next();
+        int version = 1;
+        if (more && reader.identifierOctet() == INTEGER) {
+            byte[] encoded = reader.readContent();
+            if (encoded.length != 1 || encoded[0] != 1) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "CRL version must be v2 when present");
+            }
+            version = 2;
+            more = reader.next();
+        }
+        require(more && reader.identifierOctet() == SEQUENCE, reader, "signature");
+        require(reader.next() && reader.identifierOctet() == SEQUENCE, reader, "issuer");
+        ASN1Node issuer = reader.readNode();
+        require(reader.next() && isTime(reader), reader, "thisUpdate");
+        ASN1Time thisUpdate = time(reader);
+        ASN1Time nextUpdate = null;
+        more = reader.next();
+        if (more && isTime(reader)) {
+            nextUpdate = time(reader);
+            more = reader.next();
+        }
+
+        long count = 0;
+        if (more && reader.identifierOctet() == SEQUENCE) {
+            byte[] serial = new byte[MAXIMUM_SERIAL_LENGTH];
+            reader.enter();
+            while (reader.next()) {
+                require(reader.identifierOctet() == SEQUENCE, reader, "revokedCertificates entry");
+                reader.enter();
+                require(reader.next() && reader.identifierOctet() == INTEGER, reader, "userCertificate");
+                int length = reader.readContent(serial, 0);
+                checkInteger(serial, length);
+                consumer.accept(serial, 0, length);
+                count++;
+                require(reader.next() && isTime(reader), reader, "revocationDate");
+                reader.exit();
+            }
+            reader.exit();
+            more = reader.next();
+        }
+        if (more && reader.identifierOctet() == CRL_EXTENSIONS) {
+            more = reader.next();
+        }
+        if (more) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component in tbsCertList: " + reader.identifier());
+        }
+        reader.exit();
+
+        require(reader.next() && reader.identifierOctet() == SEQUENCE, reader, "signatureAlgorithm");
+        ASN1Node signatureAlgorithm = reader.readNode();
+        require(reader.next() && reader.identifierOctet() == 0x03, reader, "signatureValue");
+        ASN1BitString signatureValue = ASN1BitString.decode(reader.readNode());
+        if (reader.next()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component in CertificateList");
+        }
+        reader.exit();
+        if (reader.next()) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Trailing data after CertificateList");
+        }
+        return new Summary(version, issuer, thisUpdate, nextUpdate, count, signatureAlgorithm, signatureValue);
+    }
+
+    private static void expect(DERStreamReader reader, int identifierOctet, String field) throws IOException, ASN1Exception {
+        require(reader.next() && reader.identifierOctet() == identifierOctet, reader, field);
+    }
+
+    private static void require(boolean present, DERStreamReader reader, String field) throws ASN1Exception {
+        if (!present) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, "CRL is missing " + field + " at offset " + reader.elementOffset());
+        }
+    }
+
+    private static boolean isTime(DERStreamReader reader) {
+        return reader.identifierOctet() == UTC_TIME || reader.identifierOctet() == GENERALIZED_TIME;
+    }
+
+    private static ASN1Time time(DERStreamReader reader) throws IOException, ASN1Exception {
+        boolean utc = reader.identifierOctet() == UTC_TIME;
+        ASN1Node node = reader.readNode();
+        return utc ? ASN1Time.UTCTime.decode(node) : ASN1Time.GeneralizedTime.decode(node);
+    }
+
+    // Same minimal two's-complement rule as ASN1Integer, so serials compare byte for byte
+    private static void checkInteger(byte[] content, int length) throws ASN1Exception {
+        if (length == 0) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1IntegerEncoding, "INTEGER encoded with no bytes");
+        }
+        if (length > 1 && ((content[0] == 0 && content[1] >= 0) || (content[0] == -1 && content[1] < 0))) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1IntegerEncoding, "INTEGER encoded with redundant leading bytes");
+        }
+    }
+}
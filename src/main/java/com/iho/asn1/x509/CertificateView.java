@@ -0,0 +1,374 @@
+package com.iho.asn1.x509;
+
+import com.iho.asn1.ASN1BitString;
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.ASN1Node;
+import com.iho.asn1.ASN1ObjectIdentifier;
+import com.iho.asn1.ASN1Time;
+import com.iho.asn1.DERParser;
+import com.iho.asn1.DERWriter;
+import com.iho.asn1.ErrorCode;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Read-only view of an X.509 certificate (RFC 5280). Parsing walks the TBSCertificate's fixed layout once,
+// checking each tag and length and recording field offsets; nothing is copied or decoded until an accessor
+// asks for it. Slices share the caller's array, which must not change while the view is in use.
+public final class CertificateView {
+    private static final int BOOLEAN = 0x01;
+    private static final int INTEGER = 0x02;
+    private static final int BIT_STRING = 0x03;
+    private static final int OCTET_STRING = 0x04;
+    private static final int OBJECT_IDENTIFIER = 0x06;
+    private static final int UTC_TIME = 0x17;
+    private static final int GENERALIZED_TIME = 0x18;
+    private static final int SEQUENCE = 0x30;
+    private static final int VERSION = 0xA0;
+    private static final int ISSUER_UNIQUE_ID = 0x81;
+    private static final int SUBJECT_UNIQUE_ID = 0x82;
+    private static final int EXTENSIONS = 0xA3;
+
+    public record Extension(ASN1ObjectIdentifier id, boolean critical, ByteBuffer value) {
+        // The extension's own DER value, from inside extnValue
+        public ASN1Node valueNode() throws ASN1Exception {
+            return DERParser.parse(copy(value));
+        }
+    }
+
+    private final byte[] der;
+    private final int version;
+    // Start and end offsets of whole elements (identifier octet included) unless noted
+    private final int tbsStart, tbsEnd;
+    private final int serialStart, serialEnd; // INTEGER content
+    private final int issuerStart, issuerEnd;
+    private final int notBeforeStart, notBeforeEnd;
+    private final int notAfterStart, notAfterEnd;
+    private final int subjectStart, subjectEnd;
+    private final int spkiStart, spkiEnd;
+    private final int extensionsStart, extensionsEnd; // content of the Extensions SEQUENCE, -1 when absent
+    private final int signatureAlgorithmStart, signatureAlgorithmEnd;
+    private final int signatureStart, signatureEnd; // BIT STRING content
+
+    private CertificateView(byte[] der, int offset, int length) throws ASN1Exception {
+        this.der = der;
+        int end = offset + length;
+        long certificate = element(offset, end, SEQUENCE, "Certificate");
+        if (end(certificate) != end) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Trailing data after Certificate");
+        }
+
+        int position = content(certificate);
+        long tbs = element(position, end, SEQUENCE, "tbsCertificate");
+        tbsStart = position;
+        tbsEnd = end(tbs);
+        position = content(tbs);
+
+        int encodedVersion = 0;
+        if (peek(position, tbsEnd) == VERSION) {
+            long explicit = element(position, tbsEnd, VERSION, "version");
+            long integer = element(content(explicit), end(explicit), INTEGER, "version");
+            if (end(integer) != end(explicit) || end(integer) - content(integer) != 1) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Certificate version must be a single-octet INTEGER");
+            }
+            encodedVersion = der[content(integer)];
+            if (encodedVersion < 0 || encodedVersion > 2) {
+                throw new ASN1Exception(ErrorCode.ValueOutOfRange, "Unknown certificate version " + encodedVersion);
+            }
+            position = end(explicit);
+        }
+        version = encodedVersion + 1;
+
+        long serial = element(position, tbsEnd, INTEGER, "serialNumber");
+        serialStart = content(serial);
+        serialEnd = end(serial);
+        if (serialEnd == serialStart) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1IntegerEncoding, "Empty serialNumber");
+        }
+        position = end(element(serialEnd, tbsEnd, SEQUENCE, "signature"));
+
+        issuerStart = position;
+        issuerEnd = position = end(element(position, tbsEnd, SEQUENCE, "issuer"));
+
+        long validity = element(position, tbsEnd, SEQUENCE, "validity");
+        notBeforeStart = content(validity);
+        notBeforeEnd = end(time(notBeforeStart, end(validity), "notBefore"));
+        notAfterStart = notBeforeEnd;
+        notAfterEnd = end(time(notAfterStart, end(validity), "notAfter"));
+        if (notAfterEnd != end(validity)) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Trailing data in validity");
+        }
+        position = end(validity);
+
+        subjectStart = position;
+        subjectEnd = position = end(element(position, tbsEnd, SEQUENCE, "subject"));
+        spkiStart = position;
+        spkiEnd = position = end(element(position, tbsEnd, SEQUENCE, "subjectPublicKeyInfo"));
+
+        if (peek(position, tbsEnd) == ISSUER_UNIQUE_ID) {
+            position = end(element(position, tbsEnd, ISSUER_UNIQUE_ID, "issuerUniqueID"));
+        }
+        if (peek(position, tbsEnd) == SUBJECT_UNIQUE_ID) {
+            position = end(element(position, tbsEnd, SUBJECT_UNIQUE_ID, "subjectUniqueID"));
+        }
+        if (peek(position, tbsEnd) == EXTENSIONS) {
+            long explicit = element(position, tbsEnd, EXTENSIONS, "extensions");
+            long extensions = element(content(explicit), end(explicit), SEQUENCE, "extensions");
+            if (end(extensions) != end(explicit) || end(extensions) == content(extensions)) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "extensions must hold one non-empty SEQUENCE");
+            }
+            extensionsStart = content(extensions);
+            extensionsEnd = end(extensions);
+            position = end(explicit);
+        } else {
+            extensionsStart = extensionsEnd = -1;
+        }
+        if (position != tbsEnd) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component in tbsCertificate");
+        }
+
+        signatureAlgorithmStart = tbsEnd;
+        signatureAlgorithmEnd = end(element(tbsEnd, end, SEQUENCE, "signatureAlgorithm"));
+        long signature = element(signatureAlgorithmEnd, end, BIT_STRING, "signatureValue");
+        signatureStart = content(signature);
+        signatureEnd = end(signature);
+        if (signatureEnd != end) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component in Certificate");
+        }
+    }
+
+    public static CertificateView parse(byte[] der) throws ASN1Exception {
+        return new CertificateView(der, 0, der.length);
+    }
+
+    public static CertificateView parse(byte[] der, int offset, int length) throws ASN1Exception {
+        if (offset < 0 || length < 0 || offset > der.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + der.length);
+        }
+        return new CertificateView(der, offset, length);
+    }
+
+    // 1, 2 or 3, as in X509Certificate.getVersion
+    public int version() {
+        return version;
+    }
+
+    public BigInteger serialNumber() {
+        return new BigInteger(der, serialStart, serialEnd - serialStart);
+    }
+
+    // Two's-complement content octets of the serial number
+    public ByteBuffer serialNumberBytes() {
+        return slice(serialStart, serialEnd);
+    }
+
+    // The signed bytes, for signature verification
+    public ByteBuffer tbsCertificate() {
+        return slice(tbsStart, tbsEnd);
+    }
+
+    public ByteBuffer issuer() {
+        return slice(issuerStart, issuerEnd);
+    }
+
+    public ASN1Node issuerNode() throws ASN1Exception {
+        return node(issuerStart, issuerEnd);
+    }
+
+    public ByteBuffer subject() {
+        return slice(subjectStart, subjectEnd);
+    }
+
+    public ASN1Node subjectNode() throws ASN1Exception {
+        return node(subjectStart, subjectEnd);
+    }
+
+    // Byte comparison of issuer and subject, as RFC 5280 defines self-issued
+    public boolean isSelfIssued() {
+        return Arrays.equals(der, issuerStart, issuerEnd, der, subjectStart, subjectEnd);
+    }
+
+    public ASN1Time notBefore() throws ASN1Exception {
+        return time(notBeforeStart, notBeforeEnd);
+    }
+
+    public ASN1Time notAfter() throws ASN1Exception {
+        return time(notAfterStart, notAfterEnd);
+    }
+
+    public boolean isValidAt(Instant instant) throws ASN1Exception {
+        return !notBefore().isAfter(instant) && !notAfter().isBefore(instant);
+    }
+
+    public ByteBuffer subjectPublicKeyInfo() {
+        return slice(spkiStart, spkiEnd);
+    }
+
+    public ASN1ObjectIdentifier publicKeyAlgorithm() throws ASN1Exception {
+        long algorithm = element(headerEnd(spkiStart), spkiEnd, SEQUENCE, "algorithm");
+        return ASN1ObjectIdentifier.decode(node(content(algorithm), end(element(content(algorithm), end(algorithm), OBJECT_IDENTIFIER, "algorithm"))));
+    }
+
+    public ASN1BitString subjectPublicKey() throws ASN1Exception {
+        int position = end(element(headerEnd(spkiStart), spkiEnd, SEQUENCE, "algorithm"));
+        long key = element(position, spkiEnd, BIT_STRING, "subjectPublicKey");
+        return bitString(content(key), end(key));
+    }
+
+    public ASN1ObjectIdentifier signatureAlgorithm() throws ASN1Exception {
+        int position = headerEnd(signatureAlgorithmStart);
+        return ASN1ObjectIdentifier.decode(node(position, end(element(position, signatureAlgorithmEnd, OBJECT_IDENTIFIER, "signatureAlgorithm"))));
+    }
+
+    public ASN1BitString signatureValue() throws ASN1Exception {
+        return bitString(signatureStart, signatureEnd);
+    }
+
+    public boolean hasExtensions() {
+        return extensionsStart >= 0;
+    }
+
+    // Finds one extension by comparing encoded OIDs, without decoding the others; null when absent
+    public Extension extension(ASN1ObjectIdentifier id) throws ASN1Exception {
+        if (extensionsStart < 0) {
+            return null;
+        }
+        DERWriter writer = new DERWriter();
+        id.serialize(writer);
+        byte[] encodedId = writer.toByteArray();
+        int position = extensionsStart;
+        while (position < extensionsEnd) {
+            long extension = element(position, extensionsEnd, SEQUENCE, "Extension");
+            long extnId = element(content(extension), end(extension), OBJECT_IDENTIFIER, "extnID");
+            if (Arrays.equals(der, content(extension), end(extnId), encodedId, 0, encodedId.length)) {
+                return extension(id, extension, end(extnId));
+            }
+            position = end(extension);
+        }
+        return null;
+    }
+
+    public List<Extension> extensions() throws ASN1Exception {
+        List<Extension> result = new ArrayList<>();
+        int position = extensionsStart;
+        while (position >= 0 && position < extensionsEnd) {
+            long extension = element(position, extensionsEnd, SEQUENCE, "Extension");
+            long extnId = element(content(extension), end(extension), OBJECT_IDENTIFIER, "extnID");
+            ASN1ObjectIdentifier id = ASN1ObjectIdentifier.decode(node(content(extension), end(extnId)));
+            result.add(extension(id, extension, end(extnId)));
+            position = end(extension);
+        }
+        return result;
+    }
+
+    private Extension extension(ASN1ObjectIdentifier id, long extension, int position) throws ASN1Exception {
+        boolean critical = false;
+        if (peek(position, end(extension)) == BOOLEAN) {
+            long flag = element(position, end(extension), BOOLEAN, "critical");
+            // DER encodes TRUE as 0xFF and never encodes the DEFAULT FALSE
+            if (end(flag) - content(flag) != 1 || der[content(flag)] != (byte) 0xFF) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Extension critical flag must be an encoded TRUE");
+            }
+            critical = true;
+            position = end(flag);
+        }
+        long value = element(position, end(extension), OCTET_STRING, "extnValue");
+        if (end(value) != end(extension)) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "Unexpected trailing component in Extension");
+        }
+        return new Extension(id, critical, slice(content(value), end(value)));
+    }
+
+    private long time(int position, int limit, String field) throws ASN1Exception {
+        int tag = peek(position, limit);
+        return element(position, limit, tag == GENERALIZED_TIME ? GENERALIZED_TIME : UTC_TIME, field);
+    }
+
+    private ASN1Time time(int start, int end) throws ASN1Exception {
+        ASN1Node node = node(start, end);
+        return der[start] == GENERALIZED_TIME ? ASN1Time.GeneralizedTime.decode(node) : ASN1Time.UTCTime.decode(node);
+    }
+
+    private ASN1BitString bitString(int start, int end) throws ASN1Exception {
+        if (start == end) {
+            throw new ASN1Exception(ErrorCode.InvalidASN1Object, "BIT STRING is missing its padding octet");
+        }
+        return new ASN1BitString(der, start + 1, end - start - 1, der[start]);
+    }
+
+    private int headerEnd(int start) throws ASN1Exception {
+        return content(element(start, der.length, der[start] & 0xFF, "element"));
+    }
+
+    private int peek(int position, int limit) {
+        return position < limit ? der[position] & 0xFF : -1;
+    }
+
+    // Checks one short-form tag and a DER length, returning the content offset and the end offset packed
+    // as content << 32 | end
+    private long element(int position, int limit, int tag, String field) throws ASN1Exception {
+        if (position >= limit) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Certificate is missing " + field);
+        }
+        if ((der[position] & 0xFF) != tag) {
+            throw new ASN1Exception(ErrorCode.UnexpectedFieldType, String.format(
+                    "Certificate %s: expected tag 0x%02X, got 0x%02X", field, tag, der[position] & 0xFF));
+        }
+        if (++position >= limit) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Length missing in " + field);
+        }
+        int length = der[position++] & 0xFF;
+        if (length >= 0x80) {
+            int count = length & 0x7F;
+            if (count == 0) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Indefinite form of field length not supported in DER.");
+            }
+            if (count > 3) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Length of " + field + " exceeds 16 MiB");
+            }
+            if (count > limit - position) {
+                throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Length of " + field + " exceeds remaining data");
+            }
+            if (der[position] == 0) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field length encoded in excessive number of bytes");
+            }
+            length = 0;
+            for (int i = 0; i < count; i++) {
+                length = (length << 8) | (der[position++] & 0xFF);
+            }
+            if (length < 0x80) {
+                throw new ASN1Exception(ErrorCode.UnsupportedFieldLength, "Field length encoded in long form, but DER requires short form");
+            }
+        }
+        if (length > limit - position) {
+            throw new ASN1Exception(ErrorCode.TruncatedASN1Field, "Length of " + field + " exceeds remaining data");
+        }
+        return (long) position << 32 | (position + length);
+    }
+
+    private static int content(long element) {
+        return (int) (element >>> 32);
+    }
+
+    private static int end(long element) {
+        return (int) element;
+    }
+
+    private ByteBuffer slice(int start, int end) {
+        return ByteBuffer.wrap(der, start, end - start).slice().asReadOnlyBuffer();
+    }
+
+    private ASN1Node node(int start, int end) throws ASN1Exception {
+        return DERParser.parse(Arrays.copyOfRange(der, start, end));
+    }
+
+    private static byte[] copy(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,244 @@
+package com.iho.asn1.x509;
+
+import com.iho.asn1.ASN1Exception;
+import com.iho.asn1.ErrorCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Set of certificate serial numbers held as their DER INTEGER content octets, sorted by length and then
+// unsigned bytes, packed into one byte[] with an int[] of offsets. A parallel long[] packs each serial's
+// length and first seven octets in the same order, so a binary search mostly compares longs and reads the
+// packed bytes only to settle ties. An optional Bloom filter in front answers most misses without
+// touching either. Memory is the serial bytes plus twelve bytes per serial, plus the filter's bits.
+public final class RevokedSerialIndex {
+    private final byte[] data;
+    // offsets[i] .. offsets[i + 1] is the i-th serial
+    private final int[] offsets;
+    private final long[] keys;
+    private final long[] bloom;
+    private final int bloomHashes;
+
+    private RevokedSerialIndex(byte[] data, int[] offsets, long[] bloom, int bloomHashes) {
+        this.data = data;
+        this.offsets = offsets;
+        this.keys = new long[offsets.length - 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(data, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+        this.bloom = bloom;
+        this.bloomHashes = bloomHashes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Streams a DER CertificateList; bloomBitsPerSerial of 0 builds no filter
+    public static RevokedSerialIndex fromCRL(InputStream in, int bloomBitsPerSerial) throws IOException, ASN1Exception {
+        Builder builder = new Builder();
+        CRLReader.read(in, builder::add);
+        return builder.build(bloomBitsPerSerial);
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    // Approximate heap footprint of the index arrays
+    public long sizeInBytes() {
+        return data.length + 4L * offsets.length + 8L * keys.length + (bloom == null ? 0 : 8L * bloom.length);
+    }
+
+    // serial holds the content octets of a DER INTEGER, as CertificateView.serialNumberBytes() returns them
+    public boolean contains(byte[] serial, int offset, int length) {
+        if (bloom != null && !mightContain(hash(serial, offset, length))) {
+            return false;
+        }
+        long key = key(serial, offset, length);
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = Long.compareUnsigned(keys[middle], key);
+            if (cmp == 0 || (keys[middle] >>> 56 == 0xFF && key >>> 56 == 0xFF)) {
+                cmp = compare(data, offsets[middle], offsets[middle + 1], serial, offset, offset + length);
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(byte[] serial) {
+        return contains(serial, 0, serial.length);
+    }
+
+    public boolean contains(ByteBuffer serial) {
+        if (serial.hasArray()) {
+            return contains(serial.array(), serial.arrayOffset() + serial.position(), serial.remaining());
+        }
+        byte[] bytes = new byte[serial.remaining()];
+        serial.duplicate().get(bytes);
+        return contains(bytes);
+    }
+
+    // BigInteger.toByteArray is the minimal two's-complement form, the same octets DER uses
+    public boolean contains(BigInteger serial) {
+        return contains(serial.toByteArray());
+    }
+
+    public boolean contains(CertificateView certificate) {
+        return contains(certificate.serialNumberBytes());
+    }
+
+    private boolean mightContain(long hash) {
+        int mask = bloom.length * 64 - 1;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < bloomHashes; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Length in the top octet, then the first seven octets big-endian: unsigned order agrees with compare(),
+    // except between two serials of 255 octets or more, whose clamped lengths leave compare() to decide
+    private static long key(byte[] bytes, int offset, int length) {
+        long key = (long) Math.min(length, 0xFF) << 56;
+        for (int i = 0; i < 7 && i < length; i++) {
+            key |= (long) (bytes[offset + i] & 0xFF) << (48 - 8 * i);
+        }
+        return key;
+    }
+
+    // Shorter serials first, then unsigned bytes; equal serials compare equal whatever the order is
+    private static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int lengths = Integer.compare(aTo - aFrom, bTo - bFrom);
+        return lengths != 0 ? lengths : Arrays.compareUnsigned(a, aFrom, aTo, b, bFrom, bTo);
+    }
+
+    // FNV-1a over the bytes, finished with the MurmurHash3 mixer so both halves are usable for double hashing
+    private static long hash(byte[] bytes, int offset, int length) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            h = (h ^ (bytes[i] & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // Collects serials in arrival order; build() sorts and drops duplicates
+    public static final class Builder {
+        private byte[] data = new byte[1024];
+        private int[] offsets = new int[65];
+        private int count;
+
+        private Builder() {}
+
+        public Builder add(byte[] serial, int offset, int length) throws ASN1Exception {
+            if (length == 0) {
+                throw new ASN1Exception(ErrorCode.InvalidASN1IntegerEncoding, "Empty serial number");
+            }
+            int end = offsets[count];
+            if (end + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(end + length, data.length * 2));
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            System.arraycopy(serial, offset, data, end, length);
+            offsets[++count] = end + length;
+            return this;
+        }
+
+        public Builder add(BigInteger serial) throws ASN1Exception {
+            byte[] bytes = serial.toByteArray();
+            return add(bytes, 0, bytes.length);
+        }
+
+        public RevokedSerialIndex build(int bloomBitsPerSerial) {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            sort(order);
+
+            byte[] sorted = new byte[offsets[count]];
+            int[] sortedOffsets = new int[count + 1];
+            int n = 0;
+            int end = 0;
+            for (int index : order) {
+                int from = offsets[index];
+                int to = offsets[index + 1];
+                if (n > 0 && compare(sorted, sortedOffsets[n - 1], end, data, from, to) == 0) {
+                    continue;
+                }
+                System.arraycopy(data, from, sorted, end, to - from);
+                end += to - from;
+                sortedOffsets[++n] = end;
+            }
+            byte[] packed = Arrays.copyOf(sorted, end);
+            int[] packedOffsets = Arrays.copyOf(sortedOffsets, n + 1);
+
+            long[] bloom = null;
+            int hashes = 0;
+            if (bloomBitsPerSerial > 0 && n > 0) {
+                long bits = Long.highestOneBit(Math.max(64L, (long) n * bloomBitsPerSerial - 1) * 2);
+                bloom = new long[(int) Math.min(bits / 64, 1 << 24)];
+                hashes = Math.max(1, Math.min(16, (int) Math.round(bloomBitsPerSerial * Math.log(2))));
+                int mask = bloom.length * 64 - 1;
+                for (int i = 0; i < n; i++) {
+                    long hash = hash(packed, packedOffsets[i], packedOffsets[i + 1] - packedOffsets[i]);
+                    int h1 = (int) hash;
+                    int h2 = (int) (hash >>> 32) | 1;
+                    for (int k = 0; k < hashes; k++) {
+                        int bit = (h1 + k * h2) & mask;
+                        bloom[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+            return new RevokedSerialIndex(packed, packedOffsets, bloom, hashes);
+        }
+
+        // Bottom-up merge sort of entry indices; avoids boxing them for a Comparator
+        private void sort(int[] order) {
+            int[] scratch = new int[order.length];
+            for (int width = 1; width < order.length; width *= 2) {
+                for (int low = 0; low < order.length - width; low += 2 * width) {
+                    int middle = low + width;
+                    int high = Math.min(low + 2 * width, order.length);
+                    int i = low, j = middle, k = low;
+                    while (i < middle && j < high) {
+                        scratch[k++] = compareEntries(order[j], order[i]) < 0 ? order[j++] : order[i++];
+                    }
+                    while (i < middle) {
+                        scratch[k++] = order[i++];
+                    }
+                    while (j < high) {
+                        scratch[k++] = order[j++];
+                    }
+                    System.arraycopy(scratch, low, order, low, high - low);
+                }
+            }
+        }
+
+        private int compareEntries(int a, int b) {
+            return compare(data, offsets[a], offsets[a + 1], data, offsets[b], offsets[b + 1]);
+        }
+    }
+}
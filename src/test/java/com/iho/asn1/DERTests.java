@@ -1,14 +1,54 @@
 package com.iho.asn1;
 
+import com.iho.asn1.annotation.DERSequence;
+import com.iho.asn1.annotation.Explicit;
+import com.iho.asn1.annotation.Implicit;
+import com.iho.asn1.annotation.Optional;
+import com.iho.asn1.annotation.SetOf;
+import com.iho.asn1.cms.SignedDataReader;
+import com.iho.asn1.generated.AutomaticTags;
+import com.iho.asn1.generated.AutomaticTags_BodyCodec;
+import com.iho.asn1.generated.AutomaticTags_MessageCodec;
+import com.iho.asn1.x509.CRLReader;
+import com.iho.asn1.x509.RevokedSerialIndex;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.HexFormat;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DERTests {
 
@@ -180,7 +220,7 @@ public class DERTests {
 
         ASN1Node node = DERParser.parse(encoded);
         ASN1Time.GeneralizedTime decoded = new ASN1Time.GeneralizedTime(null).fromDERNode(node);
-        assertEquals(dt.toInstant(), decoded.value.toInstant());
+        assertEquals(dt.toInstant(), decoded.value().toInstant());
     }
 
     @Test
@@ -221,6 +261,31 @@ public class DERTests {
         // We verify serialization correctness here.
     }
 
+    @Test
+    public void test_implicit_tagging_constructed_and_long_form() throws ASN1Exception {
+        List<DERSerializable> comps = new ArrayList<>();
+        comps.add(new ASN1Integer(1));
+        comps.add(new ASN1Boolean(true));
+        ASN1Implicit implicit = new ASN1Implicit(new ASN1Identifier(1, TagClass.ContextSpecific), new ASN1Sequence(comps));
+
+        DERWriter writer = new DERWriter();
+        implicit.serialize(writer);
+        // [1] constructed: A1 06 02 01 01 01 01 FF
+        assertArrayEquals(new byte[]{(byte) 0xA1, 0x06, 0x02, 0x01, 0x01, 0x01, 0x01, (byte) 0xFF}, writer.toByteArray());
+
+        // Long-form tag grows the header: [PRIVATE 200] -> DF 81 48
+        writer = new DERWriter();
+        writer.writeRaw(new byte[]{0x05, 0x00});
+        new ASN1Implicit(new ASN1Identifier(200, TagClass.Private), new ASN1Integer(42)).serialize(writer);
+        assertArrayEquals(new byte[]{0x05, 0x00, (byte) 0xDF, (byte) 0x81, 0x48, 0x01, 0x2A}, writer.toByteArray());
+
+        // And shrinking back to a short-form tag
+        writer = new DERWriter();
+        new ASN1Implicit(new ASN1Identifier(2, TagClass.ContextSpecific),
+                new ASN1Implicit(new ASN1Identifier(200, TagClass.Private), new ASN1Integer(42))).serialize(writer);
+        assertArrayEquals(new byte[]{(byte) 0x82, 0x01, 0x2A}, writer.toByteArray());
+    }
+
     @Test
     public void test_real_decimal_decoding() throws ASN1Exception {
         // Construct "123.45" decimal encoding
@@ -297,4 +362,1332 @@ public class DERTests {
         assertArrayEquals(new byte[]{0x1B, 0x03, 'G', 'e', 'n'}, encoded);
         assertEquals(gen, new ASN1String.GeneralString("").fromDERNode(DERParser.parse(encoded)));
     }
+
+    @Test
+    public void test_stream_encoder_matches_in_memory_encoding() throws ASN1Exception, IOException {
+        List<DERSerializable> comps = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            comps.add(new ASN1Integer((i * 7919L) % 1000 - 500));
+        }
+
+        DERWriter writer = new DERWriter();
+        new ASN1Sequence(comps).serialize(writer);
+        byte[] expectedSequence = writer.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = DERStreamEncoder.writeSequenceOf(comps, out);
+        assertEquals(expectedSequence.length, written);
+        assertArrayEquals(expectedSequence, out.toByteArray());
+
+        out = new ByteArrayOutputStream();
+        DERStreamEncoder.writeSequenceOf(comps.iterator(), out);
+        assertArrayEquals(expectedSequence, out.toByteArray());
+
+        writer = new DERWriter();
+        new ASN1Set(comps).serialize(writer);
+        byte[] expectedSet = writer.toByteArray();
+
+        // Small runs force the spill-and-merge path
+        out = new ByteArrayOutputStream();
+        DERStreamEncoder.writeSetOf(ASN1Identifier.SET, comps.iterator(), out, 64);
+        assertArrayEquals(expectedSet, out.toByteArray());
+
+        out = new ByteArrayOutputStream();
+        DERStreamEncoder.writeSetOf(comps.iterator(), out);
+        assertArrayEquals(expectedSet, out.toByteArray());
+    }
+
+    @Test
+    public void test_large_payloads_are_referenced_not_copied() throws ASN1Exception, IOException {
+        byte[] payload = new byte[100_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        List<DERSerializable> comps = new ArrayList<>();
+        comps.add(new ASN1Integer(1));
+        comps.add(new ASN1OctetString(payload));
+        comps.add(new ASN1Implicit(new ASN1Identifier(0, TagClass.ContextSpecific), new ASN1OctetString(payload)));
+
+        DERWriter writer = new DERWriter();
+        new ASN1Sequence(comps).serialize(writer);
+        assertEquals(2 * (payload.length + 5) + 3 + 5, writer.size());
+
+        // Mutating the source after serialization shows the writer kept a reference
+        payload[0] = 0x7F;
+        byte[] flat = writer.toByteArray();
+        assertEquals(0x7F, flat[5 + 3 + 5]);
+
+        ByteBuffer[] gathered = writer.toByteBuffers();
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (ByteBuffer b : gathered) {
+            byte[] chunk = new byte[b.remaining()];
+            b.get(chunk);
+            joined.write(chunk);
+        }
+        assertArrayEquals(flat, joined.toByteArray());
+
+        ASN1Node node = DERParser.parse(flat);
+        List<ASN1Node> children = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) node.content) {
+            children.add(child);
+        }
+        assertEquals(3, children.size());
+        assertEquals(new ASN1Identifier(0, TagClass.ContextSpecific), children.get(2).identifier);
+        assertArrayEquals(payload, ((ASN1Node.Primitive) children.get(2).content).data);
+    }
+
+    @Test
+    public void test_file_region_payload_is_transferred() throws ASN1Exception, IOException {
+        Path source = Files.createTempFile("der-payload-", ".bin");
+        Path target = Files.createTempFile("der-output-", ".der");
+        try {
+            byte[] payload = new byte[50_000];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = (byte) (i * 31);
+            }
+            Files.write(source, payload);
+
+            DERWriter expectedWriter = new DERWriter();
+            new ASN1Sequence(List.of(new ASN1OctetString(payload))).serialize(expectedWriter);
+
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DERWriter writer = new DERWriter();
+                new ASN1Sequence(List.of(ASN1OctetString.reference(in, 0, payload.length))).serialize(writer);
+                writer.writeTo(out);
+                assertArrayEquals(expectedWriter.toByteArray(), writer.toByteArray());
+            }
+            assertArrayEquals(expectedWriter.toByteArray(), Files.readAllBytes(target));
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+
+    @Test
+    public void test_pre_encoded_and_node_passthrough() throws ASN1Exception {
+        // AlgorithmIdentifier { sha256WithRSAEncryption, NULL }
+        List<DERSerializable> algorithm = new ArrayList<>();
+        algorithm.add(ASN1ObjectIdentifier.of("1.2.840.113549.1.1.11"));
+        algorithm.add(ASN1Null.INSTANCE);
+        ASN1Sequence algorithmSequence = new ASN1Sequence(algorithm);
+        DERPreEncoded constant = DERPreEncoded.of(algorithmSequence);
+
+        DERWriter expected = new DERWriter();
+        new ASN1Sequence(List.of(new ASN1Integer(7), algorithmSequence)).serialize(expected);
+        DERWriter actual = new DERWriter();
+        new ASN1Sequence(List.of(new ASN1Integer(7), constant)).serialize(actual);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+        // Parsed subtrees are forwarded unchanged
+        ASN1Node parsed = DERParser.parse(actual.toByteArray());
+        List<DERSerializable> forwarded = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) parsed.content) {
+            forwarded.add(child);
+        }
+        DERWriter passthrough = new DERWriter();
+        new ASN1Sequence(forwarded).serialize(passthrough);
+        assertArrayEquals(expected.toByteArray(), passthrough.toByteArray());
+        assertEquals(constant, DERPreEncoded.fromNode(DERParser.parse(constant.toByteArray())));
+
+        assertThrows(ASN1Exception.class, () -> DERPreEncoded.of(new byte[]{0x02, 0x02, 0x00}));
+        assertThrows(ASN1Exception.class, () -> DERPreEncoded.of(new byte[]{0x05, 0x00, 0x05, 0x00}));
+    }
+
+    private static DERSerializable responseShape(DERSerializable serial, DERSerializable producedAt, DERSerializable nonce) {
+        List<DERSerializable> algorithm = new ArrayList<>();
+        algorithm.add(ASN1ObjectIdentifier.of("1.2.840.113549.1.1.11"));
+        algorithm.add(ASN1Null.INSTANCE);
+        List<DERSerializable> body = new ArrayList<>();
+        body.add(new ASN1Integer(1));
+        body.add(new ASN1Sequence(algorithm));
+        body.add(new ASN1Explicit(new ASN1Identifier(0, TagClass.ContextSpecific), serial));
+        body.add(producedAt);
+        body.add(new ASN1Implicit(new ASN1Identifier(2, TagClass.ContextSpecific), nonce));
+        return new ASN1Sequence(List.of(new ASN1Sequence(body), new ASN1String.PrintableString("fixed tail")));
+    }
+
+    @Test
+    public void test_template_matches_full_encoding() throws ASN1Exception {
+        DERTemplate template = DERTemplate.compile(responseShape(
+                DERTemplate.slot("serial"), DERTemplate.slot("producedAt"), DERTemplate.slot("nonce")));
+        assertEquals(List.of("serial", "producedAt", "nonce"), template.slotNames());
+        assertEquals(2, template.slotIndex("nonce"));
+
+        for (int nonceLength : new int[]{0, 16, 200, 70_000}) {
+            ASN1Integer serial = new ASN1Integer(new BigInteger(1, new byte[nonceLength % 20 + 1]).add(BigInteger.valueOf(nonceLength)));
+            ASN1Time.GeneralizedTime producedAt = new ASN1Time.GeneralizedTime(ZonedDateTime.of(2024, 2, 29, 23, 59, 58, 0, ZoneOffset.UTC));
+            ASN1OctetString nonce = new ASN1OctetString(new byte[nonceLength]);
+
+            DERWriter expected = new DERWriter();
+            responseShape(serial, producedAt, nonce).serialize(expected);
+            assertArrayEquals(expected.toByteArray(), template.encode(serial, producedAt, nonce));
+
+            DERWriter writer = new DERWriter();
+            template.encode(writer, Map.of("serial", serial, "producedAt", producedAt, "nonce", nonce));
+            assertArrayEquals(expected.toByteArray(), writer.toByteArray());
+        }
+
+        assertThrows(ASN1Exception.class, () -> template.encode(new ASN1Integer(1)));
+        assertThrows(ASN1Exception.class, () -> DERTemplate.compile(new ASN1Integer(1)));
+    }
+
+    @Test
+    public void test_template_slot_tagged_two_ways() throws ASN1Exception {
+        ASN1Identifier tag = new ASN1Identifier(0, TagClass.ContextSpecific);
+        for (boolean taggedFirst : new boolean[]{true, false}) {
+            DERSerializable tagged = new ASN1Implicit(tag, DERTemplate.slot("nonce"));
+            DERSerializable untagged = DERTemplate.slot("nonce");
+            DERTemplate template = DERTemplate.compile(new ASN1Sequence(taggedFirst ? List.of(tagged, untagged) : List.of(untagged, tagged)));
+            assertEquals(List.of("nonce"), template.slotNames());
+
+            ASN1OctetString nonce = new ASN1OctetString(new byte[]{1, 2, 3});
+            DERSerializable expectedTagged = new ASN1Implicit(tag, nonce);
+            assertArrayEquals(encode(new ASN1Sequence(taggedFirst ? List.of(expectedTagged, nonce) : List.of(nonce, expectedTagged))),
+                    template.encode(nonce));
+        }
+    }
+
+    @Test
+    public void test_template_sorts_set_after_filling_slots() throws ASN1Exception {
+        DERTemplate template = DERTemplate.compile(new ASN1Set(List.of(DERTemplate.slot("a"), new ASN1Integer(5))));
+        assertEquals("3106020101020105", HexFormat.of().formatHex(template.encode(new ASN1Integer(1))));
+        assertEquals("3106020105020109", HexFormat.of().formatHex(template.encode(new ASN1Integer(9))));
+
+        ASN1Identifier tag = new ASN1Identifier(1, TagClass.ContextSpecific);
+        DERTemplate implicit = DERTemplate.compile(new ASN1Sequence(List.of(
+                new ASN1Implicit(tag, new ASN1Set(List.of(DERTemplate.slot("a"), new ASN1Integer(5)))))));
+        DERWriter expected = new DERWriter();
+        new ASN1Sequence(List.of(new ASN1Implicit(tag, new ASN1Set(List.of(new ASN1Integer(1), new ASN1Integer(5))))))
+                .serialize(expected);
+        assertArrayEquals(expected.toByteArray(), implicit.encode(new ASN1Integer(1)));
+    }
+
+    @Test
+    public void test_parallel_sequence_is_byte_identical() throws ASN1Exception {
+        List<DERSerializable> comps = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            List<DERSerializable> entry = new ArrayList<>();
+            entry.add(new ASN1Integer(BigInteger.valueOf(i).shiftLeft(i % 130)));
+            entry.add(new ASN1String.UTF8String("entry-" + i));
+            entry.add(new ASN1OctetString(new byte[i % 9]));
+            comps.add(new ASN1Set(entry));
+        }
+        ASN1Sequence seq = new ASN1Sequence(comps);
+
+        DERWriter sequential = new DERWriter();
+        seq.serialize(sequential);
+
+        DERWriter parallel = new DERWriter();
+        seq.serializeParallel(parallel);
+        assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            parallel = new DERWriter();
+            seq.serializeParallel(parallel, executor, 97);
+            assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+
+            List<DERSerializable> broken = new ArrayList<>(comps);
+            broken.add(2_500, new ASN1Real(Double.NaN));
+            ASN1Exception e = assertThrows(ASN1Exception.class,
+                    () -> new ASN1Sequence(broken).serializeParallel(new DERWriter(), executor, 100));
+            assertEquals(ErrorCode.InvalidASN1Object, e.getCode());
+        }
+    }
+
+    @Test
+    public void test_integer_long_fast_path() throws ASN1Exception {
+        long[] values = {0, 1, -1, 127, 128, -128, -129, 255, 256, 32767, -32768, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE, 1L << 55, -(1L << 55) - 1};
+        for (long v : values) {
+            DERWriter writer = new DERWriter();
+            new ASN1Integer(v).serialize(writer);
+            byte[] expected = new byte[2 + BigInteger.valueOf(v).toByteArray().length];
+            expected[0] = 0x02;
+            expected[1] = (byte) (expected.length - 2);
+            System.arraycopy(BigInteger.valueOf(v).toByteArray(), 0, expected, 2, expected.length - 2);
+            assertArrayEquals(expected, writer.toByteArray(), "value " + v);
+
+            ASN1Node node = DERParser.parse(expected);
+            ASN1Integer decoded = new ASN1Integer(0).fromDERNode(node);
+            assertTrue(decoded.fitsInLong());
+            assertEquals(v, decoded.longValueExact());
+            assertEquals(v, ASN1Integer.decodeLong(node));
+            assertEquals(BigInteger.valueOf(v), decoded.value());
+            assertEquals(new ASN1Integer(BigInteger.valueOf(v)), decoded);
+            assertEquals(new ASN1Integer(BigInteger.valueOf(v)).hashCode(), decoded.hashCode());
+        }
+
+        assertSame(ASN1Integer.valueOf(3), new ASN1Integer(0).fromDERNode(DERParser.parse(new byte[]{0x02, 0x01, 0x03})));
+        assertEquals(-5, ASN1Integer.valueOf(-5).intValueExact());
+        assertThrows(ArithmeticException.class, () -> new ASN1Integer(1L << 40).intValueExact());
+
+        BigInteger big = BigInteger.ONE.shiftLeft(63);
+        ASN1Node bigNode = DERParser.parse(new byte[]{0x02, 0x09, 0x00, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0});
+        ASN1Integer decodedBig = new ASN1Integer(0).fromDERNode(bigNode);
+        assertFalse(decodedBig.fitsInLong());
+        assertEquals(big, decodedBig.value());
+        assertThrows(ArithmeticException.class, decodedBig::longValueExact);
+        assertThrows(ASN1Exception.class, () -> ASN1Integer.decodeLong(bigNode));
+        assertThrows(ASN1Exception.class, () -> new ASN1Integer(0).fromDERNode(DERParser.parse(new byte[]{0x02, 0x02, 0x00, 0x01})));
+        assertThrows(ASN1Exception.class, () -> new ASN1Integer(0).fromDERNode(DERParser.parse(new byte[]{0x02, 0x02, (byte) 0xFF, (byte) 0x80})));
+    }
+
+    private enum Algorithm { RSA, SHA256_WITH_RSA, EC_PUBLIC_KEY, UNKNOWN }
+
+    @Test
+    public void test_oid_registry_lookup_and_interning() throws ASN1Exception {
+        OIDRegistry<Algorithm> registry = new OIDRegistry<>();
+        OIDRegistry.Entry<Algorithm> rsa = registry.register("1.2.840.113549.1.1.1", "rsaEncryption", Algorithm.RSA);
+        registry.register("1.2.840.113549.1.1.11", "sha256WithRSAEncryption", Algorithm.SHA256_WITH_RSA);
+        registry.register("1.2.840.10045.2.1", "id-ecPublicKey", Algorithm.EC_PUBLIC_KEY);
+        assertEquals(3, registry.size());
+        assertThrows(IllegalArgumentException.class, () -> registry.register("1.2.840.113549.1.1.1", "dup", Algorithm.RSA));
+
+        DERWriter writer = new DERWriter();
+        ASN1ObjectIdentifier.of("1.2.840.113549.1.1.1").serialize(writer);
+        ASN1Node node = DERParser.parse(writer.toByteArray());
+        assertSame(rsa, registry.lookup(node));
+        assertSame(rsa.oid, registry.intern(node));
+        assertEquals("rsaEncryption", registry.lookup(node).name);
+
+        String described;
+        switch (registry.keyOf(node, Algorithm.UNKNOWN)) {
+            case RSA: described = "rsa"; break;
+            case UNKNOWN: described = "unknown"; break;
+            default: described = "other";
+        }
+        assertEquals("rsa", described);
+
+        // Prefixes and unregistered arcs do not match
+        writer = new DERWriter();
+        ASN1ObjectIdentifier.of("1.2.840.113549.1.1").serialize(writer);
+        ASN1Node prefix = DERParser.parse(writer.toByteArray());
+        assertNull(registry.lookup(prefix));
+        assertEquals(Algorithm.UNKNOWN, registry.keyOf(prefix, Algorithm.UNKNOWN));
+        assertEquals(ASN1ObjectIdentifier.of("1.2.840.113549.1.1"), registry.intern(prefix));
+        assertEquals(Algorithm.EC_PUBLIC_KEY, registry.lookup(ASN1ObjectIdentifier.of("1.2.840.10045.2.1")).key);
+        assertNull(registry.lookup(DERParser.parse(new byte[]{0x05, 0x00})));
+    }
+
+    @Test
+    public void test_oid_components_and_dotted_form() throws ASN1Exception {
+        String[] dotted = {"0.0", "1.39", "2.5.4.3", "2.999.1", "1.2.840.113549.1.1.11", "1.3.6.1.4.1.11129.2.4.2",
+                "2.25.9223372036854775807"};
+        for (String s : dotted) {
+            ASN1ObjectIdentifier oid = new ASN1ObjectIdentifier(s);
+            assertEquals(s, oid.toDottedString());
+            assertSame(oid.toDottedString(), oid.toDottedString());
+            assertEquals("ASN1ObjectIdentifier(" + s + ")", oid.toString());
+
+            long[] comps = oid.getComponents();
+            assertEquals(comps.length, oid.componentCount());
+            assertEquals(oid, new ASN1ObjectIdentifier(comps));
+
+            long[] scratch = new long[16];
+            assertEquals(comps.length, oid.getComponents(scratch));
+            assertArrayEquals(comps, Arrays.copyOf(scratch, comps.length));
+
+            DERWriter writer = new DERWriter();
+            oid.serialize(writer);
+            assertEquals(oid, new ASN1ObjectIdentifier(new long[]{0, 0}).fromDERNode(DERParser.parse(writer.toByteArray())));
+        }
+
+        // 2.999 uses the combined first subidentifier 1079 = 0x88 0x37
+        DERWriter writer = new DERWriter();
+        ASN1ObjectIdentifier.of("2.999.3").serialize(writer);
+        assertArrayEquals(new byte[]{0x06, 0x03, (byte) 0x88, 0x37, 0x03}, writer.toByteArray());
+
+        assertThrows(ASN1Exception.class, () -> ASN1ObjectIdentifier.of("1.2.840").getComponents(new long[2]));
+        for (String bad : new String[]{"1", "", "1..2", "1.2.", "3.1", "1.40", "1.2.x", "1.2.-3", "1.2.99999999999999999999"}) {
+            assertThrows(ASN1Exception.class, () -> new ASN1ObjectIdentifier(bad), bad);
+        }
+    }
+
+    private static ASN1Node timeNode(int tag, String text) throws ASN1Exception {
+        return primitiveNode(tag, text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static ASN1Node primitiveNode(int tag, byte... content) throws ASN1Exception {
+        byte[] der = new byte[2 + content.length];
+        der[0] = (byte) tag;
+        der[1] = (byte) content.length;
+        System.arraycopy(content, 0, der, 2, content.length);
+        return DERParser.parse(der);
+    }
+
+    @Test
+    public void test_time_codec_matches_java_time() throws ASN1Exception {
+        DateTimeFormatter generalized = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+        DateTimeFormatter utc = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            long epoch = -631152000L + (long) (random.nextDouble() * 3155760000L);
+            Instant instant = Instant.ofEpochSecond(epoch);
+            String gt = generalized.format(instant);
+            ASN1Time.GeneralizedTime decodedGt = new ASN1Time.GeneralizedTime(null).fromDERNode(timeNode(0x18, gt));
+            assertEquals(epoch, decodedGt.epochSecond(), gt);
+            assertEquals(instant, decodedGt.value().toInstant());
+            assertArrayEquals(timeNode(0x18, gt).encodedBytes, encode(decodedGt));
+
+            String ut = utc.format(instant);
+            ASN1Time.UTCTime decodedUt = new ASN1Time.UTCTime(null).fromDERNode(timeNode(0x17, ut));
+            assertEquals(epoch, decodedUt.epochSecond(), ut);
+            assertArrayEquals(timeNode(0x17, ut).encodedBytes, encode(new ASN1Time.UTCTime(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC))));
+            assertEquals(0, ASN1Time.compareEncoded(timeNode(0x17, ut), instant));
+        }
+    }
+
+    private static byte[] encode(DERSerializable value) throws ASN1Exception {
+        DERWriter writer = new DERWriter();
+        value.serialize(writer);
+        return writer.toByteArray();
+    }
+
+    @Test
+    public void test_time_codec_strict_der() throws ASN1Exception {
+        ASN1Time.GeneralizedTime fractional = new ASN1Time.GeneralizedTime(null).fromDERNode(timeNode(0x18, "20240229235959.125Z"));
+        assertEquals(Instant.parse("2024-02-29T23:59:59.125Z"), fractional.toInstant());
+        assertEquals(125_000_000, fractional.nano());
+        assertArrayEquals(timeNode(0x18, "20240229235959.125Z").encodedBytes, encode(fractional));
+        assertArrayEquals(timeNode(0x18, "00010101000000.000000001Z").encodedBytes,
+                encode(new ASN1Time.GeneralizedTime(Instant.parse("0001-01-01T00:00:00.000000001Z").getEpochSecond(), 1)));
+        assertThrows(IllegalArgumentException.class, () -> new ASN1Time.GeneralizedTime(0, 1_000_000_000));
+        assertThrows(IllegalArgumentException.class, () -> new ASN1Time.GeneralizedTime(0, -1));
+
+        Instant instant = Instant.parse("2024-02-29T23:59:59.125Z");
+        assertEquals(0, fractional.compareTo(instant));
+        assertTrue(fractional.isBefore(instant.plusNanos(1)));
+        assertTrue(fractional.isAfter(instant.minusSeconds(1)));
+        assertTrue(ASN1Time.compareEncoded(timeNode(0x18, "20240229235959.125Z"), instant.plusMillis(1)) < 0);
+        assertTrue(ASN1Time.compareEncoded(timeNode(0x17, "500101000000Z"), Instant.parse("1950-01-01T00:00:00Z")) == 0);
+        assertTrue(ASN1Time.compareEncoded(timeNode(0x17, "491231235959Z"), Instant.parse("2049-12-31T23:59:59Z")) == 0);
+
+        String[] badGeneralized = {"20230101120000", "202301011200Z", "20230230120000Z", "20231301120000Z", "20230101240000Z",
+                "20230101120060Z", "20230101120000.Z", "20230101120000.10Z", "20230101120000,1Z", "20230101120000.1234567891Z",
+                "2023010112000aZ", "20230101120000+0100"};
+        for (String bad : badGeneralized) {
+            assertThrows(ASN1Exception.class, () -> new ASN1Time.GeneralizedTime(null).fromDERNode(timeNode(0x18, bad)), bad);
+        }
+        String[] badUtc = {"2301011200Z", "230101120000", "230229120000Z", "230101120000.5Z"};
+        for (String bad : badUtc) {
+            assertThrows(ASN1Exception.class, () -> new ASN1Time.UTCTime(null).fromDERNode(timeNode(0x17, bad)), bad);
+        }
+        assertThrows(ASN1Exception.class, () -> encode(new ASN1Time.UTCTime(ZonedDateTime.of(2050, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC))));
+        assertThrows(ASN1Exception.class, () -> encode(new ASN1Time.GeneralizedTime(ZonedDateTime.of(10000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC))));
+
+        // Non-UTC zones are normalised to UTC on encoding
+        ZonedDateTime plusTwo = ZonedDateTime.of(2023, 1, 1, 14, 0, 0, 0, ZoneOffset.ofHours(2));
+        assertArrayEquals(timeNode(0x18, "20230101120000Z").encodedBytes, encode(new ASN1Time.GeneralizedTime(plusTwo)));
+    }
+
+    @Test
+    public void test_string_byte_backed() throws ASN1Exception {
+        ASN1String.PrintableString printable = new ASN1String.PrintableString("").fromDERNode(timeNode(0x13, "Test CA 1"));
+        assertEquals(new ASN1String.PrintableString("Test CA 1"), printable);
+        assertEquals(new ASN1String.PrintableString("Test CA 1").hashCode(), printable.hashCode());
+        assertEquals(9, printable.byteLength());
+        assertEquals("Test CA 1", printable.value());
+        assertArrayEquals(timeNode(0x13, "Test CA 1").encodedBytes, encode(printable));
+
+        ASN1String.UTF8String utf8 = new ASN1String.UTF8String("").fromDERNode(
+                primitiveNode(0x0C, "h\u00e9llo".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(new ASN1String.UTF8String("h\u00e9llo"), utf8);
+        assertEquals("h\u00e9llo", utf8.value());
+        ASN1String.BMPString bmp = new ASN1String.BMPString("").fromDERNode(primitiveNode(0x1E, (byte) 0x00, (byte) 0x41, (byte) 0x04, (byte) 0x16));
+        assertEquals("A\u0416", bmp.value());
+        assertArrayEquals(new byte[]{0x1E, 0x04, 0x00, 0x41, 0x04, 0x16}, encode(new ASN1String.BMPString("A\u0416")));
+
+        // Decoding rejects bytes outside the type's alphabet; constructing from a String keeps throwing IllegalArgumentException
+        assertThrows(ASN1Exception.class, () -> new ASN1String.PrintableString("").fromDERNode(timeNode(0x13, "a@b")));
+        assertThrows(ASN1Exception.class, () -> new ASN1String.NumericString("").fromDERNode(timeNode(0x12, "12a")));
+        assertThrows(ASN1Exception.class, () -> new ASN1String.IA5String("").fromDERNode(primitiveNode(0x16, (byte) 0x80)));
+        assertThrows(ASN1Exception.class, () -> new ASN1String.VisibleString("").fromDERNode(primitiveNode(0x1A, (byte) 0x09)));
+        assertThrows(IllegalArgumentException.class, () -> new ASN1String.PrintableString("a*b"));
+        assertThrows(IllegalArgumentException.class, () -> new ASN1String.IA5String("\u00e9"));
+        assertEquals("12 34", new ASN1String.NumericString("").fromDERNode(timeNode(0x12, "12 34")).value());
+    }
+
+    @Test
+    public void test_string_validator_matches_scalar() throws ASN1Exception {
+        Random random = new Random(37);
+        byte[] valid = "AZaz09 '()+,-./:=?".getBytes(StandardCharsets.US_ASCII);
+        for (StringValidator.Alphabet alphabet : StringValidator.Alphabet.values()) {
+            // Every byte value at every position of a word-and-a-half of otherwise valid content
+            for (int position = 0; position < 12; position++) {
+                for (int b = 0; b < 256; b++) {
+                    byte[] data = new byte[12];
+                    Arrays.fill(data, (byte) '1');
+                    data[position] = (byte) b;
+                    assertEquals(StringValidator.firstInvalidScalar(alphabet, data, 0, data.length),
+                            StringValidator.firstInvalid(alphabet, data, 0, data.length), alphabet + " byte " + b + " at " + position);
+                }
+            }
+            for (int round = 0; round < 2000; round++) {
+                byte[] data = new byte[random.nextInt(40)];
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = random.nextInt(8) == 0 ? (byte) random.nextInt(256) : valid[random.nextInt(valid.length)];
+                }
+                int offset = data.length == 0 ? 0 : random.nextInt(data.length);
+                int length = data.length - offset;
+                assertEquals(StringValidator.firstInvalidScalar(alphabet, data, offset, length),
+                        StringValidator.firstInvalid(alphabet, data, offset, length), alphabet + " " + Arrays.toString(data));
+            }
+        }
+
+        // UTF-8 well-formedness agrees with the JDK's strict decoder
+        for (int round = 0; round < 5000; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                int kind = random.nextInt(4);
+                text.appendCodePoint(kind == 0 ? random.nextInt(0x80) : kind == 1 ? 0x80 + random.nextInt(0x780)
+                        : kind == 2 ? 0x800 + random.nextInt(0xD000) : 0x10000 + random.nextInt(0x100000));
+            }
+            byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+            if (data.length > 0 && random.nextBoolean()) {
+                data[random.nextInt(data.length)] = (byte) random.nextInt(256);
+            }
+            boolean jdkValid;
+            try {
+                StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(data));
+                jdkValid = true;
+            } catch (CharacterCodingException e) {
+                jdkValid = false;
+            }
+            int scalar = StringValidator.firstInvalidScalar(StringValidator.Alphabet.UTF8, data, 0, data.length);
+            assertEquals(jdkValid, scalar < 0, Arrays.toString(data));
+            assertEquals(scalar, StringValidator.firstInvalid(StringValidator.Alphabet.UTF8, data, 0, data.length));
+        }
+        byte[][] malformed = {{(byte) 0xC0, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, {(byte) 0xE2, (byte) 0x82}};
+        for (byte[] bad : malformed) {
+            assertThrows(ASN1Exception.class, () -> new ASN1String.UTF8String("").fromDERNode(primitiveNode(0x0C, bad)));
+        }
+    }
+
+    @Test
+    public void test_primitive_array_codecs() throws ASN1Exception {
+        long[] longs = {0, 1, -1, 127, 128, -128, -129, 255, 65536, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE};
+        List<DERSerializable> integers = new ArrayList<>();
+        for (long value : longs) {
+            integers.add(new ASN1Integer(value));
+        }
+        byte[] encodedLongs = encode(DERArrays.sequenceOf(longs));
+        assertArrayEquals(encode(new ASN1Sequence(integers)), encodedLongs);
+        assertArrayEquals(longs, DERArrays.decodeLongs(encodedLongs));
+        assertArrayEquals(longs, DERArrays.decodeLongs(DERParser.parse(encodedLongs)));
+
+        Random random = new Random(38);
+        double[] doubles = new double[2000];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(doubles[i])) doubles[i] = i;
+        }
+        double[] specials = {0.0, 1.0, -2.5, 0.1, Double.MIN_VALUE, -Double.MIN_NORMAL, Double.MAX_VALUE,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 3.0e-310};
+        System.arraycopy(specials, 0, doubles, 0, specials.length);
+        List<DERSerializable> reals = new ArrayList<>();
+        for (double value : doubles) {
+            reals.add(new ASN1Real(value));
+        }
+        byte[] encodedDoubles = encode(DERArrays.sequenceOf(doubles));
+        assertArrayEquals(encode(new ASN1Sequence(reals)), encodedDoubles);
+        assertArrayEquals(doubles, DERArrays.decodeDoubles(encodedDoubles));
+        assertArrayEquals(doubles, DERArrays.decodeDoubles(DERParser.parse(encodedDoubles)));
+        // 2.5 = 5 * 2^-1: sign/base-2 header, one exponent byte, odd mantissa
+        assertArrayEquals(new byte[]{0x09, 0x03, (byte) 0xC0, (byte) 0xFF, 0x05}, encode(new ASN1Real(-2.5)));
+
+        boolean[] booleans = {true, false, false, true, true};
+        byte[] encodedBooleans = encode(DERArrays.sequenceOf(booleans));
+        assertArrayEquals(booleans, DERArrays.decodeBooleans(encodedBooleans));
+        assertArrayEquals(new boolean[0], DERArrays.decodeBooleans(new byte[]{0x30, 0x00}));
+
+        assertThrows(ASN1Exception.class, () -> DERArrays.decodeLongs(encodedDoubles));
+        assertThrows(ASN1Exception.class, () -> DERArrays.decodeLongs(new byte[]{0x30, 0x04, 0x02, 0x02, 0x00, 0x01}));
+        assertThrows(ASN1Exception.class, () -> DERArrays.decodeLongs(encode(new ASN1Sequence(List.of(new ASN1Integer(BigInteger.ONE.shiftLeft(70)))))));
+        assertThrows(ASN1Exception.class, () -> DERArrays.decodeBooleans(new byte[]{0x30, 0x03, 0x01, 0x01, 0x01}));
+        assertThrows(ASN1Exception.class, () -> DERArrays.decodeBooleans(new byte[]{0x30, 0x04, 0x01, 0x01, 0x00}));
+    }
+
+    @Test
+    public void test_real_binary_decoding_rounds_once() throws ASN1Exception {
+        // Base 16 with scale factor 1: 3 * 2^1 * 16^1
+        assertEquals(96.0, new ASN1Real(0).fromDERNode(primitiveNode(0x09, new byte[]{(byte) 0xA4, 0x01, 0x03})).value);
+        // Base 8, two-byte exponent: 1 * 8^-2
+        assertEquals(1.0 / 64, new ASN1Real(0).fromDERNode(primitiveNode(0x09, new byte[]{(byte) 0x91, (byte) 0xFF, (byte) 0xFE, 0x01})).value);
+
+        Random random = new Random(1075);
+        for (int round = 0; round < 5000; round++) {
+            long mantissa = random.nextLong() >>> random.nextInt(64);
+            int exponent = random.nextInt(2300) - 1200;
+            if (round % 4 == 0) {
+                // Land exactly on a halfway point between two doubles
+                mantissa = ((random.nextLong() >>> 11) | (1L << 52)) << 1 | 1;
+                mantissa <<= 8;
+            }
+            byte[] content = new byte[11];
+            content[0] = (byte) 0x81;
+            content[1] = (byte) (exponent >> 8);
+            content[2] = (byte) exponent;
+            for (int i = 0; i < 8; i++) {
+                content[3 + i] = (byte) (mantissa >>> (56 - 8 * i));
+            }
+            BigDecimal exact = new BigDecimal(new BigInteger(Long.toUnsignedString(mantissa)));
+            exact = exponent >= 0 ? exact.multiply(new BigDecimal(BigInteger.TWO.pow(exponent)))
+                    : exact.divide(new BigDecimal(BigInteger.TWO.pow(-exponent)));
+            assertEquals(exact.doubleValue(), new ASN1Real(0).fromDERNode(primitiveNode(0x09, content)).value,
+                    Long.toUnsignedString(mantissa) + " * 2^" + exponent);
+        }
+    }
+
+    @Test
+    public void test_octet_and_bit_string_views() throws ASN1Exception {
+        // KeyUsage: digitalSignature (0), keyEncipherment (2), keyCertSign (5) -> 0xA4, 2 unused bits
+        ASN1BitString keyUsage = new ASN1BitString(new byte[0], 0).fromDERNode(primitiveNode(0x03, new byte[]{0x02, (byte) 0xA4}));
+        assertEquals(6, keyUsage.bitLength());
+        assertTrue(keyUsage.testBit(0));
+        assertFalse(keyUsage.testBit(1));
+        assertTrue(keyUsage.testBit(2));
+        assertTrue(keyUsage.testBit(5));
+        assertFalse(keyUsage.testBit(8));
+        assertThrows(IndexOutOfBoundsException.class, () -> keyUsage.testBit(-1));
+        assertArrayEquals(new byte[]{0x03, 0x02, 0x02, (byte) 0xA4}, encode(keyUsage));
+
+        byte[] backing = {9, 9, 1, 2, 3, 9};
+        ASN1OctetString slice = new ASN1OctetString(backing, 2, 3);
+        assertEquals(3, slice.length());
+        assertEquals(new ASN1OctetString(new byte[]{1, 2, 3}), slice);
+        assertEquals(new ASN1OctetString(new byte[]{1, 2, 3}).hashCode(), slice.hashCode());
+        assertArrayEquals(new byte[]{0x04, 0x03, 1, 2, 3}, encode(slice));
+        ByteBuffer view = slice.asReadOnlyByteBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(0, view.position());
+        assertEquals(3, view.remaining());
+        assertEquals(2, view.get(1));
+        assertEquals(new ASN1BitString(new byte[]{1, 2, 3}, 0), new ASN1BitString(backing, 2, 3, 0));
+        assertEquals(new ASN1BitString(new byte[]{1, 2, 3}, 0).hashCode(), new ASN1BitString(backing, 2, 3, 0).hashCode());
+        assertThrows(IndexOutOfBoundsException.class, () -> new ASN1OctetString(backing, 4, 3));
+
+        // Large payloads are written by reference behind the padding byte
+        byte[] payload = new byte[DERWriter.REFERENCE_THRESHOLD * 2];
+        new Random(39).nextBytes(payload);
+        payload[payload.length - 1] = 0;
+        byte[] content = new byte[payload.length + 1];
+        content[0] = 4;
+        System.arraycopy(payload, 0, content, 1, payload.length);
+        DERWriter writer = new DERWriter();
+        writer.writePrimitive(ASN1Identifier.BIT_STRING, content);
+        ASN1BitString large = new ASN1BitString(payload, 4);
+        assertArrayEquals(writer.toByteArray(), encode(large));
+        assertEquals(large, new ASN1BitString(new byte[0], 0).fromDERNode(DERParser.parse(encode(large))));
+    }
+
+    @Test
+    public void test_static_decoders_and_dispatch_table() throws ASN1Exception {
+        List<DERSerializable> components = new ArrayList<>();
+        components.add(new ASN1Integer(42));
+        components.add(new ASN1Boolean(true));
+        components.add(ASN1Null.INSTANCE);
+        components.add(ASN1ObjectIdentifier.of("1.2.840.113549.1.1.11"));
+        components.add(new ASN1String.PrintableString("CA"));
+        components.add(new ASN1Time.UTCTime(1_700_000_000L));
+        components.add(new ASN1OctetString(new byte[]{1, 2}));
+        components.add(new ASN1Real(0.5));
+        components.add(new ASN1Set(List.of(new ASN1String.UTF8String("b"), new ASN1String.UTF8String("a"))));
+        components.add(new ASN1Implicit(new ASN1Identifier(3, TagClass.ContextSpecific), new ASN1Integer(7)));
+        byte[] der = encode(new ASN1Sequence(components));
+        ASN1Node root = DERParser.parse(der);
+
+        ASN1Sequence decoded = (ASN1Sequence) DERDecoders.decode(root);
+        assertEquals(new ASN1Integer(42), decoded.components.get(0));
+        assertEquals(new ASN1Boolean(true), decoded.components.get(1));
+        assertSame(ASN1Null.INSTANCE, decoded.components.get(2));
+        assertEquals(ASN1ObjectIdentifier.of("1.2.840.113549.1.1.11"), decoded.components.get(3));
+        assertEquals(new ASN1String.PrintableString("CA"), decoded.components.get(4));
+        assertEquals(new ASN1Time.UTCTime(1_700_000_000L), decoded.components.get(5));
+        assertEquals(new ASN1OctetString(new byte[]{1, 2}), decoded.components.get(6));
+        assertEquals(new ASN1Real(0.5), decoded.components.get(7));
+        assertInstanceOf(ASN1Set.class, decoded.components.get(8));
+        // Context-specific tags have no built-in type and come back as the node itself
+        assertInstanceOf(ASN1Node.class, decoded.components.get(9));
+        assertArrayEquals(der, encode(decoded));
+
+        // Singleton decoders replace throwaway prototypes and plug into the collection helpers
+        List<ASN1Node> children = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) root.content) {
+            children.add(child);
+        }
+        assertEquals(42, ASN1Integer.DECODER.fromDERNode(children.get(0)).intValueExact());
+        assertEquals("CA", ASN1String.PrintableString.decode(children.get(4)).value());
+        assertEquals(List.of(new ASN1String.UTF8String("a"), new ASN1String.UTF8String("b")),
+                ASN1Set.decode(children.get(8), ASN1String.UTF8String.DECODER));
+        assertThrows(ASN1Exception.class, () -> ASN1Boolean.DECODER.fromDERNode(children.get(0)));
+        assertSame(ASN1Integer.DECODER, DERDecoders.decoderFor(0x02));
+        assertNull(DERDecoders.decoderFor(0x22));
+        assertEquals(List.of(new ASN1Integer(1), new ASN1Integer(2)),
+                ASN1Sequence.decode(DERParser.parse(encode(DERArrays.sequenceOf(new long[]{1, 2}))), DERDecoders.ANY));
+    }
+
+    @DERSequence
+    record Validity(ASN1Time.UTCTime notBefore, ASN1Time.UTCTime notAfter) {}
+
+    @DERSequence
+    record Entry(long serial,
+                 @Explicit(0) String name,
+                 @Optional @Implicit(1) Boolean critical,
+                 @Implicit(2) byte[] payload,
+                 @Optional Validity validity,
+                 @SetOf List<String> tags,
+                 List<Integer> values,
+                 @Optional @Explicit(3) ASN1Node extra) {}
+
+    private static DERSerializable entryShape(Entry entry) {
+        List<DERSerializable> body = new ArrayList<>();
+        body.add(new ASN1Integer(entry.serial()));
+        body.add(new ASN1Explicit(new ASN1Identifier(0, TagClass.ContextSpecific), new ASN1String.UTF8String(entry.name())));
+        if (entry.critical() != null) {
+            body.add(new ASN1Implicit(new ASN1Identifier(1, TagClass.ContextSpecific), new ASN1Boolean(entry.critical())));
+        }
+        body.add(new ASN1Implicit(new ASN1Identifier(2, TagClass.ContextSpecific), new ASN1OctetString(entry.payload())));
+        if (entry.validity() != null) {
+            body.add(new ASN1Sequence(List.of(entry.validity().notBefore(), entry.validity().notAfter())));
+        }
+        List<DERSerializable> tags = new ArrayList<>();
+        for (String tag : entry.tags()) {
+            tags.add(new ASN1String.UTF8String(tag));
+        }
+        body.add(new ASN1Set(tags));
+        List<DERSerializable> values = new ArrayList<>();
+        for (int value : entry.values()) {
+            values.add(new ASN1Integer(value));
+        }
+        body.add(new ASN1Sequence(values));
+        if (entry.extra() != null) {
+            body.add(new ASN1Explicit(new ASN1Identifier(3, TagClass.ContextSpecific), entry.extra()));
+        }
+        return new ASN1Sequence(body);
+    }
+
+    @Test
+    public void test_generated_record_codec() throws ASN1Exception {
+        Validity validity = new Validity(new ASN1Time.UTCTime(1_700_000_000L), new ASN1Time.UTCTime(1_800_000_000L));
+        ASN1Node extra = DERParser.parse(encode(ASN1ObjectIdentifier.of("2.5.29.19")));
+        List<Entry> entries = List.of(
+                new Entry(7, "short", null, new byte[]{1, 2, 3}, null, List.of("b", "a"), List.of(1, -1), null),
+                new Entry(-1L << 40, "full", true, new byte[300], validity, List.of(), List.of(Integer.MAX_VALUE), extra),
+                new Entry(0, "x".repeat(70_000), false, new byte[0], validity, List.of("z", "yy", "y"), List.of(), null));
+
+        for (Entry entry : entries) {
+            byte[] expected = encode(entryShape(entry));
+            assertArrayEquals(expected, encode(DERTests_EntryCodec.encoder(entry)));
+
+            Entry decoded = DERTests_EntryCodec.decode(DERParser.parse(expected));
+            assertEquals(entry.serial(), decoded.serial());
+            assertEquals(entry.name(), decoded.name());
+            assertEquals(entry.critical(), decoded.critical());
+            assertArrayEquals(entry.payload(), decoded.payload());
+            assertEquals(entry.validity(), decoded.validity());
+            assertEquals(entry.tags().stream().sorted().toList(), decoded.tags().stream().sorted().toList());
+            assertEquals(entry.values(), decoded.values());
+            assertEquals(entry.extra() == null, decoded.extra() == null);
+            assertArrayEquals(expected, encode(DERTests_EntryCodec.encoder(decoded)));
+        }
+        assertEquals(validity, DERTests_ValidityCodec.DECODER.fromDERNode(DERParser.parse(encode(DERTests_ValidityCodec.encoder(validity)))));
+
+        // A missing mandatory component, a trailing one and an out-of-range int are all rejected
+        assertThrows(ASN1Exception.class, () -> DERTests_ValidityCodec.decode(DERParser.parse(
+                encode(new ASN1Sequence(List.of(validity.notBefore()))))));
+        assertThrows(ASN1Exception.class, () -> DERTests_ValidityCodec.decode(DERParser.parse(
+                encode(new ASN1Sequence(List.of(validity.notBefore(), validity.notAfter(), ASN1Null.INSTANCE))))));
+        byte[] wide = encode(entryShape(new Entry(1, "n", null, new byte[0], null, List.of(), List.of(), null)));
+        List<DERSerializable> wideBody = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) DERParser.parse(wide).content) {
+            wideBody.add(child);
+        }
+        wideBody.set(4, DERArrays.sequenceOf(new long[]{1L << 40}));
+        assertThrows(ASN1Exception.class, () -> DERTests_EntryCodec.decode(DERParser.parse(encode(new ASN1Sequence(wideBody)))));
+    }
+
+    @Test
+    public void test_writer_begin_end_constructed() throws ASN1Exception {
+        for (int length : new int[]{0, 127, 128, 255, 256, 70_000}) {
+            DERWriter writer = new DERWriter();
+            int outer = writer.beginConstructed(ASN1Identifier.SEQUENCE);
+            int inner = writer.beginConstructed(ASN1Identifier.SET);
+            writer.writePrimitive(ASN1Identifier.OCTET_STRING, new byte[length]);
+            writer.endConstructed(inner);
+            writer.writeRawReference(ByteBuffer.wrap(new byte[length]));
+            writer.endConstructed(outer);
+
+            byte[] octets = encode(new ASN1OctetString(new byte[length]));
+            DERWriter expected = new DERWriter();
+            expected.writeSequence(w -> {
+                w.writeSet(s -> s.writeRaw(octets));
+                w.writeRaw(new byte[length]);
+            });
+            assertArrayEquals(expected.toByteArray(), writer.toByteArray());
+        }
+        assertThrows(ASN1Exception.class, () -> new DERWriter().endConstructed(1));
+    }
+
+    @Test
+    public void test_compiled_module_codec() throws ASN1Exception {
+        // AUTOMATIC TAGS: id [0] IMPLICIT, body [3] EXPLICIT around the CHOICE, text [0] IMPLICIT inside it
+        AutomaticTags.Body text = new AutomaticTags.Body("hi", null, null, null);
+        AutomaticTags.Message message = new AutomaticTags.Message(5, 3, 0, text, null, null);
+        byte[] der = encode(AutomaticTags_MessageCodec.encoder(message));
+        assertArrayEquals(new byte[]{0x30, 0x09, (byte) 0x80, 0x01, 0x05, (byte) 0xA3, 0x04, (byte) 0x80, 0x02, 'h', 'i'}, der);
+        assertEquals(message, AutomaticTags_MessageCodec.decode(DERParser.parse(der)));
+
+        AutomaticTags.Body nested = new AutomaticTags.Body(null, null, new AutomaticTags.Body(null, null, null, ASN1Null.INSTANCE), null);
+        AutomaticTags.Message full = new AutomaticTags.Message(4_294_967_295L, 7, 2, nested, List.of("a", "b"),
+                new AutomaticTags.MessageTrailer(new byte[4], false));
+        byte[] fullDer = encode(AutomaticTags_MessageCodec.encoder(full));
+        AutomaticTags.Message decoded = AutomaticTags_MessageCodec.decode(DERParser.parse(fullDer));
+        assertEquals(7, decoded.priority());
+        assertEquals(2, decoded.kind());
+        assertEquals(List.of("a", "b"), decoded.tags());
+        assertFalse(decoded.trailer().final_());
+        assertArrayEquals(fullDer, encode(AutomaticTags_MessageCodec.encoder(decoded)));
+
+        // Compiled constraints, CHOICE arity and DER's rule against encoding a DEFAULT value
+        assertThrows(ASN1Exception.class, () -> encode(AutomaticTags_MessageCodec.encoder(
+                new AutomaticTags.Message(5, 8, 0, text, null, null))));
+        assertThrows(ASN1Exception.class, () -> encode(AutomaticTags_MessageCodec.encoder(
+                new AutomaticTags.Message(5, 3, 0, text, List.of("1", "2", "3", "4", "5"), null))));
+        assertThrows(ASN1Exception.class, () -> encode(AutomaticTags_MessageCodec.encoder(
+                new AutomaticTags.Message(-1, 3, 0, text, null, null))));
+        assertThrows(ASN1Exception.class, () -> encode(AutomaticTags_BodyCodec.encoder(
+                new AutomaticTags.Body("hi", new byte[0], null, null))));
+        assertThrows(ASN1Exception.class, () -> encode(AutomaticTags_BodyCodec.encoder(
+                new AutomaticTags.Body("", null, null, null))));
+        byte[] explicitDefault = {0x30, 0x0C, (byte) 0x80, 0x01, 0x05, (byte) 0x81, 0x01, 0x03, (byte) 0xA3, 0x04, (byte) 0x80, 0x02, 'h', 'i'};
+        assertThrows(ASN1Exception.class, () -> AutomaticTags_MessageCodec.decode(DERParser.parse(explicitDefault)));
+    }
+
+    @Test
+    public void test_sequence_reader() throws ASN1Exception {
+        ASN1Identifier version = new ASN1Identifier(0, TagClass.ContextSpecific);
+        ASN1Identifier keyId = new ASN1Identifier(1, TagClass.ContextSpecific);
+        ASN1Identifier wide = new ASN1Identifier(40, TagClass.ContextSpecific);
+        SequenceReader.Choice<ASN1Time> time = SequenceReader.Choice.of(Map.of(
+                ASN1Identifier.UTC_TIME, ASN1Time.UTCTime.DECODER,
+                ASN1Identifier.GENERALIZED_TIME, ASN1Time.GeneralizedTime.DECODER));
+        DERParseable<ASN1OctetString> implicitKeyId = node -> ASN1OctetString.decode(ASN1Implicit.untag(node, keyId, ASN1Identifier.OCTET_STRING));
+
+        // SEQUENCE { [0] EXPLICIT INTEGER OPTIONAL, INTEGER, BOOLEAN DEFAULT FALSE, [1] IMPLICIT OCTET STRING OPTIONAL,
+        //            Time, [40] EXPLICIT INTEGER OPTIONAL }
+        ASN1Time.UTCTime when = new ASN1Time.UTCTime(1_700_000_000L);
+        byte[] full = encode(new ASN1Sequence(List.of(
+                new ASN1Explicit(version, ASN1Integer.valueOf(2)), ASN1Integer.valueOf(7), new ASN1Boolean(true),
+                new ASN1Implicit(keyId, new ASN1OctetString(new byte[]{1, 2})), when, new ASN1Explicit(wide, ASN1Integer.valueOf(9)))));
+        SequenceReader reader = SequenceReader.of(DERParser.parse(full));
+        assertEquals(2, reader.readOptionalExplicit(version, ASN1Integer.DECODER).intValueExact());
+        assertEquals(7, reader.read(ASN1Identifier.INTEGER, ASN1Integer.DECODER).intValueExact());
+        assertTrue(reader.readDefault(ASN1Identifier.BOOLEAN, ASN1Boolean.DECODER, new ASN1Boolean(false)).value);
+        assertArrayEquals(new byte[]{1, 2}, reader.readOptional(keyId, implicitKeyId).toByteArray());
+        ASN1Node tagged = DERParser.parse(encode(new ASN1Implicit(keyId, new ASN1OctetString(new byte[]{1, 2}))));
+        ASN1Node untagged = ASN1Implicit.untag(tagged, keyId, ASN1Identifier.OCTET_STRING);
+        assertArrayEquals(new byte[]{0x04, 0x02, 1, 2}, encode(untagged));
+        assertNotEquals(tagged, untagged);
+        DERSerializable decoded = DERDecoders.decode(untagged);
+        assertTrue(decoded instanceof ASN1OctetString);
+        assertArrayEquals(new byte[]{0x04, 0x02, 1, 2}, encode(decoded));
+        ASN1Identifier wideKeyId = new ASN1Identifier(300, TagClass.ContextSpecific);
+        ASN1Node wideTagged = DERParser.parse(encode(new ASN1Implicit(wideKeyId, new ASN1OctetString(new byte[]{1, 2}))));
+        assertEquals(untagged, ASN1Implicit.untag(wideTagged, wideKeyId, ASN1Identifier.OCTET_STRING));
+        assertEquals(when, reader.readChoice(time));
+        assertTrue(reader.isNext(wide));
+        assertEquals(9, reader.readExplicit(wide, ASN1Integer.DECODER).intValueExact());
+        reader.expectEnd();
+        assertNull(reader.peek());
+
+        // Absent OPTIONAL and DEFAULT components leave the cached child in place
+        byte[] minimal = encode(new ASN1Sequence(List.of(ASN1Integer.valueOf(7), new ASN1Time.GeneralizedTime(ZonedDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC)))));
+        reader = SequenceReader.of(DERParser.parse(minimal));
+        assertNull(reader.readOptionalExplicit(version, ASN1Integer.DECODER));
+        assertSame(reader.peek(), reader.peek());
+        assertEquals(7, reader.read(ASN1Integer.DECODER).intValueExact());
+        assertFalse(reader.readDefault(ASN1Identifier.BOOLEAN, ASN1Boolean.DECODER, new ASN1Boolean(false)).value);
+        assertNull(reader.readOptional(keyId, implicitKeyId));
+        assertInstanceOf(ASN1Time.GeneralizedTime.class, reader.readChoice(time));
+        assertNull(reader.readOptionalExplicit(wide, ASN1Integer.DECODER));
+        assertNull(reader.readOptionalChoice(time));
+        reader.expectEnd();
+        assertThrows(ASN1Exception.class, reader::readNode);
+
+        // An encoded DEFAULT, a wrong tag, a missing CHOICE alternative and trailing data are all rejected
+        SequenceReader encodedDefault = SequenceReader.of(DERParser.parse(encode(new ASN1Sequence(List.of(new ASN1Boolean(false))))));
+        assertThrows(ASN1Exception.class, () -> encodedDefault.readDefault(ASN1Identifier.BOOLEAN, ASN1Boolean.DECODER, new ASN1Boolean(false)));
+        SequenceReader wrongTag = SequenceReader.of(DERParser.parse(minimal));
+        assertThrows(ASN1Exception.class, () -> wrongTag.read(ASN1Identifier.BOOLEAN, ASN1Boolean.DECODER));
+        SequenceReader noAlternative = SequenceReader.of(DERParser.parse(minimal));
+        assertThrows(ASN1Exception.class, () -> noAlternative.readChoice(time));
+        SequenceReader trailing = SequenceReader.of(DERParser.parse(minimal));
+        trailing.readNode();
+        assertThrows(ASN1Exception.class, trailing::expectEnd);
+        assertThrows(ASN1Exception.class, () -> SequenceReader.of(DERParser.parse(minimal), ASN1Identifier.SET));
+        assertThrows(ASN1Exception.class, () -> SequenceReader.of(DERParser.parse(encode(ASN1Integer.valueOf(1)))));
+    }
+
+    @Test
+    public void test_stream_reader() throws IOException, ASN1Exception {
+        ASN1Identifier wide = new ASN1Identifier(40, TagClass.ContextSpecific);
+        byte[] der = encode(new ASN1Sequence(List.of(
+                ASN1Integer.valueOf(7),
+                new ASN1Sequence(List.of(new ASN1OctetString(new byte[300]), ASN1Null.INSTANCE)),
+                new ASN1Explicit(wide, new ASN1Boolean(true)),
+                new ASN1OctetString("streamed".getBytes(StandardCharsets.US_ASCII)))));
+
+        // A three-byte buffer forces a refill inside headers and contents
+        DERStreamReader reader = new DERStreamReader(new ByteArrayInputStream(der), 3);
+        assertTrue(reader.next());
+        assertEquals(0x30, reader.identifierOctet());
+        reader.enter();
+        assertTrue(reader.next());
+        assertArrayEquals(new byte[]{7}, reader.readContent());
+        assertTrue(reader.next());
+        assertEquals(ASN1Identifier.SEQUENCE, reader.identifier());
+        assertEquals(306, reader.length());
+        // Not entered, so next() skips the whole inner SEQUENCE
+        assertTrue(reader.next());
+        assertEquals(wide, reader.identifier());
+        assertTrue(reader.isConstructed());
+        reader.enter();
+        assertTrue(reader.next());
+        assertTrue(ASN1Boolean.decode(reader.readNode()).value);
+        assertFalse(reader.next());
+        reader.exit();
+        assertTrue(reader.next());
+        InputStream content = reader.contentStream();
+        assertEquals('s', content.read());
+        assertEquals("tream", new String(content.readNBytes(5), StandardCharsets.US_ASCII));
+        assertFalse(reader.next());
+        reader.exit();
+        assertEquals(der.length, reader.offset());
+        assertFalse(reader.next());
+
+        // Elements can be read whole, header included, and exit() skips the rest of a level
+        reader = new DERStreamReader(new ByteArrayInputStream(der));
+        reader.next();
+        reader.enter();
+        reader.next();
+        assertArrayEquals(encode(ASN1Integer.valueOf(7)), reader.readElement());
+        reader.exit();
+        assertEquals(0, reader.depth());
+        assertFalse(reader.next());
+
+        // Truncation, indefinite and non-minimal lengths, and a child overrunning its parent are all rejected
+        for (byte[] bad : new byte[][]{
+                Arrays.copyOf(der, der.length - 1),
+                {0x30, (byte) 0x80, 0x00, 0x00},
+                {0x04, (byte) 0x81, 0x01, 0x00},
+                {0x30, 0x03, 0x04, 0x05, 0x00}}) {
+            DERStreamReader broken = new DERStreamReader(new ByteArrayInputStream(bad));
+            assertThrows(ASN1Exception.class, () -> drain(broken));
+        }
+        assertThrows(IllegalStateException.class, () -> new DERStreamReader(new ByteArrayInputStream(der)).readContent());
+    }
+
+    @Test
+    public void test_crl_revoked_serial_index() throws IOException, ASN1Exception {
+        // More entries than DERParser's node limit allows
+        int count = 120_000;
+        Random random = new Random(7);
+        List<BigInteger> serials = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            serials.add(new BigInteger(1 + random.nextInt(159), random));
+        }
+        serials.add(BigInteger.ZERO);
+        serials.add(BigInteger.valueOf(-5));
+        serials.add(serials.get(0));
+        byte[] crl = encode(crlShape(serials));
+        assertThrows(ASN1Exception.class, () -> DERParser.parse(crl));
+
+        CRLReader.Summary summary = CRLReader.read(new ByteArrayInputStream(crl), (serial, offset, length) -> {});
+        assertEquals(2, summary.version());
+        assertEquals(count + 3, summary.revokedCount());
+        assertEquals(ASN1Identifier.SEQUENCE, summary.issuer().identifier);
+        assertEquals(1_700_000_000L, summary.thisUpdate().epochSecond());
+        assertNotNull(summary.nextUpdate());
+
+        RevokedSerialIndex plain = RevokedSerialIndex.fromCRL(new ByteArrayInputStream(crl), 0);
+        RevokedSerialIndex filtered = RevokedSerialIndex.fromCRL(new ByteArrayInputStream(crl), 10);
+        assertEquals(new HashSet<>(serials).size(), plain.size());
+        for (BigInteger serial : serials) {
+            assertTrue(plain.contains(serial));
+            assertTrue(filtered.contains(serial));
+        }
+        int misses = 0;
+        for (int i = 0; i < 10_000; i++) {
+            BigInteger other = new BigInteger(160, random).setBit(160);
+            assertFalse(plain.contains(other));
+            assertFalse(filtered.contains(other));
+            misses++;
+        }
+        assertEquals(10_000, misses);
+        assertTrue(plain.sizeInBytes() < 30L * count);
+
+        // An empty CRL and one with a non-minimal serial
+        assertEquals(0, RevokedSerialIndex.fromCRL(new ByteArrayInputStream(encode(crlShape(List.of()))), 8).size());
+        byte[] padded = encode(crlShape(List.of(BigInteger.ONE)));
+        int serialAt = Collections.indexOfSubList(toList(padded), List.of((byte) 0x02, (byte) 0x01, (byte) 0x01));
+        byte[] redundant = new byte[padded.length + 1];
+        System.arraycopy(padded, 0, redundant, 0, serialAt);
+        redundant[serialAt] = 0x02;
+        redundant[serialAt + 1] = 0x02;
+        redundant[serialAt + 2] = 0x00;
+        System.arraycopy(padded, serialAt + 2, redundant, serialAt + 3, padded.length - serialAt - 2);
+        assertThrows(ASN1Exception.class, () -> CRLReader.read(new ByteArrayInputStream(redundant), (serial, offset, length) -> {}));
+
+        // Lengths past the key's length octet: a longer serial may lead with smaller octets
+        RevokedSerialIndex.Builder builder = RevokedSerialIndex.builder();
+        List<byte[]> longSerials = new ArrayList<>();
+        for (int length : new int[]{254, 255, 256, 300, 1000}) {
+            byte[] serial = new byte[length];
+            Arrays.fill(serial, (byte) (0x7F - length % 100));
+            longSerials.add(serial);
+            builder.add(serial, 0, length);
+        }
+        RevokedSerialIndex index = builder.build(0);
+        for (byte[] serial : longSerials) {
+            assertTrue(index.contains(serial, 0, serial.length));
+        }
+        assertFalse(index.contains(new byte[257], 0, 257));
+    }
+
+    @Test
+    public void test_stream_reader_taps() throws IOException, ASN1Exception, GeneralSecurityException {
+        List<BigInteger> serials = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            serials.add(BigInteger.valueOf(i).shiftLeft(64).add(BigInteger.valueOf(i)));
+        }
+        ASN1Node unsigned = DERParser.parse(encode(crlShape(serials)));
+        Iterator<ASN1Node> parts = ((ASN1Node.Constructed) unsigned.content).iterator();
+        ASN1Node tbs = parts.next();
+        ASN1Node algorithm = parts.next();
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair key = generator.generateKeyPair();
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(key.getPrivate());
+        signer.update(tbs.encodedBytes);
+        byte[] crl = encode(new ASN1Sequence(List.of(tbs, algorithm, new ASN1BitString(signer.sign(), 0))));
+
+        // The TBSCertList is verified in the same pass that streams its entries
+        Signature verifier = Signature.getInstance("SHA256withECDSA");
+        verifier.initVerify(key.getPublic());
+        CRLReader.Summary summary = CRLReader.read(new ByteArrayInputStream(crl), (serial, offset, length) -> {}, DERStreamReader.Tap.of(verifier));
+        assertEquals(serials.size(), summary.revokedCount());
+        assertEquals(ASN1ObjectIdentifier.of("1.2.840.10045.4.3.2"), ASN1ObjectIdentifier.decode(((ASN1Node.Constructed) summary.signatureAlgorithm().content).iterator().next()));
+        assertTrue(verifier.verify(summary.signatureValue().toByteArray()));
+
+        // Digests match across buffer refills, whether the tapped elements are skipped or entered
+        MessageDigest expectedTbs = MessageDigest.getInstance("SHA-256");
+        expectedTbs.update(tbs.encodedBytes);
+        byte[] tbsDigest = expectedTbs.digest();
+        Iterator<ASN1Node> fields = ((ASN1Node.Constructed) tbs.content).iterator();
+        fields.next();
+        fields.next();
+        byte[] issuerDigest = MessageDigest.getInstance("SHA-256").digest(fields.next().encodedBytes);
+        for (boolean enterTbs : new boolean[]{false, true}) {
+            MessageDigest tbsTap = MessageDigest.getInstance("SHA-256");
+            MessageDigest issuerTap = MessageDigest.getInstance("SHA-256");
+            MessageDigest wholeTap = MessageDigest.getInstance("SHA-256");
+            DERStreamReader reader = new DERStreamReader(new ByteArrayInputStream(crl), 16);
+            reader.tap(DERStreamReader.Tap.of(tbsTap), 0, 0);
+            reader.tap(DERStreamReader.Tap.of(issuerTap), 0, 0, 2);
+            assertTrue(reader.next());
+            reader.tapCurrent(DERStreamReader.Tap.of(wholeTap));
+            reader.enter();
+            assertTrue(reader.next());
+            if (enterTbs) {
+                reader.enter();
+                drain(reader);
+                reader.exit();
+            }
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertFalse(reader.next());
+            reader.exit();
+            assertFalse(reader.next());
+            assertArrayEquals(tbsDigest, tbsTap.digest());
+            assertArrayEquals(enterTbs ? issuerDigest : MessageDigest.getInstance("SHA-256").digest(), issuerTap.digest());
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(crl), wholeTap.digest());
+        }
+    }
+
+    @Test
+    public void test_signed_data_reader() throws IOException, ASN1Exception, GeneralSecurityException {
+        byte[] content = new byte[300_000];
+        new Random(5).nextBytes(content);
+        ASN1ObjectIdentifier sha256 = ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.1");
+        ASN1ObjectIdentifier unknown = ASN1ObjectIdentifier.of("1.2.3.4");
+        ASN1ObjectIdentifier data = ASN1ObjectIdentifier.of("1.2.840.113549.1.7.1");
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+
+        ASN1Set attributes = new ASN1Set(List.of(
+                new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.113549.1.9.3"), new ASN1Set(List.of(data)))),
+                new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.113549.1.9.4"), new ASN1Set(List.of(new ASN1OctetString(digest)))))));
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair key = generator.generateKeyPair();
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(key.getPrivate());
+        signer.update(encode(attributes));
+        DERSerializable signerInfo = new ASN1Sequence(List.of(ASN1Integer.valueOf(1),
+                new ASN1Sequence(List.of(new ASN1Sequence(List.of()), ASN1Integer.valueOf(42))),
+                new ASN1Sequence(List.of(sha256)),
+                new ASN1Implicit(new ASN1Identifier(0, TagClass.ContextSpecific), attributes),
+                new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.10045.4.3.2"))),
+                new ASN1OctetString(signer.sign())));
+        DERSerializable certificate = new ASN1Sequence(List.of(ASN1Integer.valueOf(7)));
+
+        byte[] cms = encode(signedData(sha256, unknown, data, content, certificate, signerInfo));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        SignedDataReader.Summary summary = SignedDataReader.read(new ByteArrayInputStream(cms), sink);
+        assertArrayEquals(content, sink.toByteArray());
+        assertEquals(1, summary.version());
+        assertEquals(Set.of(sha256, unknown), Set.copyOf(summary.digestAlgorithms()));
+        assertEquals(data, summary.contentType());
+        assertEquals(content.length, summary.contentLength());
+        assertEquals(Set.of(sha256), summary.contentDigests().keySet());
+        assertArrayEquals(digest, summary.contentDigests().get(sha256));
+        assertEquals(1, summary.certificates().size());
+        assertArrayEquals(encode(certificate), summary.certificates().get(0));
+
+        SignedDataReader.SignerInfo info = summary.signerInfos().get(0);
+        assertEquals(sha256, info.digestAlgorithm());
+        assertArrayEquals(digest, info.messageDigest());
+        assertTrue(info.matches(summary));
+        Signature verifier = Signature.getInstance("SHA256withECDSA");
+        verifier.initVerify(key.getPublic());
+        verifier.update(info.signedAttributesEncoding());
+        assertTrue(verifier.verify(info.signature()));
+
+        // Detached content, and a ContentInfo that is not SignedData
+        SignedDataReader.Summary detached = SignedDataReader.read(
+                new ByteArrayInputStream(encode(signedData(sha256, unknown, data, null, certificate, signerInfo))), null);
+        assertEquals(-1, detached.contentLength());
+        assertTrue(detached.contentDigests().isEmpty());
+        assertFalse(detached.signerInfos().get(0).matches(detached));
+        byte[] enveloped = cms.clone();
+        int at = Collections.indexOfSubList(toList(cms), toList(encode(ASN1ObjectIdentifier.of("1.2.840.113549.1.7.2"))));
+        enveloped[at + 10] = 3;
+        assertThrows(ASN1Exception.class, () -> SignedDataReader.read(new ByteArrayInputStream(enveloped), null));
+    }
+
+    @Test
+    public void test_intern_cache() throws ASN1Exception {
+        int[] decodes = {0};
+        DERInternCache<ASN1ObjectIdentifier> cache = new DERInternCache<>(node -> {
+            decodes[0]++;
+            return ASN1ObjectIdentifier.decode(node);
+        }, 1 << 20);
+        byte[] sha256 = encode(ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.1"));
+        byte[] sha384 = encode(ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.2"));
+
+        // The same instance comes back however the encoding is presented
+        ASN1ObjectIdentifier first = cache.intern(DERParser.parse(sha256));
+        assertSame(first, cache.intern(DERParser.parse(sha256)));
+        byte[] framed = new byte[sha256.length + 6];
+        System.arraycopy(sha256, 0, framed, 3, sha256.length);
+        assertSame(first, cache.intern(framed, 3, sha256.length));
+        assertSame(first, cache.intern(ByteBuffer.wrap(framed, 3, sha256.length).slice()));
+        assertSame(first, cache.intern(ByteBuffer.allocateDirect(sha256.length).put(sha256).flip()));
+        // Same length, one byte apart
+        assertEquals(ASN1ObjectIdentifier.of("2.16.840.1.101.3.4.2.2"), cache.intern(sha384, 0, sha384.length));
+        assertEquals(2, decodes[0]);
+        DERInternCache.Stats stats = cache.stats();
+        assertEquals(4, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+        assertEquals(4.0 / 6, stats.hitRate(), 1e-9);
+
+        // Room for three OIDs: the least recently used goes first
+        DERInternCache<ASN1Node> small = new DERInternCache<>(node -> node, 3 * (sha256.length + 64));
+        List<byte[]> oids = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            oids.add(encode(ASN1ObjectIdentifier.of("1.2.3." + i)));
+        }
+        ASN1Node one = small.intern(oids.get(0), 0, oids.get(0).length);
+        small.intern(oids.get(1), 0, oids.get(1).length);
+        small.intern(oids.get(2), 0, oids.get(2).length);
+        assertSame(one, small.intern(oids.get(0), 0, oids.get(0).length));
+        small.intern(oids.get(3), 0, oids.get(3).length);
+        assertEquals(1, small.stats().evictions());
+        assertEquals(3, small.stats().size());
+        assertSame(one, small.intern(oids.get(0), 0, oids.get(0).length));
+        long misses = small.stats().misses();
+        small.intern(oids.get(1), 0, oids.get(1).length);
+        assertEquals(misses + 1, small.stats().misses());
+
+        // Growth past the initial table, and an encoding heavier than the whole cache is decoded but not kept
+        for (int i = 0; i < 1000; i++) {
+            byte[] oid = encode(ASN1ObjectIdentifier.of("1.3.6.1.4.1." + i));
+            assertEquals(ASN1ObjectIdentifier.of("1.3.6.1.4.1." + i), cache.intern(oid, 0, oid.length));
+        }
+        assertEquals(1002, cache.stats().size());
+        DERInternCache<ASN1Node> tiny = new DERInternCache<>(node -> node, 8);
+        assertNotSame(tiny.intern(sha256, 0, sha256.length), tiny.intern(sha256, 0, sha256.length));
+        assertEquals(0, tiny.stats().size());
+        cache.clear();
+        assertEquals(0, cache.stats().weight());
+        assertThrows(ASN1Exception.class, () -> cache.intern(sha256, 0, sha256.length - 1));
+    }
+
+    @Test
+    public void test_node_equality_hash_and_order() throws ASN1Exception {
+        List<DERSerializable> values = List.of(ASN1Integer.valueOf(300), ASN1Integer.valueOf(-1), new ASN1OctetString(new byte[]{1}),
+                new ASN1OctetString(new byte[]{1, 0}), ASN1ObjectIdentifier.of("1.2.3"), new ASN1Sequence(List.of(ASN1Integer.valueOf(0))),
+                new ASN1Boolean(true), ASN1Null.INSTANCE);
+        List<ASN1Node> nodes = new ArrayList<>();
+        List<ASN1Node> copies = new ArrayList<>();
+        for (DERSerializable value : values) {
+            nodes.add(DERParser.parse(encode(value)));
+            copies.add(DERParser.parse(encode(value)));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            ASN1Node node = nodes.get(i);
+            ASN1Node copy = copies.get(i);
+            assertNotSame(node, copy);
+            assertEquals(node, copy);
+            assertEquals(node.hashCode(), copy.hashCode());
+            assertEquals(node.hash64(), copy.hash64());
+            assertEquals(0, node.compareTo(copy));
+            for (int j = 0; j < nodes.size(); j++) {
+                if (i != j) {
+                    assertNotEquals(node, nodes.get(j));
+                    assertNotEquals(node.hash64(), nodes.get(j).hash64());
+                }
+            }
+        }
+        assertEquals(nodes.size(), new HashSet<>(List.of(nodes, copies).stream().flatMap(List::stream).toList()).size());
+
+        // Sorted nodes follow the order a DER SET OF puts the same values in
+        List<ASN1Node> sorted = new ArrayList<>(nodes);
+        Collections.sort(sorted);
+        List<ASN1Node> setOrder = new ArrayList<>();
+        for (ASN1Node child : (ASN1Node.Constructed) DERParser.parse(encode(new ASN1Set(values))).content) {
+            setOrder.add(child);
+        }
+        assertEquals(setOrder, sorted);
+
+        // Against an encoding inside a larger array, without copying it out
+        ASN1Node oid = nodes.get(4);
+        byte[] framed = new byte[oid.encodedBytes.length + 4];
+        System.arraycopy(oid.encodedBytes, 0, framed, 2, oid.encodedBytes.length);
+        assertEquals(oid.hash64(), ASN1Node.hash64(framed, 2, oid.encodedBytes.length));
+        assertTrue(oid.encodingEquals(framed, 2, oid.encodedBytes.length));
+        assertFalse(oid.encodingEquals(framed, 1, oid.encodedBytes.length));
+        assertEquals(0, oid.compareEncoding(framed, 2, oid.encodedBytes.length));
+        assertTrue(oid.compareEncoding(framed, 2, oid.encodedBytes.length - 1) > 0);
+    }
+
+    @Test
+    public void test_pem_codec() throws IOException, ASN1Exception {
+        // Every remainder of the last Base64 quantum, and bodies that span several lines
+        Random random = new Random(11);
+        List<PEMDocument> documents = new ArrayList<>();
+        for (int size : new int[]{0, 1, 2, 3, 47, 48, 49, 1000, 70_000}) {
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            documents.add(PEMDocument.of("TEST BLOCK", new ASN1OctetString(content)));
+        }
+        for (PEMDocument document : documents) {
+            String pem = document.toPEM();
+            String body = pem.substring(pem.indexOf('\n') + 1, pem.indexOf("-----END"));
+            assertEquals(Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(document.derBytes()) + "\n", body);
+            assertEquals(document, PEMDocument.parse(pem));
+        }
+
+        // A bundle with CRLF endings, commentary between blocks and a reused decode buffer
+        StringBuilder bundle = new StringBuilder("# bundle\r\n");
+        for (PEMDocument document : documents) {
+            bundle.append("subject=whatever\r\n").append(document.toPEM().replace("\n", "\r\n")).append("\r\n");
+        }
+        try (PEMReader reader = new PEMReader(new ByteArrayInputStream(bundle.toString().getBytes(StandardCharsets.US_ASCII)))) {
+            for (PEMDocument document : documents) {
+                assertTrue(reader.next());
+                assertEquals("TEST BLOCK", reader.label());
+                ASN1Node node = reader.parse();
+                assertArrayEquals(document.derBytes(), node.encodedBytes);
+            }
+            assertFalse(reader.next());
+        }
+        assertEquals(documents, PEMDocument.parseAll(bundle.toString()));
+
+        // DERWriter output is wrapped without flattening referenced payloads
+        byte[] payload = new byte[3 * DERWriter.REFERENCE_THRESHOLD + 5];
+        random.nextBytes(payload);
+        DERWriter writer = new DERWriter();
+        new ASN1Sequence(List.of(new ASN1Integer(7), new ASN1OctetString(payload))).serialize(writer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PEMDocument.write("DATA", writer, out);
+        assertEquals(new PEMDocument("DATA", writer.toByteArray()), PEMDocument.parse(out.toString(StandardCharsets.US_ASCII)));
+
+        String valid = documents.get(2).toPEM();
+        assertThrows(ASN1Exception.class, () -> PEMDocument.parse(valid.replace("END TEST", "END OTHER")));
+        assertThrows(ASN1Exception.class, () -> PEMDocument.parse(valid.replace("=", "")));
+        assertThrows(ASN1Exception.class, () -> PEMDocument.parse(valid.replace("-----END TEST BLOCK-----\n", "")));
+        assertThrows(ASN1Exception.class, () -> PEMDocument.parse(valid.replace("BA", "B*")));
+        assertThrows(ASN1Exception.class, () -> PEMDocument.parse(valid + valid));
+        assertThrows(ASN1Exception.class, () -> PEMDocument.parse("-----BEGIN  BAD-----\n-----END  BAD-----\n"));
+        assertThrows(IllegalArgumentException.class, () -> new PEMDocument("-BAD", new byte[0]));
+    }
+
+    private static void drain(DERStreamReader reader) throws IOException, ASN1Exception {
+        while (reader.next()) {
+            if (reader.isConstructed()) {
+                reader.enter();
+                drain(reader);
+                reader.exit();
+            } else {
+                reader.readContent();
+            }
+        }
+    }
+
+    private static List<Byte> toList(byte[] bytes) {
+        List<Byte> list = new ArrayList<>(bytes.length);
+        for (byte b : bytes) {
+            list.add(b);
+        }
+        return list;
+    }
+
+    // ContentInfo { signedData, [0] SignedData }; content null for a detached signature
+    private static DERSerializable signedData(ASN1ObjectIdentifier digest, ASN1ObjectIdentifier otherDigest, ASN1ObjectIdentifier contentType,
+                                              byte[] content, DERSerializable certificate, DERSerializable signerInfo) throws ASN1Exception {
+        ASN1Identifier zero = new ASN1Identifier(0, TagClass.ContextSpecific);
+        List<DERSerializable> encapsulated = new ArrayList<>(List.of(contentType));
+        if (content != null) {
+            encapsulated.add(new ASN1Explicit(zero, new ASN1OctetString(content)));
+        }
+        DERSerializable signed = new ASN1Sequence(List.of(ASN1Integer.valueOf(1),
+                new ASN1Set(List.of(new ASN1Sequence(List.of(digest)), new ASN1Sequence(List.of(otherDigest)))),
+                new ASN1Sequence(encapsulated),
+                new ASN1Implicit(zero, new ASN1Set(List.of(certificate))),
+                new ASN1Implicit(new ASN1Identifier(1, TagClass.ContextSpecific), new ASN1Set(List.of(new ASN1Sequence(List.of())))),
+                new ASN1Set(List.of(signerInfo))));
+        return new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.113549.1.7.2"), new ASN1Explicit(zero, signed)));
+    }
+
+    private static DERSerializable crlShape(List<BigInteger> serials) throws ASN1Exception {
+        DERSerializable algorithm = new ASN1Sequence(List.of(ASN1ObjectIdentifier.of("1.2.840.10045.4.3.2")));
+        DERSerializable issuer = new ASN1Sequence(List.of(new ASN1Set(List.of(new ASN1Sequence(List.of(
+                ASN1ObjectIdentifier.of("2.5.4.3"), new ASN1String.UTF8String("Test CA")))))));
+        List<DERSerializable> tbs = new ArrayList<>(List.of(ASN1Integer.valueOf(1), algorithm, issuer,
+                new ASN1Time.UTCTime(1_700_000_000L), new ASN1Time.UTCTime(1_700_600_000L)));
+        if (!serials.isEmpty()) {
+            List<DERSerializable> entries = new ArrayList<>(serials.size());
+            for (BigInteger serial : serials) {
+                entries.add(new ASN1Sequence(List.of(new ASN1Integer(serial), new ASN1Time.UTCTime(1_699_000_000L))));
+            }
+            tbs.add(new ASN1Sequence(entries));
+        }
+        tbs.add(new ASN1Explicit(new ASN1Identifier(0, TagClass.ContextSpecific), new ASN1Sequence(List.of())));
+        return new ASN1Sequence(List.of(new ASN1Sequence(tbs), algorithm, new ASN1BitString(new byte[8], 0)));
+    }
 }
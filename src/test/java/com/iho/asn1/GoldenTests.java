@@ -1,16 +1,26 @@
 package com.iho.asn1;
 
+import com.iho.asn1.generated.PKIX1Explicit88;
+import com.iho.asn1.generated.PKIX1Explicit88_CertificateCodec;
+import com.iho.asn1.x509.CertificateView;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
 import java.math.BigInteger;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 public class GoldenTests {
 
@@ -49,7 +59,7 @@ public class GoldenTests {
         byte[] der = readGolden("int_42.der");
         ASN1Node node = DERParser.parse(der);
         ASN1Integer val = new ASN1Integer(0).fromDERNode(node);
-        assertEquals(42, val.value.intValue());
+        assertEquals(42, val.intValueExact());
         
         DERWriter writer = new DERWriter();
         val.serialize(writer);
@@ -62,7 +72,7 @@ public class GoldenTests {
         ASN1Node node = DERParser.parse(der);
         ASN1Integer val = new ASN1Integer(0).fromDERNode(node);
         // 02 08 01 02 03 04 05 06 07 08 -> 72623859790382856
-        assertEquals(new BigInteger("72623859790382856"), val.value);
+        assertEquals(new BigInteger("72623859790382856"), val.value());
         
         DERWriter writer = new DERWriter();
         val.serialize(writer);
@@ -86,7 +96,7 @@ public class GoldenTests {
         ASN1Node node = DERParser.parse(der);
         ASN1OctetString val = new ASN1OctetString(null).fromDERNode(node);
         // "Hello World"
-        assertArrayEquals("Hello World".getBytes(StandardCharsets.UTF_8), val.value);
+        assertArrayEquals("Hello World".getBytes(StandardCharsets.UTF_8), val.toByteArray());
         
         DERWriter writer = new DERWriter();
         val.serialize(writer);
@@ -101,7 +111,7 @@ public class GoldenTests {
         // 03 0C 00 30 41 33 42 35 46 32 39 31 43 44
         // Content: "0A3B5F291CD"
         byte[] expected = "0A3B5F291CD".getBytes(StandardCharsets.US_ASCII);
-        assertArrayEquals(expected, val.value);
+        assertArrayEquals(expected, val.toByteArray());
         assertEquals(0, val.paddingBits);
         
         DERWriter writer = new DERWriter();
@@ -129,7 +139,7 @@ public class GoldenTests {
         ASN1Node node = DERParser.parse(der);
         ASN1String.UTF8String val = new ASN1String.UTF8String("").fromDERNode(node);
         // "Hello UTF8"
-        assertEquals("Hello UTF8", val.value);
+        assertEquals("Hello UTF8", val.value());
         
         DERWriter writer = new DERWriter();
         val.serialize(writer);
@@ -143,7 +153,7 @@ public class GoldenTests {
         ASN1Time.GeneralizedTime val = new ASN1Time.GeneralizedTime(null).fromDERNode(node);
         // 20230101120000Z
         ZonedDateTime expected = ZonedDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
-        assertEquals(expected.toInstant(), val.value.toInstant());
+        assertEquals(expected.toInstant(), val.value().toInstant());
         
         DERWriter writer = new DERWriter();
         val.serialize(writer);
@@ -157,10 +167,101 @@ public class GoldenTests {
         ASN1Time.UTCTime val = new ASN1Time.UTCTime(null).fromDERNode(node);
         // 230101120000Z -> 2023...
         ZonedDateTime expected = ZonedDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
-        assertEquals(expected.toInstant(), val.value.toInstant());
+        assertEquals(expected.toInstant(), val.value().toInstant());
         
         DERWriter writer = new DERWriter();
         val.serialize(writer);
         assertArrayEquals(der, writer.toByteArray());
     }
+
+    @Test
+    public void test_certificate_compiled_codec() throws IOException, ASN1Exception {
+        byte[] der = readGolden("cert.der");
+        PKIX1Explicit88.Certificate cert = PKIX1Explicit88_CertificateCodec.decode(DERParser.parse(der));
+        PKIX1Explicit88.TBSCertificate tbs = cert.tbsCertificate();
+        assertEquals(2, tbs.version());
+        assertEquals(3, tbs.subject().rdnSequence().elements().size());
+        PKIX1Explicit88.AttributeTypeAndValue commonName = tbs.subject().rdnSequence().elements().get(2).elements().get(0);
+        assertEquals(PKIX1Explicit88.ID_AT_COMMON_NAME, commonName.type());
+        assertEquals("Golden Test CA", ASN1String.UTF8String.decode(commonName.value()).value());
+        assertNotNull(tbs.validity().notBefore().utcTime());
+        assertNull(tbs.validity().notBefore().generalTime());
+        assertNull(tbs.issuerUniqueID());
+        assertEquals(3, tbs.extensions().elements().size());
+        // Only basicConstraints is marked critical; the others take the DEFAULT
+        assertEquals(List.of(false, false, true), tbs.extensions().elements().stream().map(PKIX1Explicit88.Extension::critical).toList());
+
+        DERWriter writer = new DERWriter();
+        PKIX1Explicit88_CertificateCodec.encode(cert, writer);
+        assertArrayEquals(der, writer.toByteArray());
+    }
+
+    @Test
+    public void test_certificate_view() throws IOException, ASN1Exception, CertificateException {
+        byte[] der = readGolden("cert.der");
+        X509Certificate expected = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(der));
+        CertificateView view = CertificateView.parse(der);
+
+        assertEquals(expected.getVersion(), view.version());
+        assertEquals(expected.getSerialNumber(), view.serialNumber());
+        assertEquals(ByteBuffer.wrap(expected.getTBSCertificate()), view.tbsCertificate());
+        assertEquals(ByteBuffer.wrap(expected.getIssuerX500Principal().getEncoded()), view.issuer());
+        assertEquals(ByteBuffer.wrap(expected.getSubjectX500Principal().getEncoded()), view.subject());
+        assertTrue(view.isSelfIssued());
+        assertEquals(expected.getNotBefore().toInstant(), view.notBefore().toInstant());
+        assertEquals(expected.getNotAfter().toInstant(), view.notAfter().toInstant());
+        assertTrue(view.isValidAt(expected.getNotBefore().toInstant()));
+        assertFalse(view.isValidAt(expected.getNotAfter().toInstant().plusSeconds(1)));
+        assertEquals(ByteBuffer.wrap(expected.getPublicKey().getEncoded()), view.subjectPublicKeyInfo());
+        assertEquals("1.2.840.10045.2.1", view.publicKeyAlgorithm().toDottedString());
+        assertEquals(65, view.subjectPublicKey().length());
+        assertEquals(expected.getSigAlgOID(), view.signatureAlgorithm().toDottedString());
+        assertArrayEquals(expected.getSignature(), view.signatureValue().toByteArray());
+        assertEquals(ASN1Identifier.SEQUENCE, view.subjectNode().identifier);
+
+        // Looked up one at a time, extensions match the JDK's view of extnValue and its critical set
+        assertEquals(3, view.extensions().size());
+        for (CertificateView.Extension extension : view.extensions()) {
+            String oid = extension.id().toDottedString();
+            assertEquals(expected.getCriticalExtensionOIDs().contains(oid), extension.critical());
+            byte[] wrapped = expected.getExtensionValue(oid);
+            assertEquals(ByteBuffer.wrap(wrapped, 2, wrapped.length - 2), extension.value());
+            assertEquals(extension, view.extension(extension.id()));
+        }
+        CertificateView.Extension basicConstraints = view.extension(ASN1ObjectIdentifier.of("2.5.29.19"));
+        assertTrue(basicConstraints.critical());
+        assertEquals(ASN1Identifier.SEQUENCE, basicConstraints.valueNode().identifier);
+        assertNull(view.extension(ASN1ObjectIdentifier.of("2.5.29.17")));
+
+        // A view over a slice of a larger buffer sees the same fields
+        byte[] padded = new byte[der.length + 8];
+        System.arraycopy(der, 0, padded, 4, der.length);
+        assertEquals(view.serialNumber(), CertificateView.parse(padded, 4, der.length).serialNumber());
+
+        // Truncation, trailing data and a wrong outer tag are all rejected
+        assertThrows(ASN1Exception.class, () -> CertificateView.parse(Arrays.copyOf(der, der.length - 1)));
+        assertThrows(ASN1Exception.class, () -> CertificateView.parse(Arrays.copyOf(der, der.length + 1)));
+        byte[] retagged = der.clone();
+        retagged[0] = 0x31;
+        assertThrows(ASN1Exception.class, () -> CertificateView.parse(retagged));
+        assertThrows(ASN1Exception.class, () -> CertificateView.parse(readGolden("int_42.der")));
+    }
+
+    @Test
+    public void test_certificate_pem() throws IOException, ASN1Exception, CertificateException {
+        byte[] der = readGolden("cert.der");
+        String pem = new PEMDocument("CERTIFICATE", der).toPEM();
+        X509Certificate parsed = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(pem.getBytes(StandardCharsets.US_ASCII)));
+        assertArrayEquals(der, parsed.getEncoded());
+
+        try (PEMReader reader = new PEMReader(new ByteArrayInputStream((pem + pem).getBytes(StandardCharsets.US_ASCII)))) {
+            for (int i = 0; i < 2; i++) {
+                assertTrue(reader.next());
+                CertificateView view = CertificateView.parse(reader.buffer(), 0, reader.length());
+                assertEquals(parsed.getSerialNumber(), view.serialNumber());
+            }
+            assertFalse(reader.next());
+        }
+    }
 }